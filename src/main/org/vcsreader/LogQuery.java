@@ -0,0 +1,332 @@
+package org.vcsreader;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.lang.TimeRange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Describes which commits should be logged by {@link VcsRoot#log(LogQuery)}.
+ * VCS roots translate query into VCS command line arguments (e.g. "git log --author=... -- path")
+ * so that commits are filtered by VCS, conditions which can't be expressed exactly on command line
+ * are checked by {@link #filter(LogResult)} after commits are parsed.
+ * <p>
+ * Note that query only selects commits, i.e. changes of selected commits are not filtered by {@link #paths()}.
+ * <p>
+ * Query can also limit which commit fields are logged (see {@link #withMessage(Message)}, {@link #withAuthor(boolean)}
+ * and {@link #withChanges(boolean)}) to reduce size of VCS output, e.g. for repositories with long generated messages.
+ * Fields which are not logged are empty in {@link VcsCommit}.
+ */
+public class LogQuery {
+	public static final int noMaxCount = Integer.MAX_VALUE;
+	public static final LogQuery all = new LogQuery(TimeRange.all, emptyList(), emptyList(), emptyList(), null, noMaxCount, false);
+
+	public enum Message {
+		full,
+		/**
+		 * The first line of commit message (for git the first paragraph joined into one line).
+		 */
+		subject,
+		none
+	}
+
+	@NotNull private final TimeRange timeRange;
+	@NotNull private final List<String> paths;
+	@NotNull private final List<String> excludedPaths;
+	@NotNull private final List<String> authors;
+	@Nullable private final String messageText;
+	private final int maxCount;
+	private final boolean skipMerges;
+	@NotNull private final Message message;
+	private final boolean author;
+	private final boolean changes;
+
+
+	/**
+	 * @param paths         commits with changes of files under any of the paths (relative to {@link VcsRoot} path),
+	 *                      empty list means all paths
+	 * @param excludedPaths commits with changes only under these paths are not logged
+	 * @param authors       commits by any of the authors (as returned by {@link VcsCommit#getAuthor()}),
+	 *                      empty list means all authors
+	 * @param messageText   commits with message which contains the text (case-insensitive); null means all commits
+	 * @param maxCount      the number of the most recent commits to log
+	 * @param skipMerges    if true, merge commits are not logged (not supported by svn)
+	 */
+	public LogQuery(@NotNull TimeRange timeRange, @NotNull List<String> paths, @NotNull List<String> excludedPaths,
+	                @NotNull List<String> authors, @Nullable String messageText, int maxCount, boolean skipMerges) {
+		this(timeRange, paths, excludedPaths, authors, messageText, maxCount, skipMerges, Message.full, true, true);
+	}
+
+	/**
+	 * @param message which part of commit message is logged
+	 * @param author  if false, author is not logged (unless query has {@link #authors()})
+	 * @param changes if false, changes are not logged
+	 */
+	public LogQuery(@NotNull TimeRange timeRange, @NotNull List<String> paths, @NotNull List<String> excludedPaths,
+	                @NotNull List<String> authors, @Nullable String messageText, int maxCount, boolean skipMerges,
+	                @NotNull Message message, boolean author, boolean changes) {
+		if (maxCount < 1) throw new IllegalArgumentException("Max count must be positive: " + maxCount);
+		this.timeRange = timeRange;
+		this.paths = unmodifiableList(normalized(paths));
+		this.excludedPaths = unmodifiableList(normalized(excludedPaths));
+		this.authors = unmodifiableList(new ArrayList<>(authors));
+		this.messageText = messageText;
+		this.maxCount = maxCount;
+		this.skipMerges = skipMerges;
+		this.message = message;
+		this.author = author;
+		this.changes = changes;
+	}
+
+	public static LogQuery of(TimeRange timeRange) {
+		return all.withTimeRange(timeRange);
+	}
+
+	public LogQuery withTimeRange(TimeRange value) {
+		return new LogQuery(value, paths, excludedPaths, authors, messageText, maxCount, skipMerges, message, author, changes);
+	}
+
+	public LogQuery withPaths(String... value) {
+		return withPaths(asList(value));
+	}
+
+	public LogQuery withPaths(List<String> value) {
+		return new LogQuery(timeRange, value, excludedPaths, authors, messageText, maxCount, skipMerges, message, author, changes);
+	}
+
+	public LogQuery withExcludedPaths(String... value) {
+		return withExcludedPaths(asList(value));
+	}
+
+	public LogQuery withExcludedPaths(List<String> value) {
+		return new LogQuery(timeRange, paths, value, authors, messageText, maxCount, skipMerges, message, author, changes);
+	}
+
+	public LogQuery withAuthors(String... value) {
+		return withAuthors(asList(value));
+	}
+
+	public LogQuery withAuthors(List<String> value) {
+		return new LogQuery(timeRange, paths, excludedPaths, value, messageText, maxCount, skipMerges, message, author, changes);
+	}
+
+	public LogQuery withMessageText(@Nullable String value) {
+		return new LogQuery(timeRange, paths, excludedPaths, authors, value, maxCount, skipMerges, message, author, changes);
+	}
+
+	public LogQuery withMaxCount(int value) {
+		return new LogQuery(timeRange, paths, excludedPaths, authors, messageText, value, skipMerges, message, author, changes);
+	}
+
+	public LogQuery withSkipMerges(boolean value) {
+		return new LogQuery(timeRange, paths, excludedPaths, authors, messageText, maxCount, value, message, author, changes);
+	}
+
+	public LogQuery withMessage(Message value) {
+		return new LogQuery(timeRange, paths, excludedPaths, authors, messageText, maxCount, skipMerges, value, author, changes);
+	}
+
+	public LogQuery withAuthor(boolean value) {
+		return new LogQuery(timeRange, paths, excludedPaths, authors, messageText, maxCount, skipMerges, message, value, changes);
+	}
+
+	public LogQuery withChanges(boolean value) {
+		return new LogQuery(timeRange, paths, excludedPaths, authors, messageText, maxCount, skipMerges, message, author, value);
+	}
+
+	public LogQuery withoutPaths() {
+		return new LogQuery(timeRange, emptyList(), emptyList(), authors, messageText, maxCount, skipMerges, message, author, changes);
+	}
+
+	@NotNull public TimeRange timeRange() {
+		return timeRange;
+	}
+
+	@NotNull public List<String> paths() {
+		return paths;
+	}
+
+	@NotNull public List<String> excludedPaths() {
+		return excludedPaths;
+	}
+
+	@NotNull public List<String> authors() {
+		return authors;
+	}
+
+	@Nullable public String messageText() {
+		return messageText;
+	}
+
+	public int maxCount() {
+		return maxCount;
+	}
+
+	public boolean hasMaxCount() {
+		return maxCount != noMaxCount;
+	}
+
+	public boolean skipMerges() {
+		return skipMerges;
+	}
+
+	@NotNull public Message message() {
+		return message;
+	}
+
+	/**
+	 * @return true if author should be logged, i.e. it was requested or it's needed to check {@link #authors()}
+	 */
+	public boolean logsAuthor() {
+		return author || !authors.isEmpty();
+	}
+
+	public boolean logsChanges() {
+		return changes;
+	}
+
+	public boolean hasPaths() {
+		return !paths.isEmpty() || !excludedPaths.isEmpty();
+	}
+
+	/**
+	 * @return true if query has conditions which can be checked by {@link #filter(LogResult)}
+	 */
+	public boolean hasFilters() {
+		return hasCommitFilters() || hasMaxCount();
+	}
+
+	/**
+	 * @return true if {@link #filter(LogResult)} can remove commits because they don't match the query
+	 * (i.e. not only because of max count). In this case max count can't be applied by VCS command
+	 * because the command would return fewer commits than requested.
+	 */
+	public boolean hasCommitFilters() {
+		return hasPaths() || !authors.isEmpty() || messageText != null;
+	}
+
+	/**
+	 * @return result with commits matching this query (merge commits are not filtered because
+	 * they can't be distinguished from other commits after parsing)
+	 */
+	public LogResult filter(LogResult logResult) {
+		if (!hasFilters()) return logResult;
+
+		List<VcsCommit> commits = new ArrayList<>();
+		for (VcsCommit commit : logResult.commits()) {
+			if (matches(commit)) commits.add(commit);
+		}
+		if (hasMaxCount()) commits.sort(LogResult.byDateTime);
+		return new LogResult(mostRecent(commits), logResult.exceptions(), logResult.lastRevision());
+	}
+
+	/**
+	 * @param commits commits sorted by time from the oldest one or in any order if query has no max count
+	 * @return the last {@link #maxCount()} commits
+	 */
+	public List<VcsCommit> mostRecent(List<VcsCommit> commits) {
+		if (commits.size() <= maxCount) return commits;
+		return new ArrayList<>(commits.subList(commits.size() - maxCount, commits.size()));
+	}
+
+	/**
+	 * Note that if query has paths, changes of the commit are read (i.e. loaded if they are lazy).
+	 */
+	public boolean matches(VcsCommit commit) {
+		if (!authors.isEmpty() && !authors.contains(commit.getAuthor())) return false;
+		if (messageText != null && !containsIgnoreCase(commit.getMessage(), messageText)) return false;
+		if (hasPaths()) {
+			for (VcsChange change : commit.getChanges()) {
+				if (matchesPath(change.getFilePath()) || matchesPath(change.getFilePathBefore())) return true;
+			}
+			return false;
+		}
+		return true;
+	}
+
+	private boolean matchesPath(String filePath) {
+		if (filePath.equals(VcsChange.noFilePath)) return false;
+		return (paths.isEmpty() || isUnderAny(filePath, paths)) && !isUnderAny(filePath, excludedPaths);
+	}
+
+	private static boolean isUnderAny(String filePath, List<String> paths) {
+		for (String path : paths) {
+			if (path.isEmpty()) return true;
+			if (filePath.startsWith(path) && (filePath.length() == path.length() || filePath.charAt(path.length()) == '/')) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean containsIgnoreCase(String s, String text) {
+		for (int i = 0; i + text.length() <= s.length(); i++) {
+			if (s.regionMatches(true, i, text, 0, text.length())) return true;
+		}
+		return false;
+	}
+
+	private static List<String> normalized(List<String> paths) {
+		List<String> result = new ArrayList<>(paths.size());
+		for (String path : paths) {
+			while (path.endsWith("/")) path = path.substring(0, path.length() - 1);
+			while (path.startsWith("/")) path = path.substring(1);
+			result.add(path);
+		}
+		return result;
+	}
+
+	@SuppressWarnings("SimplifiableIfStatement")
+	@Override public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+
+		LogQuery logQuery = (LogQuery) o;
+
+		if (maxCount != logQuery.maxCount) return false;
+		if (skipMerges != logQuery.skipMerges) return false;
+		if (author != logQuery.author) return false;
+		if (changes != logQuery.changes) return false;
+		if (message != logQuery.message) return false;
+		if (!timeRange.equals(logQuery.timeRange)) return false;
+		if (!paths.equals(logQuery.paths)) return false;
+		if (!excludedPaths.equals(logQuery.excludedPaths)) return false;
+		if (!authors.equals(logQuery.authors)) return false;
+		return messageText != null ? messageText.equals(logQuery.messageText) : logQuery.messageText == null;
+	}
+
+	@Override public int hashCode() {
+		int result = timeRange.hashCode();
+		result = 31 * result + paths.hashCode();
+		result = 31 * result + excludedPaths.hashCode();
+		result = 31 * result + authors.hashCode();
+		result = 31 * result + (messageText != null ? messageText.hashCode() : 0);
+		result = 31 * result + maxCount;
+		result = 31 * result + (skipMerges ? 1 : 0);
+		result = 31 * result + message.hashCode();
+		result = 31 * result + (author ? 1 : 0);
+		result = 31 * result + (changes ? 1 : 0);
+		return result;
+	}
+
+	@Override public String toString() {
+		return "LogQuery{" +
+				"timeRange=" + timeRange +
+				", paths=" + paths +
+				", excludedPaths=" + excludedPaths +
+				", authors=" + authors +
+				", messageText='" + messageText + '\'' +
+				", maxCount=" + maxCount +
+				", skipMerges=" + skipMerges +
+				", message=" + message +
+				", author=" + author +
+				", changes=" + changes +
+				'}';
+	}
+}
@@ -1,18 +1,23 @@
 package org.vcsreader;
 
+import org.jetbrains.annotations.Nullable;
 import org.vcsreader.lang.Aggregatable;
 import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
 import static java.util.Arrays.asList;
+import static org.vcsreader.lang.MergedIterator.mergeSorted;
 
 public class LogResult implements Aggregatable<LogResult> {
 	public static final ExceptionWrapper<LogResult> adapter = LogResult::new;
+	static final Comparator<VcsCommit> byDateTime = Comparator.comparing(VcsCommit::getDateTime);
 	private final List<VcsCommit> commits;
 	private final List<Exception> exceptions;
+	@Nullable private final String lastRevision;
 
 
 	public LogResult() {
@@ -28,19 +33,71 @@ public class LogResult implements Aggregatable<LogResult> {
 	}
 
 	public LogResult(List<VcsCommit> commits, List<Exception> exceptions) {
+		this(commits, exceptions, null);
+	}
+
+	public LogResult(List<VcsCommit> commits, List<Exception> exceptions, @Nullable String lastRevision) {
 		this.commits = commits;
 		this.exceptions = exceptions;
+		this.lastRevision = lastRevision;
 	}
 
 	@Override public LogResult aggregateWith(LogResult value) {
-		List<VcsCommit> newCommits = new ArrayList<>(commits);
-		List<Exception> newExceptions = new ArrayList<>(exceptions);
+		return aggregate(asList(this, value));
+	}
+
+	/**
+	 * Same as aggregating results one by one with {@link #aggregateWith(LogResult)} (i.e. commits are sorted by time,
+	 * commits with the same time keep order of results) except that commits are merged in one pass
+	 * without creating intermediate lists.
+	 * Commits of each result are expected to be already sorted by time (e.g. when they come from one VCS root),
+	 * lists sorted from the newest to the oldest commit (e.g. from git log) are reversed,
+	 * otherwise the list is sorted before merging.
+	 */
+	public static LogResult aggregate(List<LogResult> results) {
+		List<List<VcsCommit>> commitLists = new ArrayList<>(results.size());
+		List<Exception> newExceptions = new ArrayList<>();
+		for (LogResult result : results) {
+			commitLists.add(sortedByDateTime(result.commits));
+			newExceptions.addAll(result.exceptions);
+		}
+		return new LogResult(mergeSorted(commitLists, byDateTime), newExceptions);
+	}
+
+	private static List<VcsCommit> sortedByDateTime(List<VcsCommit> commits) {
+		if (isSorted(commits, byDateTime)) return commits;
+
+		List<VcsCommit> result = new ArrayList<>(commits);
+		if (isSorted(commits, byDateTime.reversed())) {
+			reverseKeepingOrderOfEqual(result, byDateTime);
+		} else {
+			result.sort(byDateTime);
+		}
+		return result;
+	}
 
-		newCommits.addAll(value.commits);
-		newCommits.sort(Comparator.comparing(VcsCommit::getDateTime));
-		newExceptions.addAll(value.exceptions);
+	private static boolean isSorted(List<VcsCommit> commits, Comparator<VcsCommit> comparator) {
+		VcsCommit previous = null;
+		for (VcsCommit commit : commits) {
+			if (previous != null && comparator.compare(previous, commit) > 0) return false;
+			previous = commit;
+		}
+		return true;
+	}
 
-		return new LogResult(newCommits, newExceptions);
+	/**
+	 * Reverses list sorted in descending order so that the result is the same as after stable sort,
+	 * i.e. elements which are equal according to {@code comparator} keep their order.
+	 */
+	private static void reverseKeepingOrderOfEqual(List<VcsCommit> commits, Comparator<VcsCommit> comparator) {
+		Collections.reverse(commits);
+		int from = 0;
+		for (int i = 1; i <= commits.size(); i++) {
+			if (i == commits.size() || comparator.compare(commits.get(from), commits.get(i)) != 0) {
+				if (i - from > 1) Collections.reverse(commits.subList(from, i));
+				from = i;
+			}
+		}
 	}
 
 	public boolean isSuccessful() {
@@ -55,6 +112,18 @@ public class LogResult implements Aggregatable<LogResult> {
 		return commits;
 	}
 
+	/**
+	 * @return revision which should be passed to {@link VcsRoot#logAfter(String)} to log only newer commits;
+	 * null if this result is not from {@link VcsRoot#logAfter(String)} or is aggregated from several roots
+	 */
+	@Nullable public String lastRevision() {
+		return lastRevision;
+	}
+
+	public LogResult withLastRevision(@Nullable String lastRevision) {
+		return new LogResult(commits, exceptions, lastRevision);
+	}
+
 	LogResult setVcsRoot(VcsRoot vcsRoot) {
 		for (VcsCommit commit : commits) {
 			if (commit instanceof VcsCommit.WithRootReference) {
@@ -76,12 +145,14 @@ public class LogResult implements Aggregatable<LogResult> {
 		LogResult logResult = (LogResult) o;
 
 		if (commits != null ? !commits.equals(logResult.commits) : logResult.commits != null) return false;
-		return exceptions != null ? exceptions.equals(logResult.exceptions) : logResult.exceptions == null;
+		if (exceptions != null ? !exceptions.equals(logResult.exceptions) : logResult.exceptions != null) return false;
+		return lastRevision != null ? lastRevision.equals(logResult.lastRevision) : logResult.lastRevision == null;
 	}
 
 	@Override public int hashCode() {
 		int result = commits != null ? commits.hashCode() : 0;
 		result = 31 * result + (exceptions != null ? exceptions.hashCode() : 0);
+		result = 31 * result + (lastRevision != null ? lastRevision.hashCode() : 0);
 		return result;
 	}
 }
@@ -0,0 +1,63 @@
+package org.vcsreader;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Spliterators.spliteratorUnknownSize;
+
+/**
+ * Commits which are parsed from VCS output while VCS command is still running.
+ * Unlike {@link LogResult} only commits which are not yet consumed are kept in memory.
+ * <p>
+ * The stream must be closed after use (closing the stream before reading all commits cancels VCS command).
+ * It is intended to be read from single thread
+ * except for {@link #close()} method which can be called from any thread.
+ */
+public interface LogStream extends Iterator<VcsCommit>, Closeable {
+
+	/**
+	 * @return exceptions reported by VCS command.
+	 * Note that the list is only complete after all commits were read from the stream.
+	 */
+	List<Exception> exceptions();
+
+	boolean isSuccessful();
+
+	@Override void close();
+
+	default Stream<VcsCommit> stream() {
+		Spliterator<VcsCommit> spliterator = spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false).onClose(this::close);
+	}
+
+	/**
+	 * @return stream of commits from already finished log
+	 */
+	static LogStream of(LogResult logResult) {
+		Iterator<VcsCommit> iterator = logResult.commits().iterator();
+		return new LogStream() {
+			@Override public List<Exception> exceptions() {
+				return logResult.exceptions();
+			}
+
+			@Override public boolean isSuccessful() {
+				return logResult.isSuccessful();
+			}
+
+			@Override public void close() {
+			}
+
+			@Override public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override public VcsCommit next() {
+				return iterator.next();
+			}
+		};
+	}
+}
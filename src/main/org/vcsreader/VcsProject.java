@@ -1,10 +1,16 @@
 package org.vcsreader;
 
+import org.vcsreader.lang.Aggregatable;
+import org.vcsreader.lang.MergedIterator;
 import org.vcsreader.lang.TimeRange;
 import org.vcsreader.vcs.VcsCommand;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableList;
@@ -16,10 +22,19 @@ import static java.util.stream.Collectors.toList;
  * <p>
  * It is intended to be used from single thread
  * except for {@link #cancelLastCommand()} method which can be called from any thread.
+ * <p>
+ * By default commands for {@link VcsRoot}s are executed one after another.
+ * Use {@link #inParallel(int)} or {@link #inParallel(Executor)} to execute them concurrently.
  */
 public class VcsProject {
 	private final List<VcsRoot> vcsRoots;
 	private final CompositeListener compositeListener;
+	private final Set<VcsCommand<?>> runningCommands = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+	private final Map<VcsRoot, String> lastLoggedRevisions = new ConcurrentHashMap<>();
+	private volatile Executor executor;
+	private int maxConcurrency; // guarded by this
+	private ThreadPoolExecutor threadPool; // guarded by this
+	private volatile int timeSliceCount = 1;
 
 	public VcsProject(VcsRoot... vcsRoots) {
 		this(asList(vcsRoots));
@@ -41,12 +56,7 @@ public class VcsProject {
 	 * Does nothing for centralized VCS because commit history can be queried from server.
 	 */
 	public CloneResult cloneIt() {
-		CloneResult result = new CloneResult();
-		for (VcsRoot vcsRoot : vcsRoots) {
-			CloneResult cloneResult = vcsRoot.cloneIt();
-			result = result.aggregateWith(cloneResult);
-		}
-		return result;
+		return aggregate(new CloneResult(), executeForAllRoots(VcsRoot::cloneIt));
 	}
 
 	/**
@@ -54,12 +64,7 @@ public class VcsProject {
 	 * Does nothing for centralized VCS because commit history can be queried from server.
 	 */
 	public UpdateResult update() {
-		UpdateResult result = new UpdateResult();
-		for (VcsRoot vcsRoot : vcsRoots) {
-			UpdateResult updateResult = vcsRoot.update();
-			result = result.aggregateWith(updateResult);
-		}
-		return result;
+		return aggregate(new UpdateResult(), executeForAllRoots(VcsRoot::update));
 	}
 
 	/**
@@ -73,15 +78,304 @@ public class VcsProject {
 	 *                  start is inclusive with one second resolution, end is exclusive with one second resolution
 	 */
 	public LogResult log(TimeRange timeRange) {
-		LogResult result = new LogResult();
+		return log(timeRange, VcsRoot::log);
+	}
+
+	/**
+	 * Same as {@link #log(TimeRange)} except that only commits matching {@code query} are logged
+	 * (see {@link VcsRoot#log(LogQuery)}). {@link LogQuery#maxCount()} limits the number of commits
+	 * for the whole project, i.e. the most recent commits from all roots are returned.
+	 */
+	public LogResult log(LogQuery query) {
+		LogResult logResult = log(query.timeRange(), (vcsRoot, timeSlice) -> vcsRoot.log(query.withTimeRange(timeSlice)));
+		if (!query.hasMaxCount()) return logResult;
+		return new LogResult(query.mostRecent(logResult.commits()), logResult.exceptions());
+	}
+
+	private LogResult log(TimeRange timeRange, BiFunction<VcsRoot, TimeRange, LogResult> log) {
+		List<TimeRange> timeSlices = timeRange.split(timeSliceCount);
+		List<Supplier<LogResult>> tasks = new ArrayList<>();
 		for (VcsRoot vcsRoot : vcsRoots) {
-			LogResult logResult = vcsRoot.log(timeRange);
-			logResult = (logResult != null ? logResult.setVcsRoot(vcsRoot) : null);
-			result = result.aggregateWith(logResult);
+			for (TimeRange timeSlice : timeSlices) {
+				tasks.add(() -> {
+					LogResult logResult = log.apply(vcsRoot, timeSlice);
+					return (logResult != null ? logResult.setVcsRoot(vcsRoot) : null);
+				});
+			}
+		}
+		List<LogResult> results = executeAll(tasks);
+		if (timeSlices.size() == 1) {
+			return LogResult.aggregate(withoutNulls(results));
+		}
+
+		List<LogResult> rootResults = new ArrayList<>();
+		for (int i = 0; i < results.size(); i += timeSlices.size()) {
+			List<LogResult> sliceResults = withoutNulls(results.subList(i, i + timeSlices.size()));
+			if (!sliceResults.isEmpty()) rootResults.add(mergeTimeSlices(sliceResults));
+		}
+		return LogResult.aggregate(rootResults);
+	}
+
+	/**
+	 * Commits at the boundary of time slices can be logged twice (e.g. because hg date range includes both ends)
+	 * and errors which are not related to time range are reported for each slice, so duplicates are removed.
+	 */
+	private static LogResult mergeTimeSlices(List<LogResult> sliceResults) {
+		LogResult logResult = LogResult.aggregate(sliceResults);
+		Set<String> revisions = new HashSet<>();
+		List<VcsCommit> commits = new ArrayList<>(logResult.commits().size());
+		for (VcsCommit commit : logResult.commits()) {
+			if (revisions.add(commit.getRevision())) commits.add(commit);
+		}
+		List<Exception> exceptions = new ArrayList<>(new LinkedHashSet<>(logResult.exceptions()));
+		return new LogResult(commits, exceptions);
+	}
+
+	/**
+	 * Requests commits which were added to {@link VcsRoot}s since the previous call of this method
+	 * (see {@link VcsRoot#logAfter(String)}). The first call logs all commits.
+	 * All results together are the same as {@link #log(TimeRange)} for all time, but each call only reads new commits.
+	 * <p>
+	 * To continue from where previous instance of the project stopped, save {@link #lastLoggedRevisions()}
+	 * and pass them to {@link #useLastLoggedRevisions(Map)}.
+	 */
+	public LogResult logNewCommits() {
+		List<LogResult> logResults = executeForAllRoots(vcsRoot -> {
+			LogResult logResult = vcsRoot.logAfter(lastLoggedRevisions.get(vcsRoot));
+			if (logResult == null) return null;
+			if (logResult.lastRevision() != null) {
+				lastLoggedRevisions.put(vcsRoot, logResult.lastRevision());
+			}
+			return logResult.setVcsRoot(vcsRoot);
+		});
+		return LogResult.aggregate(logResults);
+	}
+
+	/**
+	 * @return the last revisions logged by {@link #logNewCommits()} for each {@link VcsRoot}
+	 * (roots without logged revisions are not included)
+	 */
+	public Map<VcsRoot, String> lastLoggedRevisions() {
+		return new HashMap<>(lastLoggedRevisions);
+	}
+
+	/**
+	 * Makes {@link #logNewCommits()} log commits after the specified revisions.
+	 * Roots are matched using {@link VcsRoot#equals(Object)}, roots which are not in the map are logged from the start.
+	 */
+	public VcsProject useLastLoggedRevisions(Map<VcsRoot, String> revisions) {
+		lastLoggedRevisions.clear();
+		lastLoggedRevisions.putAll(revisions);
+		return this;
+	}
+
+	/**
+	 * Same as {@link #cloneIt()} except that commands for all {@link VcsRoot}s are executed on {@code executor}.
+	 * Cancelling returned future cancels commands which are still running.
+	 */
+	public CompletableFuture<CloneResult> cloneAsync(Executor executor) {
+		return executeForAllRootsAsync(
+				vcsRoot -> vcsRoot.cloneAsync(executor),
+				results -> aggregate(new CloneResult(), withoutNulls(results))
+		);
+	}
+
+	/**
+	 * Same as {@link #update()} except that commands for all {@link VcsRoot}s are executed on {@code executor}.
+	 * Cancelling returned future cancels commands which are still running.
+	 */
+	public CompletableFuture<UpdateResult> updateAsync(Executor executor) {
+		return executeForAllRootsAsync(
+				vcsRoot -> vcsRoot.updateAsync(executor),
+				results -> aggregate(new UpdateResult(), withoutNulls(results))
+		);
+	}
+
+	/**
+	 * Same as {@link #log(TimeRange)} except that commands for all {@link VcsRoot}s are executed on {@code executor}.
+	 * Cancelling returned future cancels commands which are still running.
+	 */
+	public CompletableFuture<LogResult> logAsync(TimeRange timeRange, Executor executor) {
+		return executeForAllRootsAsync(
+				vcsRoot -> vcsRoot.logAsync(timeRange, executor),
+				results -> {
+					List<LogResult> logResults = new ArrayList<>(results.size());
+					for (int i = 0; i < results.size(); i++) {
+						LogResult logResult = results.get(i);
+						if (logResult != null) logResults.add(logResult.setVcsRoot(vcsRoots.get(i)));
+					}
+					return LogResult.aggregate(logResults);
+				}
+		);
+	}
+
+	/**
+	 * @param aggregator receives results in the order of {@link #vcsRoots()} (including null results)
+	 */
+	private <T, R> CompletableFuture<R> executeForAllRootsAsync(Function<VcsRoot, CompletableFuture<T>> command,
+	                                                            Function<List<T>, R> aggregator) {
+		List<CompletableFuture<T>> futures = vcsRoots.stream().map(command).collect(toList());
+		CompletableFuture<R> result = CompletableFuture
+				.allOf(futures.toArray(new CompletableFuture<?>[0]))
+				.thenApply(ignored -> aggregator.apply(futures.stream().map(CompletableFuture::join).collect(toList())));
+		result.whenComplete((value, throwable) -> {
+			if (result.isCancelled()) {
+				for (CompletableFuture<T> future : futures) {
+					future.cancel(true);
+				}
+			}
+		});
+		return result;
+	}
+
+	private static <T> List<T> withoutNulls(List<T> list) {
+		return list.stream().filter(Objects::nonNull).collect(toList());
+	}
+
+	private static <T extends Aggregatable<T>> T aggregate(T result, List<T> results) {
+		for (T value : results) {
+			result = result.aggregateWith(value);
 		}
 		return result;
 	}
 
+	/**
+	 * @return non-null results in the order of {@link #vcsRoots()}
+	 */
+	private <T> List<T> executeForAllRoots(Function<VcsRoot, T> command) {
+		List<Supplier<T>> tasks = new ArrayList<>(vcsRoots.size());
+		for (VcsRoot vcsRoot : vcsRoots) {
+			tasks.add(() -> command.apply(vcsRoot));
+		}
+		return withoutNulls(executeAll(tasks));
+	}
+
+	/**
+	 * @return results in the order of {@code tasks} (including null results) regardless of whether tasks are executed in parallel.
+	 * In parallel mode, if one of the tasks throws an exception, commands of other tasks are cancelled
+	 * and the first exception is rethrown after all tasks finished.
+	 */
+	private <T> List<T> executeAll(List<Supplier<T>> tasks) {
+		List<T> results = new ArrayList<>(tasks.size());
+		Executor executor = executor();
+		if (executor == null) {
+			for (Supplier<T> task : tasks) {
+				results.add(task.get());
+			}
+			return results;
+		}
+
+		AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+		List<CompletableFuture<T>> futures = new ArrayList<>();
+		for (Supplier<T> task : tasks) {
+			CompletableFuture<T> future = CompletableFuture
+					.supplyAsync(task, executor)
+					.whenComplete((value, throwable) -> {
+						if (throwable == null) return;
+						Throwable cause = (throwable instanceof CompletionException && throwable.getCause() != null) ? throwable.getCause() : throwable;
+						if (firstFailure.compareAndSet(null, cause)) cancelLastCommand();
+					});
+			futures.add(future);
+		}
+		for (CompletableFuture<T> future : futures) {
+			try {
+				results.add(future.join());
+			} catch (CompletionException ignored) {
+				// rethrown below after all commands finished
+			}
+		}
+		Throwable failure = firstFailure.get();
+		if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+		if (failure instanceof Error) throw (Error) failure;
+		if (failure != null) throw new CompletionException(failure);
+		return results;
+	}
+
+	/**
+	 * Same as {@link #log(TimeRange)} except that commits are returned while VCS commands are still running.
+	 * Commands for {@link VcsRoot}s are executed one after another (when all commits from previous root were read),
+	 * commits within each root are ordered from the oldest to the newest.
+	 */
+	public LogStream logStream(TimeRange timeRange) {
+		return new ProjectLogStream(timeRange);
+	}
+
+	/**
+	 * Same as {@link #logStream(TimeRange)} except that VCS commands for all {@link VcsRoot}s are started at once
+	 * and commits from all roots are merged by time as they are read (without loading all commits into memory).
+	 * The result is sorted by time assuming that commits of each root are logged in time order
+	 * (which is not always the case, e.g. after git rebase).
+	 */
+	public LogStream mergedLogStream(TimeRange timeRange) {
+		return new MergedLogStream(timeRange);
+	}
+
+	/**
+	 * Makes {@link #cloneIt()}, {@link #update()} and {@link #log(TimeRange)} execute commands
+	 * for up to {@code maxConcurrency} {@link VcsRoot}s at the same time (using daemon threads).
+	 * Thread pool is owned by the project, it's created on first use and shut down by {@link #close()}.
+	 */
+	public VcsProject inParallel(int maxConcurrency) {
+		if (maxConcurrency < 1) throw new IllegalArgumentException("Max concurrency must be positive: " + maxConcurrency);
+		synchronized (this) {
+			shutdownThreadPool();
+			this.maxConcurrency = maxConcurrency;
+			this.executor = null;
+		}
+		return this;
+	}
+
+	/**
+	 * Makes {@link #log(TimeRange)} split time range into {@code sliceCount} slices (see {@link TimeRange#split(int)})
+	 * and log each slice with separate VCS command. This is useful for repositories with long history
+	 * when commands are executed in parallel (see {@link #inParallel(int)}),
+	 * so that history of one repository is read and parsed by several processes/threads.
+	 * The number of concurrent processes is still limited by executor of the project.
+	 */
+	public VcsProject inTimeSlices(int sliceCount) {
+		if (sliceCount < 1) throw new IllegalArgumentException("Slice count must be positive: " + sliceCount);
+		this.timeSliceCount = sliceCount;
+		return this;
+	}
+
+	/**
+	 * Makes {@link #cloneIt()}, {@link #update()} and {@link #log(TimeRange)} execute commands
+	 * for {@link VcsRoot}s concurrently on the {@code executor}.
+	 * Note that the executor must be able to run tasks in parallel with the thread which called these methods,
+	 * i.e. it can't be "same thread" executor.
+	 */
+	public VcsProject inParallel(Executor executor) {
+		synchronized (this) {
+			shutdownThreadPool();
+			this.maxConcurrency = 0;
+			this.executor = executor;
+		}
+		return this;
+	}
+
+	private synchronized Executor executor() {
+		if (executor != null || maxConcurrency == 0) return executor;
+		if (threadPool == null) {
+			threadPool = new ThreadPoolExecutor(
+					maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+					runnable -> {
+						Thread thread = new Thread(runnable, "vcsreader project command");
+						thread.setDaemon(true);
+						return thread;
+					}
+			);
+			threadPool.allowCoreThreadTimeOut(true);
+		}
+		return threadPool;
+	}
+
+	private synchronized void shutdownThreadPool() {
+		if (threadPool != null) {
+			threadPool.shutdown();
+			threadPool = null;
+		}
+	}
+
 	public VcsProject addListener(VcsCommand.Listener listener) {
 		compositeListener.add(listener);
 		return this;
@@ -97,23 +391,184 @@ public class VcsProject {
 	}
 
 	/**
+	 * Cancels all commands which are currently executed by {@link VcsRoot}s of this project
+	 * (there can be more than one command per root if they are called from several threads).
+	 *
 	 * @return true if all commands were successfully cancelled (or there are no running commands), otherwise false
 	 */
 	public boolean cancelLastCommand() {
 		boolean result = true;
+		List<VcsCommand<?>> commands;
+		synchronized (runningCommands) {
+			commands = new ArrayList<>(runningCommands);
+		}
+		for (VcsCommand<?> command : commands) {
+			result &= command.cancel();
+		}
 		for (VcsRoot vcsRoot : vcsRoots) {
 			result &= vcsRoot.cancelLastCommand();
 		}
 		return result;
 	}
 
+	/**
+	 * Stops VCS processes kept running by {@link VcsRoot}s of this project (see {@link VcsRoot#close()})
+	 * and thread pool created by {@link #inParallel(int)}. Must be called when project is no longer used.
+	 */
+	public void close() {
+		for (VcsRoot vcsRoot : vcsRoots) {
+			vcsRoot.close();
+		}
+		shutdownThreadPool();
+	}
+
 	@Override public String toString() {
 		return "VcsProject{" + vcsRoots + '}';
 	}
 
 
+	private class ProjectLogStream implements LogStream {
+		private final TimeRange timeRange;
+		private final List<Exception> exceptions = new ArrayList<>();
+		private int rootIndex = -1;
+		private VcsRoot vcsRoot;
+		private volatile LogStream logStream;
+		private volatile boolean isClosed;
+
+
+		private ProjectLogStream(TimeRange timeRange) {
+			this.timeRange = timeRange;
+		}
+
+		@Override public boolean hasNext() {
+			while (logStream == null || !logStream.hasNext()) {
+				if (logStream != null) {
+					exceptions.addAll(logStream.exceptions());
+					logStream.close();
+				}
+				rootIndex++;
+				if (isClosed || rootIndex >= vcsRoots.size()) {
+					logStream = null;
+					return false;
+				}
+				vcsRoot = vcsRoots.get(rootIndex);
+				logStream = vcsRoot.logStream(timeRange);
+			}
+			return true;
+		}
+
+		@Override public VcsCommit next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			VcsCommit commit = logStream.next();
+			if (commit instanceof VcsCommit.WithRootReference) {
+				((VcsCommit.WithRootReference) commit).setVcsRoot(vcsRoot);
+			}
+			return commit;
+		}
+
+		@Override public List<Exception> exceptions() {
+			return exceptions;
+		}
+
+		@Override public boolean isSuccessful() {
+			return exceptions.isEmpty();
+		}
+
+		@Override public void close() {
+			isClosed = true;
+			LogStream stream = logStream;
+			if (stream != null) stream.close();
+		}
+	}
+
+
+	private class MergedLogStream implements LogStream {
+		private final TimeRange timeRange;
+		private final List<Exception> exceptions = new ArrayList<>();
+		private final List<LogStream> logStreams = new ArrayList<>();
+		private Iterator<VcsCommit> mergedCommits;
+		private boolean isFinished;
+		private volatile boolean isClosed;
+
+
+		private MergedLogStream(TimeRange timeRange) {
+			this.timeRange = timeRange;
+		}
+
+		@Override public boolean hasNext() {
+			if (isFinished) return false;
+			if (mergedCommits == null) {
+				List<Iterator<VcsCommit>> iterators = new ArrayList<>();
+				for (VcsRoot vcsRoot : vcsRoots) {
+					if (isClosed) break;
+					LogStream logStream = vcsRoot.logStream(timeRange);
+					synchronized (logStreams) {
+						logStreams.add(logStream);
+					}
+					iterators.add(withRootReference(logStream, vcsRoot));
+				}
+				mergedCommits = new MergedIterator<>(iterators, LogResult.byDateTime);
+			}
+			if (!isClosed && mergedCommits.hasNext()) return true;
+			finish();
+			return false;
+		}
+
+		@Override public VcsCommit next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			return mergedCommits.next();
+		}
+
+		private Iterator<VcsCommit> withRootReference(LogStream logStream, VcsRoot vcsRoot) {
+			return new Iterator<VcsCommit>() {
+				@Override public boolean hasNext() {
+					return logStream.hasNext();
+				}
+
+				@Override public VcsCommit next() {
+					VcsCommit commit = logStream.next();
+					if (commit instanceof VcsCommit.WithRootReference) {
+						((VcsCommit.WithRootReference) commit).setVcsRoot(vcsRoot);
+					}
+					return commit;
+				}
+			};
+		}
+
+		private void finish() {
+			isFinished = true;
+			for (LogStream logStream : logStreams) {
+				logStream.close();
+				exceptions.addAll(logStream.exceptions());
+			}
+		}
+
+		@Override public List<Exception> exceptions() {
+			return exceptions;
+		}
+
+		@Override public boolean isSuccessful() {
+			return exceptions.isEmpty();
+		}
+
+		/**
+		 * Note that unlike other methods this can be called from any thread.
+		 */
+		@Override public void close() {
+			isClosed = true;
+			List<LogStream> streams;
+			synchronized (logStreams) {
+				streams = new ArrayList<>(logStreams);
+			}
+			for (LogStream logStream : streams) {
+				logStream.close();
+			}
+		}
+	}
+
+
 	private class CompositeListener implements VcsCommand.Listener {
-		private final List<VcsCommand.Listener> listeners = new ArrayList<>();
+		private final List<VcsCommand.Listener> listeners = new CopyOnWriteArrayList<>();
 
 		public void add(VcsCommand.Listener listener) {
 			listeners.add(listener);
@@ -124,12 +579,14 @@ public class VcsProject {
 		}
 
 		@Override public void beforeCommand(VcsCommand<?> command) {
+			runningCommands.add(command);
 			for (VcsCommand.Listener listener : listeners) {
 				listener.beforeCommand(command);
 			}
 		}
 
 		@Override public void afterCommand(VcsCommand<?> command) {
+			runningCommands.remove(command);
 			for (VcsCommand.Listener listener : listeners) {
 				listener.afterCommand(command);
 			}
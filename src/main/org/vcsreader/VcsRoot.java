@@ -3,11 +3,22 @@ package org.vcsreader;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.VcsCommand;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static java.util.Collections.singletonList;
 
 /**
  * Represents VCS repository.
  * <p>
  * For clone/log/update use {@link VcsProject} API.
+ * <p>
+ * Methods with "Async" suffix execute VCS commands on the specified executor.
+ * Cancelling future returned by these methods cancels the command, i.e. kills VCS process if it's running.
  */
 public interface VcsRoot {
 
@@ -21,7 +32,72 @@ public interface VcsRoot {
 
 	LogResult log(TimeRange timeRange);
 
+	/**
+	 * Same as {@link #log(TimeRange)} except that only commits matching {@code query} are logged.
+	 * VCS roots pass query conditions to VCS command so that commits are filtered before they are parsed,
+	 * default implementation logs commits within {@link LogQuery#timeRange()} and filters them afterwards.
+	 */
+	default LogResult log(LogQuery query) {
+		return query.filter(log(query.timeRange()));
+	}
+
+	/**
+	 * Requests commits which were added to repository after {@code revision}, i.e. for git commits reachable
+	 * from HEAD but not from {@code revision}, for hg and svn commits from {@code revision} (exclusive) to the latest one.
+	 * Passing {@link LogResult#lastRevision()} of the result to the next call logs only new commits,
+	 * so that all results together are the same as {@link #log(TimeRange)} for all time.
+	 *
+	 * Default implementation logs all commits and drops commits up to {@code revision} (ordered by time).
+	 *
+	 * @param revision the last revision returned by previous call; if null, all commits are logged
+	 */
+	default LogResult logAfter(@Nullable String revision) {
+		LogResult logResult = LogResult.aggregate(singletonList(log(TimeRange.all)));
+		List<VcsCommit> commits = logResult.commits();
+		int from = 0;
+		for (int i = 0; i < commits.size(); i++) {
+			if (commits.get(i).getRevision().equals(revision)) from = i + 1;
+		}
+		String lastRevision = commits.isEmpty() ? revision : commits.get(commits.size() - 1).getRevision();
+		return new LogResult(new ArrayList<>(commits.subList(from, commits.size())), logResult.exceptions(), lastRevision);
+	}
+
+	/**
+	 * Same as {@link #log(TimeRange)} except that commits are returned while VCS command is still running.
+	 * Commits are returned in the order they are logged by VCS starting from the oldest one.
+	 * Default implementation returns commits only after {@link #log(TimeRange)} is finished.
+	 */
+	default LogStream logStream(TimeRange timeRange) {
+		return LogStream.of(LogResult.aggregate(singletonList(log(timeRange))));
+	}
+
 	LogFileContentResult logFileContent(String filePath, String revision);
 
 	boolean cancelLastCommand();
+
+	/**
+	 * Stops VCS processes which are kept running between commands (if any).
+	 * It's ok to use root after it was closed, processes will be started again if needed.
+	 * <p>
+	 * Roots don't stop these processes on their own (e.g. git root keeps "git cat-file --batch" running
+	 * after {@link #logFileContent(String, String)}), so this method must be called when root is no longer used.
+	 */
+	default void close() {
+	}
+
+	default CompletableFuture<CloneResult> cloneAsync(Executor executor) {
+		return VcsCommand.supplyAsync(this::cloneIt, this::cancelLastCommand, executor);
+	}
+
+	default CompletableFuture<UpdateResult> updateAsync(Executor executor) {
+		return VcsCommand.supplyAsync(this::update, this::cancelLastCommand, executor);
+	}
+
+	default CompletableFuture<LogResult> logAsync(TimeRange timeRange, Executor executor) {
+		return VcsCommand.supplyAsync(() -> log(timeRange), this::cancelLastCommand, executor);
+	}
+
+	default CompletableFuture<LogFileContentResult> logFileContentAsync(String filePath, String revision, Executor executor) {
+		return VcsCommand.supplyAsync(() -> logFileContent(filePath, revision), this::cancelLastCommand, executor);
+	}
 }
@@ -5,6 +5,7 @@ import org.mozilla.universalchardet.UniversalDetector;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -26,7 +27,12 @@ public class CommandLine {
 	private int exitCode = exitCodeBeforeFinished;
 
 	private final AtomicReference<Process> processRef = new AtomicReference<>();
+	private Future<?> stdoutFuture;
+	private Future<String> stderrFuture;
+	private File stderrFile;
 	private final Map<String, String> environment = new HashMap<>();
+	private String input;
+	private volatile boolean isKilled;
 
 
 	public CommandLine(Collection<String> commandAndArgs) {
@@ -43,8 +49,8 @@ public class CommandLine {
 	}
 
 	public CommandLine workingDir(String path) {
-		if (path == null) return new CommandLine(config.workingDir(null), commandAndArgs);
-		else return new CommandLine(config.workingDir(new File(path)), commandAndArgs);
+		if (path == null) return withConfig(config.workingDir(null));
+		else return withConfig(config.workingDir(new File(path)));
 	}
 
 	public CommandLine environment(Map<String, String> map) {
@@ -53,63 +59,157 @@ public class CommandLine {
 		return this;
 	}
 
+	/**
+	 * @param text text which will be written to process stdin (after that stdin is closed);
+	 *             it is encoded using output charset when process is started
+	 */
+	public CommandLine input(String text) {
+		input = text;
+		return this;
+	}
+
 	public CommandLine outputCharset(@NotNull Charset charset) {
-		return new CommandLine(config.outputCharset(charset), commandAndArgs);
+		return withConfig(config.outputCharset(charset));
 	}
 
 	public CommandLine charsetAutoDetect(boolean value) {
-		return new CommandLine(config.charsetAutoDetect(value), commandAndArgs);
+		return withConfig(config.charsetAutoDetect(value));
+	}
+
+	/**
+	 * Opt-in option which is off by default (see {@link Config#Config(File, int, int, Charset, boolean, int, AsyncExecutor, boolean)}).
+	 * It's useful when a lot of commands are running at the same time and reader threads are limited,
+	 * at the cost of creating temporary file for each command.
+	 */
+	public CommandLine redirectStderrToFile(boolean value) {
+		return withConfig(config.redirectStderrToFile(value));
+	}
+
+	private CommandLine withConfig(Config newConfig) {
+		CommandLine commandLine = new CommandLine(newConfig, commandAndArgs);
+		commandLine.environment.putAll(environment);
+		commandLine.input = input;
+		return commandLine;
 	}
 
 	public CommandLine execute() throws Failure {
-		InputStream stdoutInputStream = null;
-		InputStream stderrInputStream = null;
-		Process process;
+		start(inputStream -> stdout = convertToString(readAsBytes(inputStream, config.stdoutBufferSize)));
+		return waitFor();
+	}
+
+	/**
+	 * Starts process without waiting for it to finish.
+	 * Process stdout is passed to {@code stdoutConsumer} on reader thread while process is still running,
+	 * so that the whole output doesn't have to be loaded into memory (and {@link #stdout()} stays empty).
+	 * <p>
+	 * {@link #waitFor()} must be called after this method to wait for process and release its resources.
+	 */
+	public CommandLine start(OutputConsumer stdoutConsumer) throws Failure {
 		try {
 
 			ProcessBuilder builder = new ProcessBuilder(commandAndArgs).directory(config.workingDir);
 			builder.environment().putAll(environment);
-			process = builder.start();
+			if (config.redirectStderrToFile) {
+				stderrFile = File.createTempFile("vcsreader-stderr-", ".txt");
+				builder.redirectError(stderrFile);
+			}
+			if (isKilled) throw new IllegalStateException("Command was killed before it started: " + describe());
+			Process process = builder.start();
 			processRef.set(process);
+			if (isKilled) destroyProcess();
 
-			stdoutInputStream = process.getInputStream();
-			stderrInputStream = process.getErrorStream();
-
-			Future<String> stdoutFuture = config.asyncExecutor.submit(
-					readStreamTask(stdoutInputStream, config.stdoutBufferSize),
+			stdoutFuture = config.asyncExecutor.submit(
+					consumeStreamTask(process.getInputStream(), stdoutConsumer),
 					"stdout reader: " + shortened(describe(), 30)
 			);
-			Future<String> stderrFuture = config.asyncExecutor.submit(
-					readStreamTask(stderrInputStream, config.stderrBufferSize),
-					"stderr reader: " + shortened(describe(), 30)
-			);
+			if (stderrFile == null) {
+				stderrFuture = config.asyncExecutor.submit(
+						readStreamTask(process.getErrorStream(), config.stderrBufferSize),
+						"stderr reader: " + shortened(describe(), 30)
+				);
+			}
+			if (input != null) {
+				writeInput(process.getOutputStream(), input.getBytes(config.outputCharset));
+			}
 
-			stdout = stdoutFuture.get();
-			stderr = stderrFuture.get();
+		} catch (Exception e) {
+			releaseProcess();
+			throw new Failure(e);
+		}
+		return this;
+	}
 
-			process.waitFor();
-			stdoutInputStream.close();
-			stderrInputStream.close();
+	/**
+	 * Same as {@link #start(OutputConsumer)} except that stdout is split into records by {@code recordSeparator}
+	 * and each record is decoded into string and passed to {@code recordConsumer} as soon as it is read.
+	 * Only the current record is kept in memory.
+	 */
+	public CommandLine start(byte[] recordSeparator, RecordConsumer recordConsumer) throws Failure {
+		RecordSplitter recordSplitter = new RecordSplitter(recordSeparator, config.stdoutBufferSize);
+		return start(inputStream -> {
+			try {
+				recordSplitter.split(inputStream, (bytes, size) -> recordConsumer.consume(convertToString(bytes, size)));
+			} finally {
+				recordConsumer.endOfRecords();
+			}
+		});
+	}
+
+	/**
+	 * Waits for process started by {@link #start(OutputConsumer)} to finish.
+	 */
+	public CommandLine waitFor() throws Failure {
+		Process process = processRef.get();
+		if (process == null) return this;
+		try {
+
+			stdoutFuture.get();
+			if (stderrFuture != null) {
+				stderr = stderrFuture.get();
+			}
 
+			process.waitFor();
 			process.destroy();
 			exitCode = process.exitValue();
 
+			if (stderrFile != null) {
+				stderr = convertToString(Files.readAllBytes(stderrFile.toPath()));
+			}
+
 		} catch (Exception e) {
 			throw new Failure(e);
 		} finally {
-			kill(); // Make sure process is stopped in case of exceptions in java code.
-			processRef.set(null);
-			close(stdoutInputStream);
-			close(stderrInputStream);
+			releaseProcess();
 		}
-
 		return this;
 	}
 
+	private void releaseProcess() {
+		Process process = processRef.get();
+		destroyProcess(); // Make sure process is stopped in case of exceptions in java code.
+		processRef.set(null);
+		if (process != null) {
+			close(process.getInputStream());
+			close(process.getErrorStream());
+		}
+		if (stderrFile != null) {
+			//noinspection ResultOfMethodCallIgnored
+			stderrFile.delete();
+			stderrFile = null;
+		}
+	}
+
 	/**
-	 * @return true is underlying process is dead (or there is no process), false if process is still running.
+	 * Kills process if it's running. If process is not started yet, it will not be started.
+	 *
+	 * @return true if underlying process is dead (or there is no process), false if process is still running.
 	 */
 	public boolean kill() {
+		isKilled = true;
+		return destroyProcess();
+	}
+
+	private boolean destroyProcess() {
 		Process process = processRef.get();
 		if (process != null) {
 			process.destroy();
@@ -151,6 +251,29 @@ public class CommandLine {
 		return describe();
 	}
 
+	private static void writeInput(OutputStream outputStream, byte[] input) {
+		try {
+			outputStream.write(input);
+			outputStream.close();
+		} catch (IOException ignored) {
+			// process might have finished without reading input, in this case it will be reported by exit code and stderr
+		}
+	}
+
+	private Callable<Void> consumeStreamTask(final InputStream inputStream, final OutputConsumer consumer) {
+		return () -> {
+			try {
+				consumer.consume(inputStream);
+				// Read the rest of the output so that process doesn't block on writing into full pipe.
+				skipAll(inputStream, config.stdoutBufferSize);
+			} catch (Exception e) {
+				kill();
+				throw e;
+			}
+			return null;
+		};
+	}
+
 	private Callable<String> readStreamTask(final InputStream stdoutInputStream, final int inputBufferSize) {
 		return () -> {
 			byte[] bytes = readAsBytes(stdoutInputStream, inputBufferSize);
@@ -158,12 +281,16 @@ public class CommandLine {
 		};
 	}
 
-	private String convertToString(byte[] bytes) throws IOException {
+	private String convertToString(byte[] bytes) {
+		return convertToString(bytes, bytes.length);
+	}
+
+	private String convertToString(byte[] bytes, int length) {
 		Charset charset = config.charsetAutoDetect ?
-				detectCharset(bytes, config.maxBufferForCharsetDetection) :
+				detectCharset(bytes, Math.min(length, config.maxBufferForCharsetDetection)) :
 				config.outputCharset;
 		if (charset == null) charset = config.outputCharset;
-		return new String(bytes, charset);
+		return new String(bytes, 0, length, charset);
 	}
 
 	private static byte[] readAsBytes(InputStream inputStream, int inputBufferSize) throws IOException {
@@ -177,7 +304,17 @@ public class CommandLine {
 		return byteArrayStream.toByteArray();
 	}
 
-	private static Charset detectCharset(byte[] bytes, int maxBufferForCharsetDetection) {
+	private static void skipAll(InputStream inputStream, int inputBufferSize) {
+		byte[] buffer = new byte[inputBufferSize];
+		try {
+			//noinspection StatementWithEmptyBody
+			while (inputStream.read(buffer, 0, buffer.length) != -1) {}
+		} catch (IOException ignored) {
+			// Ignore because stream might have been closed by consumer.
+		}
+	}
+
+	public static Charset detectCharset(byte[] bytes, int maxBufferForCharsetDetection) {
 		UniversalDetector detector = new UniversalDetector(null);
 		try {
 			detector.handleData(bytes, 0, Math.min(bytes.length, maxBufferForCharsetDetection));
@@ -215,6 +352,21 @@ public class CommandLine {
 	}
 
 
+	public interface OutputConsumer {
+		void consume(InputStream inputStream) throws Exception;
+	}
+
+
+	public interface RecordConsumer {
+		void consume(String record) throws Exception;
+
+		/**
+		 * Called after the last record (even if reading output failed).
+		 */
+		default void endOfRecords() {}
+	}
+
+
 	public interface AsyncExecutor {
 		<T> Future<T> submit(Callable<T> task, String taskName);
 	}
@@ -229,7 +381,8 @@ public class CommandLine {
 				defaultBufferSize,
 				defaultBufferSize,
 				Charset.defaultCharset(), false, defaultBufferSize,
-				newExecutor()
+				new ReaderThreadPool(Math.max(8, 4 * Runtime.getRuntime().availableProcessors())),
+				false
 		);
 
 		private final File workingDir;
@@ -239,9 +392,20 @@ public class CommandLine {
 		private final boolean charsetAutoDetect;
 		private final int maxBufferForCharsetDetection;
 		private final AsyncExecutor asyncExecutor;
+		private final boolean redirectStderrToFile;
 
 		public Config(File workingDir, int stdoutBufferSize, int stderrBufferSize, Charset outputCharset,
 		              boolean charsetAutoDetect, int maxBufferForCharsetDetection, AsyncExecutor asyncExecutor) {
+			this(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor, false);
+		}
+
+		/**
+		 * @param redirectStderrToFile if true, stderr is written into temporary file and read after process finished,
+		 *                             so that only one reader thread (for stdout) is used by command
+		 */
+		public Config(File workingDir, int stdoutBufferSize, int stderrBufferSize, Charset outputCharset,
+		              boolean charsetAutoDetect, int maxBufferForCharsetDetection, AsyncExecutor asyncExecutor,
+		              boolean redirectStderrToFile) {
 			this.workingDir = workingDir;
 			this.stdoutBufferSize = stdoutBufferSize;
 			this.stderrBufferSize = stderrBufferSize;
@@ -249,41 +413,31 @@ public class CommandLine {
 			this.charsetAutoDetect = charsetAutoDetect;
 			this.maxBufferForCharsetDetection = maxBufferForCharsetDetection;
 			this.asyncExecutor = asyncExecutor;
+			this.redirectStderrToFile = redirectStderrToFile;
 		}
 
 		public Config workingDir(File newWorkingDirectory) {
-			return new Config(newWorkingDirectory, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor);
+			return new Config(newWorkingDirectory, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor, redirectStderrToFile);
 		}
 
 		public Config charsetAutoDetect(boolean value) {
-			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, value, maxBufferForCharsetDetection, asyncExecutor);
+			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, value, maxBufferForCharsetDetection, asyncExecutor, redirectStderrToFile);
 		}
 
 		public Config outputCharset(Charset charset) {
-			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, charset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor);
+			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, charset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor, redirectStderrToFile);
 		}
 
 		public Config asyncExecutor(AsyncExecutor newAsyncExecutor) {
-			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, newAsyncExecutor);
+			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, newAsyncExecutor, redirectStderrToFile);
 		}
 
-		private static AsyncExecutor newExecutor() {
-			return new AsyncExecutor() {
-				@Override public <T> Future<T> submit(Callable<T> task, String taskName) {
-					FutureResult<T> futureResult = new FutureResult<>();
-					Runnable runnable = () -> {
-						try {
-							futureResult.set(task.call());
-						} catch (Exception e) {
-							futureResult.setException(e);
-						}
-					};
-					Thread thread = new Thread(null, runnable, taskName);
-					thread.setDaemon(true);
-					thread.start();
-					return futureResult;
-				}
-			};
+		public Config redirectStderrToFile(boolean value) {
+			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor, value);
+		}
+
+		public AsyncExecutor asyncExecutor() {
+			return asyncExecutor;
 		}
 	}
 }
@@ -47,6 +47,83 @@ public class DateTimeUtil {
 		throw new RuntimeException("Failed to parse string as dateTime: " + s);
 	}
 
+	/**
+	 * Parses ISO 8601 date time with offset, e.g. "2014-08-10T15:00:00.000000Z" as logged by svn.
+	 * UTC date times (with "Z" suffix) are parsed without allocations except for the result,
+	 * other formats are parsed with {@link DateTimeFormatter#ISO_OFFSET_DATE_TIME}.
+	 */
+	public static Instant parseIsoDateTime(CharSequence s) {
+		Instant result = parseUtcIsoDateTime(s);
+		return result != null ? result : DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(s, Instant::from);
+	}
+
+	/**
+	 * @return instant for "yyyy-MM-ddTHH:mm:ss[.fraction]Z" format or null if {@code s} has different format
+	 */
+	private static Instant parseUtcIsoDateTime(CharSequence s) {
+		int length = s.length();
+		if (length < 20 || s.charAt(length - 1) != 'Z') return null;
+		if (s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T' || s.charAt(13) != ':' || s.charAt(16) != ':') {
+			return null;
+		}
+		int year = digits(s, 0, 4);
+		int month = digits(s, 5, 7);
+		int day = digits(s, 8, 10);
+		int hour = digits(s, 11, 13);
+		int minute = digits(s, 14, 16);
+		int second = digits(s, 17, 19);
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) ||
+				hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+			return null;
+		}
+
+		int nanos = 0;
+		if (length > 20) {
+			int fractionLength = length - 21;
+			if (s.charAt(19) != '.' || fractionLength < 1 || fractionLength > 9) return null;
+			nanos = digits(s, 20, length - 1);
+			if (nanos < 0) return null;
+			for (int i = fractionLength; i < 9; i++) nanos *= 10;
+		}
+
+		long epochSeconds = epochDay(year, month, day) * 86400 + hour * 3600 + minute * 60 + second;
+		return Instant.ofEpochSecond(epochSeconds, nanos);
+	}
+
+	/**
+	 * @return non-negative number or -1 if there is non-digit character
+	 */
+	private static int digits(CharSequence s, int from, int to) {
+		int result = 0;
+		for (int i = from; i < to; i++) {
+			int digit = s.charAt(i) - '0';
+			if (digit < 0 || digit > 9) return -1;
+			result = result * 10 + digit;
+		}
+		return result;
+	}
+
+	private static int lengthOfMonth(int year, int month) {
+		if (month == 2) {
+			boolean isLeapYear = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+			return isLeapYear ? 29 : 28;
+		}
+		return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+	}
+
+	/**
+	 * Same as {@link java.time.LocalDate#toEpochDay()} for proleptic Gregorian calendar
+	 * (see http://howardhinnant.github.io/date_algorithms.html#days_from_civil).
+	 */
+	private static long epochDay(int year, int month, int day) {
+		int y = month <= 2 ? year - 1 : year;
+		int era = (y >= 0 ? y : y - 399) / 400;
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
 	public static DateTimeFormatter dateTimeFormatter(String pattern, ZoneId zoneId) {
 		return new DateTimeFormatterBuilder().appendPattern(pattern).parseLenient().toFormatter().withZone(zoneId);
 	}
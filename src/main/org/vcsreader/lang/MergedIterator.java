@@ -0,0 +1,82 @@
+package org.vcsreader.lang;
+
+import java.util.*;
+
+/**
+ * Lazily merges iterators which are sorted according to {@code comparator} (k-way merge).
+ * Elements which are equal according to comparator are returned in the order of iterators in the list,
+ * i.e. the result is the same as stable sort of concatenated elements.
+ * <p>
+ * Iterators are not read until {@link #hasNext()} or {@link #next()} is called.
+ */
+public class MergedIterator<T> implements Iterator<T> {
+	private final List<? extends Iterator<? extends T>> iterators;
+	private final Comparator<? super T> comparator;
+	private PriorityQueue<Head<T>> heads;
+
+
+	public MergedIterator(List<? extends Iterator<? extends T>> iterators, Comparator<? super T> comparator) {
+		this.iterators = iterators;
+		this.comparator = comparator;
+	}
+
+	/**
+	 * @param lists lists sorted according to {@code comparator}
+	 * @return new list with all elements from {@code lists} sorted according to {@code comparator}
+	 */
+	public static <T> List<T> mergeSorted(List<? extends List<? extends T>> lists, Comparator<? super T> comparator) {
+		int size = 0;
+		List<Iterator<? extends T>> iterators = new ArrayList<>(lists.size());
+		for (List<? extends T> list : lists) {
+			size += list.size();
+			iterators.add(list.iterator());
+		}
+		List<T> result = new ArrayList<>(size);
+		MergedIterator<T> mergedIterator = new MergedIterator<>(iterators, comparator);
+		while (mergedIterator.hasNext()) {
+			result.add(mergedIterator.next());
+		}
+		return result;
+	}
+
+	@Override public boolean hasNext() {
+		if (heads == null) {
+			heads = new PriorityQueue<>(Math.max(1, iterators.size()), (head1, head2) -> {
+				int result = comparator.compare(head1.value, head2.value);
+				return result != 0 ? result : Integer.compare(head1.index, head2.index);
+			});
+			for (int i = 0; i < iterators.size(); i++) {
+				Iterator<? extends T> iterator = iterators.get(i);
+				if (iterator.hasNext()) {
+					heads.add(new Head<>(iterator.next(), i, iterator));
+				}
+			}
+		}
+		return !heads.isEmpty();
+	}
+
+	@Override public T next() {
+		if (!hasNext()) throw new NoSuchElementException();
+
+		Head<T> head = heads.poll();
+		T result = head.value;
+		if (head.iterator.hasNext()) {
+			head.value = head.iterator.next();
+			heads.add(head);
+		}
+		return result;
+	}
+
+
+	private static class Head<T> {
+		private T value;
+		private final int index;
+		private final Iterator<? extends T> iterator;
+
+		private Head(T value, int index, Iterator<? extends T> iterator) {
+			this.value = value;
+			this.index = index;
+			this.iterator = iterator;
+		}
+	}
+}
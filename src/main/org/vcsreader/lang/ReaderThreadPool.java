@@ -0,0 +1,104 @@
+package org.vcsreader.lang;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Executor for {@link CommandLine} output readers which reuses up to {@code maxThreads} daemon threads.
+ * <p>
+ * Reader tasks cannot wait in a queue because command might be blocked by full stdout/stderr pipe
+ * until its other reader is started (or command might be started from another reader thread),
+ * so when all pooled threads are busy the task is run on a new (not pooled) daemon thread.
+ * The number of such tasks is reported by {@link #overflowReaders()}.
+ */
+public class ReaderThreadPool implements CommandLine.AsyncExecutor {
+	private static final long keepAliveSeconds = 60;
+
+	private final ThreadPoolExecutor executor;
+	private final AtomicInteger activeReaders = new AtomicInteger();
+	private final AtomicInteger overflowReaders = new AtomicInteger();
+	private final AtomicLong completedReaders = new AtomicLong();
+
+
+	public ReaderThreadPool(int maxThreads) {
+		this.executor = new ThreadPoolExecutor(
+				maxThreads, maxThreads,
+				keepAliveSeconds, SECONDS,
+				new SynchronousQueue<>(),
+				runnable -> newDaemonThread(runnable, "vcsreader output reader"),
+				(runnable, executor) -> {
+					overflowReaders.incrementAndGet();
+					newDaemonThread(() -> {
+						try {
+							runnable.run();
+						} finally {
+							overflowReaders.decrementAndGet();
+						}
+					}, "vcsreader output reader (overflow)").start();
+				}
+		);
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	@Override public <T> Future<T> submit(Callable<T> task, String taskName) {
+		return executor.submit(() -> {
+			Thread thread = Thread.currentThread();
+			String threadName = thread.getName();
+			thread.setName(taskName);
+			activeReaders.incrementAndGet();
+			try {
+				return task.call();
+			} finally {
+				activeReaders.decrementAndGet();
+				completedReaders.incrementAndGet();
+				thread.setName(threadName);
+			}
+		});
+	}
+
+	/**
+	 * @return number of output readers which are currently running (including overflow readers)
+	 */
+	public int activeReaders() {
+		return activeReaders.get();
+	}
+
+	/**
+	 * @return number of output readers which are currently running on not pooled threads
+	 * because all pooled threads were busy
+	 */
+	public int overflowReaders() {
+		return overflowReaders.get();
+	}
+
+	/**
+	 * @return number of threads currently in the pool
+	 */
+	public int pooledThreads() {
+		return executor.getPoolSize();
+	}
+
+	public long completedReaders() {
+		return completedReaders.get();
+	}
+
+	@NotNull private static Thread newDaemonThread(Runnable runnable, String name) {
+		Thread thread = new Thread(null, runnable, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	@Override public String toString() {
+		return "ReaderThreadPool{" +
+				"activeReaders=" + activeReaders() +
+				", overflowReaders=" + overflowReaders() +
+				", pooledThreads=" + pooledThreads() +
+				", completedReaders=" + completedReaders() +
+				'}';
+	}
+}
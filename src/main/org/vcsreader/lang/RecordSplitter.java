@@ -0,0 +1,73 @@
+package org.vcsreader.lang;
+
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits input stream into records by separator bytes.
+ * Each record is passed to consumer as soon as its end is read from the stream,
+ * so that only one record has to be kept in memory.
+ * Empty records are skipped (similar to {@link StringUtil#split(String, String)}).
+ */
+class RecordSplitter {
+	private final byte[] separator;
+	private final int inputBufferSize;
+	private byte[] record;
+	private int recordSize;
+
+
+	RecordSplitter(byte[] separator, int inputBufferSize) {
+		if (separator.length == 0) throw new IllegalArgumentException("Record separator cannot be empty");
+		this.separator = separator;
+		this.inputBufferSize = inputBufferSize;
+		this.record = new byte[inputBufferSize];
+	}
+
+	void split(InputStream inputStream, Consumer consumer) throws Exception {
+		byte lastSeparatorByte = separator[separator.length - 1];
+		byte[] buffer = new byte[inputBufferSize];
+		int n;
+		while ((n = inputStream.read(buffer, 0, buffer.length)) != -1) {
+			for (int i = 0; i < n; i++) {
+				byte b = buffer[i];
+				append(b);
+				if (b == lastSeparatorByte && endsWithSeparator()) {
+					emit(recordSize - separator.length, consumer);
+				}
+			}
+		}
+		emit(recordSize, consumer);
+	}
+
+	private void append(byte b) {
+		if (recordSize == record.length) {
+			record = Arrays.copyOf(record, record.length * 2);
+		}
+		record[recordSize++] = b;
+	}
+
+	private boolean endsWithSeparator() {
+		if (recordSize < separator.length) return false;
+		int offset = recordSize - separator.length;
+		for (int i = 0; i < separator.length; i++) {
+			if (record[offset + i] != separator[i]) return false;
+		}
+		return true;
+	}
+
+	private void emit(int size, Consumer consumer) throws Exception {
+		if (size > 0) {
+			consumer.consume(record, size);
+		}
+		recordSize = 0;
+	}
+
+
+	interface Consumer {
+		/**
+		 * @param bytes array with record bytes (it is reused for the next record)
+		 * @param size  length of the record
+		 */
+		void consume(byte[] bytes, int size) throws Exception;
+	}
+}
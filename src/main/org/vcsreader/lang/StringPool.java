@@ -0,0 +1,86 @@
+package org.vcsreader.lang;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Dictionary of strings which makes equal values share single instance,
+ * e.g. file paths, authors and revisions repeated across commits of the same log.
+ * Unlike {@link String#intern()} strings are only retained while the pool is reachable,
+ * so the pool is meant to be created per log command or log stream.
+ * <p>
+ * Values can be looked up by region of a larger string so that substring is only allocated
+ * the first time the value is seen.
+ * <p>
+ * Not thread-safe.
+ */
+public class StringPool {
+	private String[] table = new String[256];
+	private int size;
+
+
+	@Nullable public String intern(@Nullable String s) {
+		return s == null ? null : intern(s, 0, s.length());
+	}
+
+	/**
+	 * @return string equal to {@code s.subSequence(from, to)}
+	 */
+	public String intern(CharSequence s, int from, int to) {
+		int hash = hash(s, from, to);
+		int mask = table.length - 1;
+		int i = spread(hash) & mask;
+		String candidate = table[i];
+		while (candidate != null) {
+			if (candidate.hashCode() == hash && regionEquals(candidate, s, from, to)) {
+				return candidate;
+			}
+			i = (i + 1) & mask;
+			candidate = table[i];
+		}
+
+		String result = (from == 0 && to == s.length() && s instanceof String) ? (String) s : s.subSequence(from, to).toString();
+		table[i] = result;
+		size++;
+		if (size * 2 > table.length) resize();
+		return result;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private void resize() {
+		String[] oldTable = table;
+		table = new String[oldTable.length * 2];
+		int mask = table.length - 1;
+		for (String s : oldTable) {
+			if (s == null) continue;
+			int i = spread(s.hashCode()) & mask;
+			while (table[i] != null) i = (i + 1) & mask;
+			table[i] = s;
+		}
+	}
+
+	/**
+	 * Same as {@link String#hashCode()} so that hash of existing strings is not recalculated.
+	 */
+	private static int hash(CharSequence s, int from, int to) {
+		int hash = 0;
+		for (int i = from; i < to; i++) {
+			hash = 31 * hash + s.charAt(i);
+		}
+		return hash;
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean regionEquals(String candidate, CharSequence s, int from, int to) {
+		if (candidate.length() != to - from) return false;
+		for (int i = 0; i < candidate.length(); i++) {
+			if (candidate.charAt(i) != s.charAt(from + i)) return false;
+		}
+		return true;
+	}
+}
@@ -4,8 +4,12 @@ import org.jetbrains.annotations.NotNull;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
 
 public class TimeRange {
 	public static final TimeRange all = new TimeRange(Instant.MIN, Instant.MAX);
@@ -54,6 +58,37 @@ public class TimeRange {
 		return to;
 	}
 
+	/**
+	 * Splits time range into consecutive ranges of the same length (with one second resolution)
+	 * which together cover exactly this range.
+	 * Because unbounded range can't be split evenly, its part before 1970 and after current time is included
+	 * into the first and the last slice respectively.
+	 *
+	 * @return at most {@code sliceCount} ranges ordered by time
+	 */
+	public List<TimeRange> split(int sliceCount) {
+		if (sliceCount < 1) throw new IllegalArgumentException("Slice count must be positive: " + sliceCount);
+
+		Instant now = Clock.systemUTC().instant();
+		long fromSecond = from == Instant.MIN ? Math.min(0, now.getEpochSecond()) : from.getEpochSecond();
+		long toSecond = to == Instant.MAX ? Math.max(now.getEpochSecond(), fromSecond) + 1 : to.getEpochSecond();
+		long seconds = toSecond - fromSecond;
+		if (sliceCount == 1 || seconds <= 1) return singletonList(this);
+
+		long sliceSeconds = (seconds + sliceCount - 1) / sliceCount;
+		List<TimeRange> result = new ArrayList<>(sliceCount);
+		Instant sliceFrom = from;
+		for (long second = fromSecond + sliceSeconds; second < toSecond; second += sliceSeconds) {
+			Instant sliceTo = Instant.ofEpochSecond(second);
+			if (sliceFrom.isBefore(sliceTo)) {
+				result.add(new TimeRange(sliceFrom, sliceTo));
+				sliceFrom = sliceTo;
+			}
+		}
+		result.add(new TimeRange(sliceFrom, to));
+		return result;
+	}
+
 	@Override public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
@@ -1,14 +1,16 @@
 package org.vcsreader.vcs;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.vcsreader.LogFileContentResult;
 import org.vcsreader.VcsChange;
 import org.vcsreader.VcsRoot;
 
-import java.util.concurrent.atomic.AtomicReference;
-
 /**
  * This class is effectively immutable (even though some fields are modifiable).
+ * <p>
+ * {@link VcsRoot} is not stored in each change but is looked up from the {@link Commit} which contains the change,
+ * so that setting root for all changes in the log only needs to update commits.
  */
 public class Change implements VcsChange, VcsChange.WithRootReference {
 	@NotNull private final Type type;
@@ -17,12 +19,13 @@ public class Change implements VcsChange, VcsChange.WithRootReference {
 	private final String revision;
 	private final String revisionBefore;
 
-	private final AtomicReference<VcsRoot> vcsRoot = new AtomicReference<>();
+	@Nullable private volatile Commit commit;
+	@Nullable private volatile VcsRoot vcsRoot;
 
 
 	public Change(Change change) {
 		this(change.getType(), change.getFilePath(), change.getFilePathBefore(), change.getRevision(), change.getRevisionBefore());
-		setVcsRoot(change.vcsRoot.get());
+		setVcsRoot(change.vcsRoot());
 	}
 
 	public Change(@NotNull Type type, @NotNull String filePath, @NotNull String revision) {
@@ -60,13 +63,13 @@ public class Change implements VcsChange, VcsChange.WithRootReference {
 
 	@NotNull @Override public FileContent fileContent() {
 		if (filePath.equals(noFilePath)) return FileContent.none;
-		LogFileContentResult logFileContentResult = vcsRoot.get().logFileContent(filePath, revision);
+		LogFileContentResult logFileContentResult = vcsRoot().logFileContent(filePath, revision);
 		return logFileContentResult.isSuccessful() ? new FileContent(logFileContentResult.text()) : FileContent.failedToLoad;
 	}
 
 	@NotNull @Override public FileContent fileContentBefore() {
 		if (filePathBefore.equals(noFilePath)) return FileContent.none;
-		LogFileContentResult logFileContentResult = vcsRoot.get().logFileContent(filePathBefore, revisionBefore);
+		LogFileContentResult logFileContentResult = vcsRoot().logFileContent(filePathBefore, revisionBefore);
 		return logFileContentResult.isSuccessful() ? new FileContent(logFileContentResult.text()) : FileContent.failedToLoad;
 	}
 
@@ -74,8 +77,22 @@ public class Change implements VcsChange, VcsChange.WithRootReference {
 		return new Change(type, filePath, filePathBefore, revision, revisionBefore);
 	}
 
+	/**
+	 * Sets root for this change only, this is not necessary if the change belongs to a commit with root.
+	 */
 	@Override public void setVcsRoot(VcsRoot vcsRoot) {
-		this.vcsRoot.set(vcsRoot);
+		this.vcsRoot = vcsRoot;
+	}
+
+	void setCommit(Commit commit) {
+		this.commit = commit;
+	}
+
+	@Nullable VcsRoot vcsRoot() {
+		VcsRoot vcsRoot = this.vcsRoot;
+		if (vcsRoot != null) return vcsRoot;
+		Commit commit = this.commit;
+		return commit == null ? null : commit.vcsRoot();
 	}
 
 	@Override public String toString() {
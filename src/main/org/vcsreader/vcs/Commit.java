@@ -1,17 +1,23 @@
 package org.vcsreader.vcs;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.vcsreader.VcsChange;
 import org.vcsreader.VcsCommit;
 import org.vcsreader.VcsRoot;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Objects;
 
 import static java.util.Collections.unmodifiableList;
 
 /**
  * This class is effectively immutable (even though some fields are modifiable).
+ * <p>
+ * Changes can be loaded on first access (see {@link LazyChanges}).
+ * To avoid running VCS commands, {@link #equals(Object)} and {@link #hashCode()} don't load changes,
+ * i.e. commits with lazy changes are compared by revision and metadata only.
  */
 public class Commit implements VcsCommit, VcsCommit.WithRootReference {
 	@NotNull private final String revision;
@@ -19,29 +25,77 @@ public class Commit implements VcsCommit, VcsCommit.WithRootReference {
 	@NotNull private final Instant time;
 	@NotNull private final String author;
 	@NotNull private final String message;
-	@NotNull private final List<? extends VcsChange> changes;
+	@Nullable private volatile List<? extends VcsChange> changes;
+	@Nullable private final LazyChanges lazyChanges;
+	private volatile boolean hasChangesWithOwnRoot;
+	@Nullable private volatile VcsRoot vcsRoot;
 
 
 	public Commit(@NotNull String revision, @NotNull String revisionBefore, @NotNull Instant time,
 	              @NotNull String author, @NotNull String message, @NotNull List<? extends VcsChange> changes) {
+		this(revision, revisionBefore, time, author, message, (LazyChanges) null);
+		setChanges(changes);
+	}
+
+	Commit(@NotNull String revision, @NotNull String revisionBefore, @NotNull Instant time,
+	       @NotNull String author, @NotNull String message, @Nullable LazyChanges lazyChanges) {
 		this.revision = revision;
 		this.revisionBefore = revisionBefore;
 		this.time = time;
 		this.author = author;
 		this.message = message;
+		this.lazyChanges = lazyChanges;
+	}
+
+	void setChanges(List<? extends VcsChange> changes) {
+		boolean hasChangesWithOwnRoot = false;
+		for (VcsChange change : changes) {
+			if (change instanceof Change) {
+				((Change) change).setCommit(this);
+			} else if (change instanceof VcsChange.WithRootReference) {
+				hasChangesWithOwnRoot = true;
+			}
+		}
+		this.hasChangesWithOwnRoot = hasChangesWithOwnRoot;
+		VcsRoot vcsRoot = this.vcsRoot;
+		if (hasChangesWithOwnRoot && vcsRoot != null) setVcsRoot(changes, vcsRoot);
 		this.changes = unmodifiableList(changes);
 	}
 
+	boolean hasChanges() {
+		return changes != null;
+	}
+
+	/**
+	 * Changes of type {@link Change} use root of the commit, so only other implementations of
+	 * {@link VcsChange.WithRootReference} need to be updated.
+	 */
 	@Override public void setVcsRoot(VcsRoot vcsRoot) {
+		this.vcsRoot = vcsRoot;
+		List<? extends VcsChange> changes = this.changes;
+		if (hasChangesWithOwnRoot && changes != null) setVcsRoot(changes, vcsRoot);
+	}
+
+	private static void setVcsRoot(List<? extends VcsChange> changes, VcsRoot vcsRoot) {
 		for (VcsChange change : changes) {
-			if (change instanceof VcsChange.WithRootReference) {
+			if (!(change instanceof Change) && change instanceof VcsChange.WithRootReference) {
 				((VcsChange.WithRootReference) change).setVcsRoot(vcsRoot);
 			}
 		}
 	}
 
+	@Nullable VcsRoot vcsRoot() {
+		return vcsRoot;
+	}
+
+	/**
+	 * Note that changes of type {@link Change} will use root of the new commit.
+	 */
 	@Override public Commit withChanges(List<? extends VcsChange> newChanges) {
-		return new Commit(revision, revisionBefore, time, author, message, newChanges);
+		Commit commit = new Commit(revision, revisionBefore, time, author, message, newChanges);
+		VcsRoot vcsRoot = this.vcsRoot;
+		if (vcsRoot != null) commit.setVcsRoot(vcsRoot);
+		return commit;
 	}
 
 	@Override @NotNull public String getRevision() {
@@ -64,7 +118,15 @@ public class Commit implements VcsCommit, VcsCommit.WithRootReference {
 		return message;
 	}
 
+	/**
+	 * @throws RuntimeException (e.g. {@link VcsError}) if changes are loaded lazily and VCS command failed
+	 */
 	@Override @NotNull public List<? extends VcsChange> getChanges() {
+		List<? extends VcsChange> changes = this.changes;
+		if (changes == null && lazyChanges != null) {
+			lazyChanges.load(this);
+			changes = this.changes;
+		}
 		return changes;
 	}
 
@@ -75,7 +137,7 @@ public class Commit implements VcsCommit, VcsCommit.WithRootReference {
 				time + ',' +
 				author + ',' +
 				message + ',' +
-				changes +
+				(hasChanges() ? getChanges() : "[...]") +
 				')';
 	}
 
@@ -87,7 +149,7 @@ public class Commit implements VcsCommit, VcsCommit.WithRootReference {
 		Commit commit = (Commit) o;
 
 		if (!author.equals(commit.author)) return false;
-		if (!changes.equals(commit.changes)) return false;
+		if (lazyChanges == null && commit.lazyChanges == null && !Objects.equals(changes, commit.changes)) return false;
 		if (!message.equals(commit.message)) return false;
 		if (!time.equals(commit.time)) return false;
 		if (!revision.equals(commit.revision)) return false;
@@ -103,7 +165,6 @@ public class Commit implements VcsCommit, VcsCommit.WithRootReference {
 		result = 31 * result + (time.hashCode());
 		result = 31 * result + (author.hashCode());
 		result = 31 * result + (message.hashCode());
-		result = 31 * result + (changes.hashCode());
 		return result;
 	}
 }
@@ -0,0 +1,380 @@
+package org.vcsreader.vcs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogFileContentResult;
+import org.vcsreader.VcsChange;
+import org.vcsreader.VcsCommit;
+import org.vcsreader.VcsRoot;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Read-only list of commits stored in columns of primitive arrays
+ * (e.g. date of all commits in one {@code long[]}, authors and file paths as ids in {@code int[]} referring to dictionary of unique values).
+ * Strings are concatenated into text chunks (each chunk has up to {@link #stringsPerChunk} strings)
+ * so there is no per-string object overhead. Because offsets within chunk are {@code int},
+ * the store cannot have more than {@link Integer#MAX_VALUE} chars in one chunk,
+ * i.e. it works as long as average length of strings is below 32K chars.
+ * This is intended for keeping long histories in memory and uses several times less heap than list of {@link Commit} objects.
+ * <p>
+ * Commits and changes returned by the list are flyweight views which are created on each access
+ * (and so are strings returned by them).
+ * To avoid having all commits in memory before they are compacted, the store can be built from {@link org.vcsreader.LogStream}.
+ */
+public class CommitStore extends AbstractList<VcsCommit> implements RandomAccess {
+	private static final VcsChange.Type[] changeTypes = VcsChange.Type.values();
+	static final int stringsPerChunk = 1 << 16;
+
+	private final String[] textChunks;
+	private final int[] stringEnds;
+	private final VcsRoot[] vcsRoots;
+
+	private final int commitCount;
+	private final int[] revisions;
+	private final int[] revisionsBefore;
+	private final long[] epochSeconds;
+	private final int[] nanos;
+	private final int[] authors;
+	private final int[] messages;
+	private final int[] commitVcsRoots;
+	private final int[] changeOffsets;
+
+	private final byte[] types;
+	private final int[] filePaths;
+	private final int[] filePathsBefore;
+	private final int[] changeRevisions;
+	private final int[] changeRevisionsBefore;
+
+
+	private CommitStore(Builder builder) {
+		List<String> chunks = new ArrayList<>(builder.textChunks);
+		chunks.add(builder.text.toString());
+		textChunks = chunks.toArray(new String[0]);
+		stringEnds = Arrays.copyOf(builder.stringEnds, builder.stringCount);
+		vcsRoots = builder.vcsRoots.toArray(new VcsRoot[0]);
+
+		commitCount = builder.commitCount;
+		revisions = Arrays.copyOf(builder.revisions, commitCount);
+		revisionsBefore = Arrays.copyOf(builder.revisionsBefore, commitCount);
+		epochSeconds = Arrays.copyOf(builder.epochSeconds, commitCount);
+		nanos = Arrays.copyOf(builder.nanos, commitCount);
+		authors = Arrays.copyOf(builder.authors, commitCount);
+		messages = Arrays.copyOf(builder.messages, commitCount);
+		commitVcsRoots = Arrays.copyOf(builder.commitVcsRoots, commitCount);
+		changeOffsets = Arrays.copyOf(builder.changeOffsets, commitCount + 1);
+
+		int changeCount = builder.changeCount;
+		types = Arrays.copyOf(builder.types, changeCount);
+		filePaths = Arrays.copyOf(builder.filePaths, changeCount);
+		filePathsBefore = Arrays.copyOf(builder.filePathsBefore, changeCount);
+		changeRevisions = Arrays.copyOf(builder.changeRevisions, changeCount);
+		changeRevisionsBefore = Arrays.copyOf(builder.changeRevisionsBefore, changeCount);
+	}
+
+	/**
+	 * @param commits commits to store, e.g. {@link org.vcsreader.LogStream} or iterator of {@link org.vcsreader.LogResult#commits()}
+	 */
+	public static CommitStore of(Iterator<? extends VcsCommit> commits) {
+		Builder builder = new Builder();
+		while (commits.hasNext()) {
+			builder.add(commits.next());
+		}
+		return builder.build();
+	}
+
+	public static CommitStore of(List<? extends VcsCommit> commits) {
+		return of(commits.iterator());
+	}
+
+	@Override public VcsCommit get(int index) {
+		if (index < 0 || index >= commitCount) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + commitCount);
+		return new CommitView(index);
+	}
+
+	@Override public int size() {
+		return commitCount;
+	}
+
+	public int changeCount() {
+		return types.length;
+	}
+
+	private String string(int id) {
+		int start = id % stringsPerChunk == 0 ? 0 : stringEnds[id - 1];
+		return textChunks[id / stringsPerChunk].substring(start, stringEnds[id]);
+	}
+
+
+	private class CommitView implements VcsCommit {
+		private final int index;
+
+		private CommitView(int index) {
+			this.index = index;
+		}
+
+		@NotNull @Override public String getRevision() {
+			return string(revisions[index]);
+		}
+
+		@NotNull @Override public String getRevisionBefore() {
+			return string(revisionsBefore[index]);
+		}
+
+		@NotNull @Override public Instant getDateTime() {
+			return Instant.ofEpochSecond(epochSeconds[index], nanos[index]);
+		}
+
+		@NotNull @Override public String getAuthor() {
+			return string(authors[index]);
+		}
+
+		@NotNull @Override public String getMessage() {
+			return string(messages[index]);
+		}
+
+		@NotNull @Override public List<? extends VcsChange> getChanges() {
+			int from = changeOffsets[index];
+			int to = changeOffsets[index + 1];
+			VcsRoot vcsRoot = commitVcsRoots[index] == -1 ? null : vcsRoots[commitVcsRoots[index]];
+			return new AbstractList<VcsChange>() {
+				@Override public VcsChange get(int i) {
+					if (i < 0 || from + i >= to) throw new IndexOutOfBoundsException("Index: " + i + ", size: " + (to - from));
+					return new ChangeView(from + i, vcsRoot);
+				}
+
+				@Override public int size() {
+					return to - from;
+				}
+			};
+		}
+
+		@Override public VcsCommit withChanges(List<? extends VcsChange> newChanges) {
+			return new Commit(getRevision(), getRevisionBefore(), getDateTime(), getAuthor(), getMessage(), newChanges);
+		}
+
+		@Override public String toString() {
+			return "Commit(" +
+					getRevision() + ',' +
+					getRevisionBefore() + ',' +
+					getDateTime() + ',' +
+					getAuthor() + ',' +
+					getMessage() + ',' +
+					getChanges() +
+					')';
+		}
+
+		@Override public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			CommitView that = (CommitView) o;
+			return getRevision().equals(that.getRevision()) &&
+					getRevisionBefore().equals(that.getRevisionBefore()) &&
+					getDateTime().equals(that.getDateTime()) &&
+					getAuthor().equals(that.getAuthor()) &&
+					getMessage().equals(that.getMessage()) &&
+					getChanges().equals(that.getChanges());
+		}
+
+		@Override public int hashCode() {
+			int result = getRevision().hashCode();
+			result = 31 * result + getRevisionBefore().hashCode();
+			result = 31 * result + getDateTime().hashCode();
+			result = 31 * result + getAuthor().hashCode();
+			result = 31 * result + getMessage().hashCode();
+			result = 31 * result + getChanges().hashCode();
+			return result;
+		}
+	}
+
+
+	private class ChangeView implements VcsChange {
+		private final int index;
+		@Nullable private final VcsRoot vcsRoot;
+
+		private ChangeView(int index, @Nullable VcsRoot vcsRoot) {
+			this.index = index;
+			this.vcsRoot = vcsRoot;
+		}
+
+		@NotNull @Override public Type getType() {
+			return changeTypes[types[index]];
+		}
+
+		@NotNull @Override public String getFilePath() {
+			return string(filePaths[index]);
+		}
+
+		@NotNull @Override public String getFilePathBefore() {
+			return string(filePathsBefore[index]);
+		}
+
+		@Override public String getRevision() {
+			return string(changeRevisions[index]);
+		}
+
+		@Override public String getRevisionBefore() {
+			return string(changeRevisionsBefore[index]);
+		}
+
+		@NotNull @Override public FileContent fileContent() {
+			return fileContent(getFilePath(), getRevision());
+		}
+
+		@NotNull @Override public FileContent fileContentBefore() {
+			return fileContent(getFilePathBefore(), getRevisionBefore());
+		}
+
+		private FileContent fileContent(String filePath, String revision) {
+			if (filePath.equals(noFilePath)) return FileContent.none;
+			if (vcsRoot == null) return FileContent.failedToLoad;
+			LogFileContentResult logFileContentResult = vcsRoot.logFileContent(filePath, revision);
+			return logFileContentResult.isSuccessful() ? new FileContent(logFileContentResult.text()) : FileContent.failedToLoad;
+		}
+
+		@Override public String toString() {
+			return "Change(" + getType() + ',' + getFilePath() + ',' + getFilePathBefore() + ',' + getRevision() + ',' + getRevisionBefore() + ')';
+		}
+
+		@Override public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			ChangeView that = (ChangeView) o;
+			return getType() == that.getType() &&
+					getFilePath().equals(that.getFilePath()) &&
+					getFilePathBefore().equals(that.getFilePathBefore()) &&
+					getRevision().equals(that.getRevision()) &&
+					getRevisionBefore().equals(that.getRevisionBefore());
+		}
+
+		@Override public int hashCode() {
+			int result = getType().hashCode();
+			result = 31 * result + getFilePath().hashCode();
+			result = 31 * result + getFilePathBefore().hashCode();
+			result = 31 * result + getRevision().hashCode();
+			result = 31 * result + getRevisionBefore().hashCode();
+			return result;
+		}
+	}
+
+
+	/**
+	 * Appends commits to growing columns. Revisions, authors and file paths are replaced with ids in the dictionary of unique strings.
+	 * Not thread-safe.
+	 */
+	public static class Builder {
+		private final List<String> textChunks = new ArrayList<>();
+		private final StringBuilder text = new StringBuilder();
+		private int[] stringEnds = new int[16];
+		private int stringCount;
+		private final Map<String, Integer> stringIds = new HashMap<>();
+		private final List<VcsRoot> vcsRoots = new ArrayList<>();
+
+		private int commitCount;
+		private int[] revisions = new int[16];
+		private int[] revisionsBefore = new int[16];
+		private long[] epochSeconds = new long[16];
+		private int[] nanos = new int[16];
+		private int[] authors = new int[16];
+		private int[] messages = new int[16];
+		private int[] commitVcsRoots = new int[16];
+		private int[] changeOffsets = new int[17];
+
+		private int changeCount;
+		private byte[] types = new byte[16];
+		private int[] filePaths = new int[16];
+		private int[] filePathsBefore = new int[16];
+		private int[] changeRevisions = new int[16];
+		private int[] changeRevisionsBefore = new int[16];
+
+
+		public Builder add(VcsCommit commit) {
+			if (commitCount == revisions.length) {
+				int capacity = commitCount * 2;
+				revisions = Arrays.copyOf(revisions, capacity);
+				revisionsBefore = Arrays.copyOf(revisionsBefore, capacity);
+				epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+				nanos = Arrays.copyOf(nanos, capacity);
+				authors = Arrays.copyOf(authors, capacity);
+				messages = Arrays.copyOf(messages, capacity);
+				commitVcsRoots = Arrays.copyOf(commitVcsRoots, capacity);
+				changeOffsets = Arrays.copyOf(changeOffsets, capacity + 1);
+			}
+			revisions[commitCount] = idOf(commit.getRevision());
+			revisionsBefore[commitCount] = idOf(commit.getRevisionBefore());
+			epochSeconds[commitCount] = commit.getDateTime().getEpochSecond();
+			nanos[commitCount] = commit.getDateTime().getNano();
+			authors[commitCount] = idOf(commit.getAuthor());
+			messages[commitCount] = addString(commit.getMessage()); // messages are almost always unique, so they are not in the dictionary
+			commitVcsRoots[commitCount] = -1;
+
+			for (VcsChange change : commit.getChanges()) {
+				addChange(change);
+				if (commitVcsRoots[commitCount] == -1 && change instanceof Change) {
+					commitVcsRoots[commitCount] = vcsRootIdOf(((Change) change).vcsRoot());
+				}
+			}
+			commitCount++;
+			changeOffsets[commitCount] = changeCount;
+			return this;
+		}
+
+		private void addChange(VcsChange change) {
+			if (changeCount == types.length) {
+				int capacity = changeCount * 2;
+				types = Arrays.copyOf(types, capacity);
+				filePaths = Arrays.copyOf(filePaths, capacity);
+				filePathsBefore = Arrays.copyOf(filePathsBefore, capacity);
+				changeRevisions = Arrays.copyOf(changeRevisions, capacity);
+				changeRevisionsBefore = Arrays.copyOf(changeRevisionsBefore, capacity);
+			}
+			types[changeCount] = (byte) change.getType().ordinal();
+			filePaths[changeCount] = idOf(change.getFilePath());
+			filePathsBefore[changeCount] = idOf(change.getFilePathBefore());
+			changeRevisions[changeCount] = idOf(change.getRevision());
+			changeRevisionsBefore[changeCount] = idOf(change.getRevisionBefore());
+			changeCount++;
+		}
+
+		private int idOf(String s) {
+			Integer id = stringIds.get(s);
+			if (id == null) {
+				id = addString(s);
+				stringIds.put(s, id);
+			}
+			return id;
+		}
+
+		private int addString(String s) {
+			if (stringCount == stringEnds.length) {
+				stringEnds = Arrays.copyOf(stringEnds, stringEnds.length * 2);
+			}
+			if (stringCount > 0 && stringCount % stringsPerChunk == 0) {
+				textChunks.add(text.toString());
+				text.setLength(0);
+			}
+			if (s.length() > Integer.MAX_VALUE - 8 - text.length()) {
+				throw new IllegalStateException("Too many chars in text chunk of commit store (average string length is above 32K chars)");
+			}
+			text.append(s);
+			stringEnds[stringCount] = text.length();
+			return stringCount++;
+		}
+
+		private int vcsRootIdOf(@Nullable VcsRoot vcsRoot) {
+			if (vcsRoot == null) return -1;
+			for (int i = 0; i < vcsRoots.size(); i++) {
+				if (vcsRoots.get(i) == vcsRoot) return i;
+			}
+			vcsRoots.add(vcsRoot);
+			return vcsRoots.size() - 1;
+		}
+
+		public CommitStore build() {
+			return new CommitStore(this);
+		}
+	}
+}
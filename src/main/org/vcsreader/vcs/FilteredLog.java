@@ -0,0 +1,39 @@
+package org.vcsreader.vcs;
+
+import org.vcsreader.LogQuery;
+import org.vcsreader.LogResult;
+
+/**
+ * Log on top of VCS log command which filters commits with {@link LogQuery#filter(LogResult)}.
+ * This is used for query conditions which VCS command can't check exactly,
+ * e.g. "git log --author" matches author name by substring.
+ */
+public class FilteredLog implements VcsCommand<LogResult> {
+	private final VcsCommand<LogResult> log;
+	private final LogQuery query;
+
+
+	public FilteredLog(VcsCommand<LogResult> log, LogQuery query) {
+		this.log = log;
+		this.query = query;
+	}
+
+	@Override public LogResult execute() {
+		return query.filter(log.execute());
+	}
+
+	@Override public String describe() {
+		return log.describe();
+	}
+
+	@Override public boolean cancel() {
+		return log.cancel();
+	}
+
+	@Override public String toString() {
+		return "FilteredLog{" +
+				"log=" + log +
+				", query=" + query +
+				'}';
+	}
+}
@@ -0,0 +1,80 @@
+package org.vcsreader.vcs;
+
+import org.vcsreader.VcsChange;
+import org.vcsreader.VcsCommit;
+
+import java.util.*;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Loads changes of commits on the first call to {@link Commit#getChanges()}.
+ * Changes are loaded for a batch of commits (the commit itself and its neighbours in the log which don't have changes yet,
+ * following commits first and then preceding ones because commits can be iterated in reverse order of the log)
+ * so that iterating over all commits runs one VCS command per batch instead of one command per commit.
+ */
+public class LazyChanges {
+	public static final int defaultBatchSize = 100;
+
+	private final Loader loader;
+	private final int batchSize;
+	private final List<Commit> commits = new ArrayList<>();
+	private final Map<Commit, Integer> indexByCommit = new IdentityHashMap<>();
+
+
+	private LazyChanges(Loader loader, int batchSize) {
+		this.loader = loader;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @return copies of {@code commits} (without their changes) which load changes with {@code loader}
+	 */
+	public static List<VcsCommit> withLazyChanges(List<VcsCommit> commits, Loader loader) {
+		return withLazyChanges(commits, loader, defaultBatchSize);
+	}
+
+	public static List<VcsCommit> withLazyChanges(List<VcsCommit> commits, Loader loader, int batchSize) {
+		LazyChanges lazyChanges = new LazyChanges(loader, batchSize);
+		List<VcsCommit> result = new ArrayList<>(commits.size());
+		for (VcsCommit commit : commits) {
+			Commit lazyCommit = new Commit(
+					commit.getRevision(), commit.getRevisionBefore(), commit.getDateTime(),
+					commit.getAuthor(), commit.getMessage(), lazyChanges
+			);
+			lazyChanges.indexByCommit.put(lazyCommit, lazyChanges.commits.size());
+			lazyChanges.commits.add(lazyCommit);
+			result.add(lazyCommit);
+		}
+		return result;
+	}
+
+	synchronized void load(Commit commit) {
+		if (commit.hasChanges()) return;
+
+		int index = indexByCommit.get(commit);
+		List<VcsCommit> batch = new ArrayList<>();
+		for (int i = index; i < commits.size() && batch.size() < batchSize; i++) {
+			if (!commits.get(i).hasChanges()) batch.add(commits.get(i));
+		}
+		for (int i = index - 1; i >= 0 && batch.size() < batchSize; i--) {
+			if (!commits.get(i).hasChanges()) batch.add(commits.get(i));
+		}
+
+		Map<String, List<? extends VcsChange>> changesByRevision = loader.loadChanges(batch);
+		for (VcsCommit batchCommit : batch) {
+			List<? extends VcsChange> changes = changesByRevision.get(batchCommit.getRevision());
+			((Commit) batchCommit).setChanges(changes == null ? emptyList() : new ArrayList<>(changes));
+		}
+	}
+
+
+	public interface Loader {
+		/**
+		 * @param commits commits without changes
+		 * @return changes by revision (revisions of commits without changes can be missing from the map)
+		 * @throws RuntimeException (e.g. {@link VcsError}) if changes could not be loaded
+		 */
+		Map<String, List<? extends VcsChange>> loadChanges(List<VcsCommit> commits);
+	}
+}
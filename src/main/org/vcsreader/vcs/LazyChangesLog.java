@@ -0,0 +1,75 @@
+package org.vcsreader.vcs;
+
+import org.vcsreader.LogResult;
+import org.vcsreader.VcsChange;
+import org.vcsreader.VcsCommit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.vcsreader.vcs.LazyChanges.withLazyChanges;
+import static org.vcsreader.vcs.VcsCommand.Listener.executeWith;
+
+/**
+ * Log on top of VCS log command which only reads commit metadata (e.g. "git log" without "--name-status").
+ * Changes of commits are loaded on first access by {@code changesLog} command for a batch of revisions
+ * (see {@link LazyChanges}). Commands which load changes are reported to {@code listener}.
+ */
+public class LazyChangesLog implements VcsCommand<LogResult> {
+	private final VcsCommand<LogResult> metadataLog;
+	private final Function<List<String>, VcsCommand<LogResult>> changesLog;
+	private final Listener listener;
+
+
+	/**
+	 * @param changesLog creates log command which reads commits with changes for the list of revisions
+	 */
+	public LazyChangesLog(VcsCommand<LogResult> metadataLog, Function<List<String>, VcsCommand<LogResult>> changesLog,
+	                      Listener listener) {
+		this.metadataLog = metadataLog;
+		this.changesLog = changesLog;
+		this.listener = listener;
+	}
+
+	@Override public LogResult execute() {
+		LogResult logResult = metadataLog.execute();
+		List<VcsCommit> commits = withLazyChanges(logResult.commits(), this::loadChanges);
+		return new LogResult(commits, logResult.exceptions(), logResult.lastRevision());
+	}
+
+	private Map<String, List<? extends VcsChange>> loadChanges(List<VcsCommit> commits) {
+		List<String> revisions = new ArrayList<>(commits.size());
+		for (VcsCommit commit : commits) {
+			revisions.add(commit.getRevision());
+		}
+
+		LogResult logResult = executeWith(listener, changesLog.apply(revisions));
+		if (!logResult.isSuccessful()) {
+			Exception e = logResult.exceptions().get(0);
+			throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+		}
+
+		Map<String, List<? extends VcsChange>> result = new HashMap<>();
+		for (VcsCommit commit : logResult.commits()) {
+			result.put(commit.getRevision(), commit.getChanges());
+		}
+		return result;
+	}
+
+	@Override public String describe() {
+		return metadataLog.describe();
+	}
+
+	@Override public boolean cancel() {
+		return metadataLog.cancel();
+	}
+
+	@Override public String toString() {
+		return "LazyChangesLog{" +
+				"metadataLog=" + metadataLog +
+				'}';
+	}
+}
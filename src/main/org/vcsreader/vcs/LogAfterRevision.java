@@ -0,0 +1,54 @@
+package org.vcsreader.vcs;
+
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogResult;
+import org.vcsreader.VcsCommit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental log on top of VCS log command which returns commits in the order they were added to repository
+ * (oldest first) starting from {@code revision} inclusive, e.g. "svn log -r N:HEAD".
+ * Commit with {@code revision} is removed from the result
+ * and the last logged commit becomes {@link LogResult#lastRevision()}.
+ */
+public class LogAfterRevision implements VcsCommand<LogResult> {
+	private final VcsCommand<LogResult> log;
+	@Nullable private final String revision;
+
+
+	public LogAfterRevision(VcsCommand<LogResult> log, @Nullable String revision) {
+		this.log = log;
+		this.revision = revision;
+	}
+
+	@Override public LogResult execute() {
+		LogResult logResult = log.execute();
+
+		List<VcsCommit> commits = new ArrayList<>(logResult.commits().size());
+		String lastRevision = revision;
+		for (VcsCommit commit : logResult.commits()) {
+			lastRevision = commit.getRevision();
+			if (!commit.getRevision().equals(revision)) {
+				commits.add(commit);
+			}
+		}
+		return new LogResult(commits, logResult.exceptions(), lastRevision);
+	}
+
+	@Override public String describe() {
+		return log.describe();
+	}
+
+	@Override public boolean cancel() {
+		return log.cancel();
+	}
+
+	@Override public String toString() {
+		return "LogAfterRevision{" +
+				"log=" + log +
+				", revision='" + revision + '\'' +
+				'}';
+	}
+}
@@ -0,0 +1,96 @@
+package org.vcsreader.vcs;
+
+import org.vcsreader.LogResult;
+import org.vcsreader.VcsCommit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Log which executes {@code logs} (e.g. for consecutive revision ranges of the same repository)
+ * with up to {@code maxConcurrency} commands running at the same time (using daemon threads).
+ * Results are concatenated in the order of {@code logs}, i.e. if each log returns commits from the oldest to the newest
+ * and logs are ordered by revisions, commits in the result are ordered in the same way as with one log command.
+ * <p>
+ * If one of the logs throws an exception, other logs are cancelled and the first exception is rethrown.
+ */
+public class ParallelLog implements VcsCommand<LogResult> {
+	private final List<VcsCommand<LogResult>> logs;
+	private final int maxConcurrency;
+
+
+	public ParallelLog(List<VcsCommand<LogResult>> logs, int maxConcurrency) {
+		if (maxConcurrency < 1) throw new IllegalArgumentException("Max concurrency must be positive: " + maxConcurrency);
+		this.logs = new ArrayList<>(logs);
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	@Override public LogResult execute() {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxConcurrency, Math.max(logs.size(), 1)), runnable -> {
+			Thread thread = new Thread(runnable, "vcsreader parallel log");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+			List<CompletableFuture<LogResult>> futures = new ArrayList<>(logs.size());
+			for (VcsCommand<LogResult> log : logs) {
+				futures.add(CompletableFuture.supplyAsync(log::execute, executor).whenComplete((value, throwable) -> {
+					if (throwable == null) return;
+					Throwable cause = (throwable instanceof CompletionException && throwable.getCause() != null) ? throwable.getCause() : throwable;
+					if (firstFailure.compareAndSet(null, cause)) cancel();
+				}));
+			}
+
+			List<VcsCommit> commits = new ArrayList<>();
+			List<Exception> exceptions = new ArrayList<>();
+			for (CompletableFuture<LogResult> future : futures) {
+				try {
+					LogResult logResult = future.join();
+					commits.addAll(logResult.commits());
+					exceptions.addAll(logResult.exceptions());
+				} catch (CompletionException ignored) {
+					// rethrown below after all commands finished
+				}
+			}
+			Throwable failure = firstFailure.get();
+			if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+			if (failure instanceof Error) throw (Error) failure;
+			if (failure != null) throw new CompletionException(failure);
+			return new LogResult(commits, exceptions);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Override public String describe() {
+		List<String> descriptions = new ArrayList<>(logs.size());
+		for (VcsCommand<LogResult> log : logs) {
+			descriptions.add(log.describe());
+		}
+		return String.join("\n", descriptions);
+	}
+
+	/**
+	 * Cancels all logs including the ones which haven't started yet.
+	 */
+	@Override public boolean cancel() {
+		boolean result = true;
+		for (VcsCommand<LogResult> log : logs) {
+			result &= log.cancel();
+		}
+		return result;
+	}
+
+	@Override public String toString() {
+		return "ParallelLog{" +
+				"logs=" + logs +
+				", maxConcurrency=" + maxConcurrency +
+				'}';
+	}
+}
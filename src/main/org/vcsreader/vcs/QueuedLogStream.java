@@ -0,0 +1,154 @@
+package org.vcsreader.vcs;
+
+import org.vcsreader.LogStream;
+import org.vcsreader.VcsCommit;
+import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * {@link LogStream} which receives commits from VCS command output reader thread
+ * and hands them over to the thread reading the stream.
+ * The queue has capacity of one commit, so output reader thread (and VCS process) waits
+ * until previous commit is consumed.
+ */
+public class QueuedLogStream implements LogStream {
+	public static final ExceptionWrapper<LogStream> adapter = QueuedLogStream::new;
+	private static final Object endOfCommits = new Object();
+	private static final long offerTimeoutMillis = 100;
+
+	private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(1);
+	private final List<Exception> exceptions = new ArrayList<>();
+	private final Source source;
+	private final boolean failFast;
+	private volatile boolean isClosed;
+	private volatile boolean isFinished;
+	private Object next;
+
+
+	public QueuedLogStream(Exception e) {
+		this(Source.none, false);
+		exceptions.add(e);
+		endOfCommits();
+	}
+
+	/**
+	 * @param source   VCS command which produces commits
+	 * @param failFast if true, exceptions thrown by VCS command are rethrown from the stream;
+	 *                 otherwise they are added to {@link #exceptions()}
+	 */
+	public QueuedLogStream(Source source, boolean failFast) {
+		this.source = source;
+		this.failFast = failFast;
+	}
+
+	/**
+	 * Producer side of the stream. Blocks until commit can be added to the queue.
+	 * Commits added after the stream was closed are ignored.
+	 */
+	public void add(VcsCommit commit) {
+		put(commit);
+	}
+
+	/**
+	 * Producer side of the stream. Must be called after the last commit (even if reading VCS output failed).
+	 */
+	public void endOfCommits() {
+		put(endOfCommits);
+	}
+
+	private void put(Object o) {
+		try {
+			while (!isClosed) {
+				if (queue.offer(o, offerTimeoutMillis, MILLISECONDS)) return;
+			}
+		} catch (InterruptedException ignored) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override public boolean hasNext() {
+		if (next == null && !isFinished) {
+			try {
+				next = queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			if (next == endOfCommits) {
+				next = null;
+				finish();
+			}
+		}
+		return next != null;
+	}
+
+	@Override public VcsCommit next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		VcsCommit result = (VcsCommit) next;
+		next = null;
+		return result;
+	}
+
+	private synchronized void finish() {
+		if (isFinished) return;
+		isFinished = true;
+		try {
+			List<Exception> errors = source.waitFor();
+			if (!isClosed) exceptions.addAll(errors);
+		} catch (RuntimeException e) {
+			// Ignore exceptions after stream is closed because they are most likely caused by cancelling the command.
+			if (isClosed) return;
+			if (failFast) throw e;
+			else exceptions.add(e);
+		}
+	}
+
+	@Override public void close() {
+		if (isClosed) return;
+		isClosed = true;
+		if (isFinished) return;
+
+		source.cancel();
+		// Unblock consumer thread in case it is waiting for the next commit.
+		while (!queue.offer(endOfCommits)) {
+			queue.poll();
+		}
+		finish();
+	}
+
+	@Override public List<Exception> exceptions() {
+		return exceptions;
+	}
+
+	@Override public boolean isSuccessful() {
+		return exceptions.isEmpty();
+	}
+
+	@Override public String toString() {
+		return "QueuedLogStream{exceptions=" + exceptions.size() + ", isFinished=" + isFinished + ", isClosed=" + isClosed + '}';
+	}
+
+
+	public interface Source {
+		/**
+		 * Waits for VCS command to finish.
+		 * @return errors reported by VCS command
+		 */
+		List<Exception> waitFor();
+
+		boolean cancel();
+
+		Source none = new Source() {
+			@Override public List<Exception> waitFor() { return emptyList(); }
+			@Override public boolean cancel() { return true; }
+		};
+	}
+}
@@ -0,0 +1,191 @@
+package org.vcsreader.vcs;
+
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.StringUtil;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Long-running process (e.g. "git cat-file --batch") which handles requests sent to its stdin
+ * without starting new process for each request. Protocol of requests is implemented by {@link Exchange}.
+ * <p/>
+ * Requests from different threads are sent to the same process one at a time.
+ * If the process fails or is killed, it is restarted on the next request.
+ * <p/>
+ * The process keeps running until it is stopped with {@link #close()} (and its stderr is read by
+ * {@link CommandLine.Config#asyncExecutor()} thread), so owner of this object must close it when it's no longer used.
+ */
+public class RestartableProcess {
+	private static final int maxAttempts = 2;
+	private static final int maxStderrSize = 8192;
+	private static final long stderrTimeoutMillis = 1000;
+
+	private final List<String> command;
+	private final String workingDir;
+	private final Map<String, String> environment;
+	@Nullable private final Exchange<?> onStart;
+	private final Object lock = new Object();
+	private final AtomicInteger cancelCount = new AtomicInteger();
+	private volatile Process process;
+	private DataOutputStream stdin;
+	private DataInputStream stdout;
+	private Future<String> stderrFuture;
+
+
+	/**
+	 * @param onStart exchange executed after process was started (e.g. to read hello message) or null
+	 */
+	public RestartableProcess(List<String> command, String workingDir, Map<String, String> environment,
+	                          @Nullable Exchange<?> onStart) {
+		this.command = new ArrayList<>(command);
+		this.workingDir = workingDir;
+		this.environment = new HashMap<>(environment);
+		this.onStart = onStart;
+	}
+
+	/**
+	 * Sends request to the process starting it if necessary.
+	 * If request fails with {@link IOException}, the process is restarted and request is sent again once
+	 * (unless the process was cancelled while request was in progress).
+	 *
+	 * @throws CommandLine.Failure if request failed
+	 */
+	public <T> T request(Exchange<T> exchange) {
+		synchronized (lock) {
+			// read under the lock so that cancelling request which held the lock before doesn't fail this one
+			int cancelCountBefore = cancelCount.get();
+			for (int attempt = 1; ; attempt++) {
+				try {
+					if (process == null) start();
+					return exchange.apply(stdin, stdout);
+				} catch (IOException e) {
+					Future<String> stderrFuture = this.stderrFuture;
+					stop();
+					String stderr = stderrOf(stderrFuture);
+					boolean wasCancelled = cancelCount.get() != cancelCountBefore;
+					if (attempt == maxAttempts || wasCancelled) {
+						throw new CommandLine.Failure(stderr.isEmpty() ? e : new IOException(stderr.trim(), e));
+					}
+				}
+			}
+		}
+	}
+
+	private void start() throws IOException {
+		ProcessBuilder builder = new ProcessBuilder(command).directory(new File(workingDir));
+		builder.environment().putAll(environment);
+		process = builder.start();
+		stdin = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+		stdout = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+		stderrFuture = CommandLine.Config.defaults.asyncExecutor().submit(
+				readStderrTask(process.getErrorStream()),
+				"stderr reader: " + StringUtil.shortened(describe(), 30)
+		);
+
+		if (onStart != null) onStart.apply(stdin, stdout);
+	}
+
+	/**
+	 * Reads stderr until the process is stopped keeping only the last {@link #maxStderrSize} bytes,
+	 * so that stderr pipe never gets full and blocks the process.
+	 */
+	private static Callable<String> readStderrTask(InputStream inputStream) {
+		return () -> {
+			ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+			byte[] buffer = new byte[maxStderrSize];
+			try {
+				int count;
+				while ((count = inputStream.read(buffer)) != -1) {
+					if (stderr.size() + count > maxStderrSize) stderr.reset();
+					stderr.write(buffer, 0, count);
+				}
+			} catch (IOException ignored) {
+			} finally {
+				closeQuietly(inputStream);
+			}
+			return new String(stderr.toByteArray(), UTF_8);
+		};
+	}
+
+	private static String stderrOf(@Nullable Future<String> stderrFuture) {
+		if (stderrFuture == null) return "";
+		try {
+			return stderrFuture.get(stderrTimeoutMillis, MILLISECONDS);
+		} catch (Exception e) {
+			return "";
+		}
+	}
+
+	private void stop() {
+		Process process = this.process;
+		if (process != null) {
+			process.destroy();
+			closeQuietly(process.getOutputStream());
+			closeQuietly(process.getInputStream());
+		}
+		this.process = null;
+		this.stdin = null;
+		this.stdout = null;
+		this.stderrFuture = null;
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException ignored) {
+		}
+	}
+
+	/**
+	 * Kills the process. Request which is currently in progress fails, the next request will start new process.
+	 */
+	public boolean cancel() {
+		cancelCount.incrementAndGet();
+		Process process = this.process;
+		if (process != null) {
+			process.destroy();
+		}
+		return true;
+	}
+
+	/**
+	 * Stops the process after request in progress (if any) is finished.
+	 */
+	public void close() {
+		synchronized (lock) {
+			stop();
+		}
+	}
+
+	public boolean isRunning() {
+		Process process = this.process;
+		return process != null && process.isAlive();
+	}
+
+	public String describe() {
+		return String.join(" ", command) + " (working directory '" + workingDir + "')";
+	}
+
+	@Override public String toString() {
+		return "RestartableProcess{" +
+				"command=" + command +
+				", workingDir='" + workingDir + '\'' +
+				'}';
+	}
+
+
+	public interface Exchange<T> {
+		T apply(DataOutputStream stdin, DataInputStream stdout) throws IOException;
+	}
+}
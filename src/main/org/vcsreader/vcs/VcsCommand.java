@@ -1,5 +1,9 @@
 package org.vcsreader.vcs;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
 import static org.vcsreader.vcs.VcsCommand.Listener.executeWith;
 
 public interface VcsCommand<R> {
@@ -51,4 +55,25 @@ public interface VcsCommand<R> {
 			}
 		}
 	}
+
+	/**
+	 * Same as {@link #execute(VcsCommand, ExceptionWrapper, Listener, boolean)} except that command is executed
+	 * on {@code executor}. Cancelling returned future cancels the command (i.e. kills VCS process if it's running).
+	 */
+	static <T> CompletableFuture<T> executeAsync(VcsCommand<T> vcsCommand, ExceptionWrapper<T> exceptionWrapper,
+	                                             VcsCommand.Listener listener, boolean isFailFast, Executor executor) {
+		return supplyAsync(() -> execute(vcsCommand, exceptionWrapper, listener, isFailFast), vcsCommand::cancel, executor);
+	}
+
+	/**
+	 * Runs {@code supplier} on {@code executor} and calls {@code onCancel} if returned future is cancelled.
+	 * This is needed because {@link CompletableFuture#cancel(boolean)} doesn't interrupt running task.
+	 */
+	static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Runnable onCancel, Executor executor) {
+		CompletableFuture<T> future = CompletableFuture.supplyAsync(supplier, executor);
+		future.whenComplete((result, throwable) -> {
+			if (future.isCancelled()) onCancel.run();
+		});
+		return future;
+	}
 }
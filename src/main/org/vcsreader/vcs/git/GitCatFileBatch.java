@@ -0,0 +1,97 @@
+package org.vcsreader.vcs.git;
+
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.vcs.RestartableProcess;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Long-running "git cat-file --batch" process which reads objects (e.g. "revision:path")
+ * without starting new git process for each object.
+ * See https://git-scm.com/docs/git-cat-file
+ * <p/>
+ * Requests from different threads are sent to the same process one at a time.
+ * If the process fails or is killed, it is restarted on the next request.
+ */
+class GitCatFileBatch {
+	private final RestartableProcess process;
+
+
+	GitCatFileBatch(String gitPath, String repoFolder) {
+		this.process = new RestartableProcess(
+				Arrays.asList(gitPath, "cat-file", "--batch"), repoFolder, Collections.emptyMap(), null
+		);
+	}
+
+	/**
+	 * @return content of the object or null if object doesn't exist in repository
+	 */
+	@Nullable byte[] read(String objectName) {
+		if (objectName.indexOf('\n') != -1) return null;
+		return process.request((stdin, stdout) -> request(objectName, stdin, stdout));
+	}
+
+	private static byte[] request(String objectName, DataOutputStream stdin, DataInputStream stdout) throws IOException {
+		stdin.write((objectName + "\n").getBytes(UTF_8));
+		stdin.flush();
+
+		String header = readLine(stdout);
+		if (header.endsWith(" missing") || header.endsWith(" ambiguous")) {
+			return null;
+		}
+		String[] parts = header.split(" ");
+		if (parts.length != 3) throw new IOException("Unexpected git cat-file output: '" + header + "'");
+
+		int size;
+		try {
+			size = Integer.parseInt(parts[2]);
+		} catch (NumberFormatException e) {
+			throw new IOException("Unexpected git cat-file output: '" + header + "'", e);
+		}
+		byte[] content = new byte[size];
+		stdout.readFully(content);
+		if (stdout.read() != '\n') throw new IOException("Unexpected end of git cat-file output for '" + objectName + "'");
+
+		return content;
+	}
+
+	private static String readLine(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		int b;
+		while ((b = inputStream.read()) != '\n') {
+			if (b == -1) throw new EOFException("git cat-file output ended unexpectedly");
+			bytes.write(b);
+		}
+		return new String(bytes.toByteArray(), UTF_8);
+	}
+
+	/**
+	 * Kills git process. Request which is currently in progress fails, the next request will start new process.
+	 */
+	boolean cancel() {
+		return process.cancel();
+	}
+
+	/**
+	 * Stops git process after request in progress (if any) is finished.
+	 */
+	void close() {
+		process.close();
+	}
+
+	boolean isRunning() {
+		return process.isRunning();
+	}
+
+	String describe() {
+		return process.describe();
+	}
+
+	@Override public String toString() {
+		return "GitCatFileBatch{" + process + '}';
+	}
+}
@@ -0,0 +1,56 @@
+package org.vcsreader.vcs.git;
+
+import org.vcsreader.LogFileContentResult;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import java.nio.charset.Charset;
+
+import static org.vcsreader.lang.CommandLine.detectCharset;
+import static org.vcsreader.lang.StringUtil.trimLastNewLine;
+
+/**
+ * Same as {@link GitLogFileContent} except that file content is read by long-running {@link GitCatFileBatch} process.
+ */
+class GitCatFileContent implements VcsCommand<LogFileContentResult> {
+	private static final int maxBufferForCharsetDetection = 8192;
+
+	private final GitCatFileBatch catFileBatch;
+	private final String filePath;
+	private final String revision;
+	private final Charset charset;
+
+
+	GitCatFileContent(GitCatFileBatch catFileBatch, String filePath, String revision, Charset charset) {
+		this.catFileBatch = catFileBatch;
+		this.filePath = filePath;
+		this.revision = revision;
+		this.charset = charset;
+	}
+
+	@Override public LogFileContentResult execute() {
+		byte[] bytes = catFileBatch.read(revision + ":" + filePath);
+		if (bytes == null) {
+			return new LogFileContentResult(new VcsError("Path '" + filePath + "' does not exist in '" + revision + "'"));
+		}
+		Charset detectedCharset = detectCharset(bytes, maxBufferForCharsetDetection);
+		return new LogFileContentResult(trimLastNewLine(new String(bytes, detectedCharset == null ? charset : detectedCharset)));
+	}
+
+	@Override public String describe() {
+		return catFileBatch.describe() + " " + revision + ":" + filePath;
+	}
+
+	@Override public boolean cancel() {
+		return catFileBatch.cancel();
+	}
+
+	@Override public String toString() {
+		return "GitCatFileContent{" +
+				"catFileBatch=" + catFileBatch +
+				", filePath='" + filePath + '\'' +
+				", revision='" + revision + '\'' +
+				", charset=" + charset +
+				'}';
+	}
+}
@@ -1,7 +1,9 @@
 package org.vcsreader.vcs.git;
 
+import org.vcsreader.LogQuery;
 import org.vcsreader.VcsChange;
 import org.vcsreader.VcsCommit;
+import org.vcsreader.lang.StringPool;
 import org.vcsreader.vcs.Change;
 import org.vcsreader.vcs.Commit;
 
@@ -11,94 +13,177 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.vcsreader.VcsChange.Type.*;
-import static org.vcsreader.lang.StringUtil.split;
-import static org.vcsreader.lang.StringUtil.trim;
 
 class GitCommitParser {
 	private static final String commitStartSeparatorFormat = "%x15%x16%x17%x18%x19";
 	private static final String commitFieldSeparatorFormat = "%x19%x18%x17%x16%x15";
-	private static final String commitStartSeparator = "\u0015\u0016\u0017\u0018\u0019";
+	static final String commitStartSeparator = "\u0015\u0016\u0017\u0018\u0019";
 	private static final String commitFieldsSeparator = "\u0019\u0018\u0017\u0016\u0015";
 
+	/**
+	 * Parses output by scanning it with indexes, so that substrings are only created for the values
+	 * which end up in commits (i.e. there are no intermediate strings for each commit, field or change line).
+	 */
 	public static List<VcsCommit> parseListOfCommits(String stdout) {
-		List<VcsCommit> commits = new ArrayList<>();
-		List<String> commitsAsString = split(stdout, commitStartSeparator);
+		return parseListOfCommits(stdout, new StringPool());
+	}
 
-		for (String s : commitsAsString) {
-			VcsCommit commit = parseCommit(s, commitFieldsSeparator);
-			if (commit != null) {
-				commits.add(commit);
+	/**
+	 * @param stringPool pool for revisions, authors and file paths which are repeated across commits
+	 */
+	static List<VcsCommit> parseListOfCommits(String stdout, StringPool stringPool) {
+		List<VcsCommit> commits = new ArrayList<>();
+		int from = stdout.startsWith(commitStartSeparator) ? commitStartSeparator.length() : 0;
+		while (from < stdout.length()) {
+			int next = stdout.indexOf(commitStartSeparator, from);
+			int to = (next == -1 ? stdout.length() : next);
+			if (from < to) {
+				VcsCommit commit = parseCommit(stdout, from, to, stringPool);
+				if (commit != null) {
+					commits.add(commit);
+				}
 			}
+			if (next == -1) break;
+			from = next + commitStartSeparator.length();
 		}
 		return commits;
 	}
 
-	private static VcsCommit parseCommit(String s, String fieldsSeparator) {
-		List<String> values = split(s, fieldsSeparator);
+	/**
+	 * @param s commit as logged by VCS without commit start separator (see {@link #commitStartSeparator})
+	 */
+	static VcsCommit parseCommit(String s, StringPool stringPool) {
+		return parseCommit(s, 0, s.length(), stringPool);
+	}
+
+	private static VcsCommit parseCommit(String s, int from, int to, StringPool stringPool) {
+		int revisionEnd = fieldEnd(s, from, to);
+		int parentsStart = nextFieldStart(revisionEnd, to);
+		int parentsEnd = fieldEnd(s, parentsStart, to);
 
-		List<String> previousRevision = split(values.get(1), " ");
-		boolean isFirstCommit = previousRevision.size() == 0;
-		boolean isMergeCommit = previousRevision.size() > 1;
+		boolean isFirstCommit = parentsStart == parentsEnd;
+		boolean isMergeCommit = indexOf(s, ' ', parentsStart, parentsEnd) != -1;
 		if (isMergeCommit) return null;
 
-		String revision = values.get(0);
-		String revisionBefore = (isFirstCommit ? VcsChange.noRevision : previousRevision.get(0));
-		Instant dateTime = parseDateTime(values.get(2));
-		String author = values.get(3);
-		String message = trim(values.get(4), " \r\n\t");
-
-		boolean hasNoChanges = values.size() < 6; // e.g. for commits with --allow-empty flag
+		int dateStart = nextFieldStart(parentsEnd, to);
+		int dateEnd = fieldEnd(s, dateStart, to);
+		int authorStart = nextFieldStart(dateEnd, to);
+		int authorEnd = fieldEnd(s, authorStart, to);
+		int messageStart = nextFieldStart(authorEnd, to);
+		int messageEnd = fieldEnd(s, messageStart, to);
+		int changesStart = nextFieldStart(messageEnd, to);
+
+		String revision = stringPool.intern(s, from, revisionEnd);
+		String revisionBefore = (isFirstCommit ? VcsChange.noRevision : stringPool.intern(s, parentsStart, parentsEnd));
+		Instant dateTime = parseDateTime(s, dateStart, dateEnd);
+		String author = stringPool.intern(s, authorStart, authorEnd);
+		String message = trimmed(s, messageStart, messageEnd);
+
+		boolean hasNoChanges = changesStart == to; // e.g. for commits with --allow-empty flag
 		List<Change> changes = hasNoChanges ?
 				Collections.emptyList() :
-				parseListOfChanges(values.get(5), revision, revisionBefore);
+				parseListOfChanges(s, changesStart, to, revision, revisionBefore, stringPool);
 
 		return new Commit(revision, revisionBefore, dateTime, author, message, changes);
 	}
 
-	static List<Change> parseListOfChanges(String changesAsString, String revision, String revisionBefore) {
+	static List<Change> parseListOfChanges(String changesAsString, String revision, String revisionBefore, StringPool stringPool) {
+		return parseListOfChanges(changesAsString, 0, changesAsString.length(), revision, revisionBefore, stringPool);
+	}
+
+	/**
+	 * Parses NUL-separated name-status records (see "-z" option at https://git-scm.com/docs/git-log),
+	 * e.g. "M\0file.txt\0" or "R100\0old.txt\0new.txt\0". File paths are not quoted or escaped by git in this format.
+	 */
+	private static List<Change> parseListOfChanges(String s, int from, int to, String revision, String revisionBefore, StringPool stringPool) {
 		List<Change> changes = new ArrayList<>();
+		int i = from;
+		while (i < to) {
+			char c = s.charAt(i);
+			if (c == '\n' || c == '\0') { // newline after commit fields or NUL between commits
+				i++;
+				continue;
+			}
+			int statusEnd = indexOf(s, '\0', i, to);
+			if (statusEnd == -1) throw new IllegalStateException("Unexpected git change format: " + s.substring(i, to));
+			VcsChange.Type changeType = parseChangeType(s, i);
+
+			int pathStart = statusEnd + 1;
+			int pathEnd = nulTerminatedEnd(s, pathStart, to);
+			String filePath = stringPool.intern(s, pathStart, pathEnd);
+			String filePathBefore = filePath;
+			i = pathEnd + 1;
+			if (hasTwoPaths(c)) {
+				int secondPathEnd = nulTerminatedEnd(s, i, to);
+				filePath = stringPool.intern(s, i, secondPathEnd);
+				i = secondPathEnd + 1;
+			}
 
-		for (String s : split(changesAsString, "\n")) {
-			Change change = parseChange(s, revision, revisionBefore);
-			if (change != null) {
-				changes.add(change);
+			String changeRevisionBefore = revisionBefore;
+			if (changeType == Added) {
+				filePathBefore = VcsChange.noFilePath;
+				changeRevisionBefore = VcsChange.noRevision;
+			} else if (changeType == Deleted) {
+				filePath = VcsChange.noFilePath;
 			}
+			changes.add(new Change(changeType, filePath, filePathBefore, revision, changeRevisionBefore));
 		}
-
 		return changes;
 	}
 
-	private static Change parseChange(String s, String revision, String revisionBefore) {
-		if (s.trim().isEmpty()) return null;
-
-		List<String> values = split(s, "\t");
-		VcsChange.Type changeType = parseChangeType(values.get(0));
+	/**
+	 * @param status the first character of name-status, e.g. 'R' for "R100"
+	 * @return true if change is followed by two file paths (before and after the change)
+	 */
+	static boolean hasTwoPaths(char status) {
+		char renamed = 'R';
+		char copied = 'C';
+		return status == renamed || status == copied;
+	}
 
-		boolean hasRenames = values.size() > 2;
-		String filePath = unescapeQuotes(hasRenames ? values.get(2) : values.get(1));
-		String filePathBefore = unescapeQuotes(hasRenames ? values.get(1) : filePath);
+	private static int nulTerminatedEnd(String s, int from, int to) {
+		int index = indexOf(s, '\0', from, to);
+		return index == -1 ? to : index;
+	}
 
-		if (changeType == Added) {
-			filePathBefore = VcsChange.noFilePath;
-			revisionBefore = VcsChange.noRevision;
-		} else if (changeType == Deleted) {
-			filePathBefore = filePath;
-			filePath = VcsChange.noFilePath;
-		}
+	private static int fieldEnd(String s, int from, int to) {
+		return indexOf(s, commitFieldsSeparator, from, to);
+	}
 
-		return new Change(changeType, filePath, filePathBefore, revision, revisionBefore);
+	private static int nextFieldStart(int fieldEnd, int to) {
+		return fieldEnd == to ? to : fieldEnd + commitFieldsSeparator.length();
 	}
 
 	/**
-	 * See git4idea.GitUtil#unescapePath(java.lang.String) for more complete implementation.
+	 * Same as {@link String#indexOf(String, int)} except that only {@code [from, to)} is searched,
+	 * so that malformed commit doesn't cause scanning the rest of the output.
+	 *
+	 * @return index of {@code separator} or {@code to} if it's not found
 	 */
-	private static String unescapeQuotes(String filePath) {
-		String quote = "\"";
-		if (!filePath.startsWith(quote)) return filePath;
-		return filePath.substring(1, filePath.length() - 1).replace("\\\"", "\"");
+	private static int indexOf(String s, String separator, int from, int to) {
+		char first = separator.charAt(0);
+		int last = to - separator.length();
+		for (int i = from; i <= last; i++) {
+			if (s.charAt(i) == first && s.startsWith(separator, i)) return i;
+		}
+		return to;
 	}
 
-	private static VcsChange.Type parseChangeType(String s) {
+	private static int indexOf(String s, char c, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (s.charAt(i) == c) return i;
+		}
+		return -1;
+	}
+
+	private static String trimmed(String s, int from, int to) {
+		String chars = " \r\n\t";
+		while (from < to && chars.indexOf(s.charAt(from)) != -1) from++;
+		while (to > from && chars.indexOf(s.charAt(to - 1)) != -1) to--;
+		return s.substring(from, to);
+	}
+
+	private static VcsChange.Type parseChangeType(String s, int index) {
 		// see "--diff-filter" at https://www.kernel.org/pub/software/scm/git/docs/git-log.html
 		char added = 'A';
 		char copied = 'C';
@@ -109,7 +194,7 @@ class GitCommitParser {
 		char deleted = 'D';
 		char renamed = 'R';
 
-		char c = s.charAt(0);
+		char c = s.charAt(index);
 		if (c == added || c == copied) {
 			return Added;
 		} else if (c == modified || c == typeChanged || c == unmerged || c == unknown) {
@@ -119,21 +204,38 @@ class GitCommitParser {
 		} else if (c == renamed) {
 			return Moved;
 		} else {
-			throw new IllegalStateException("Unknown git change type: " + s);
+			throw new IllegalStateException("Unknown git change type: " + c);
 		}
 	}
 
-	private static Instant parseDateTime(String s) {
-		return Instant.ofEpochMilli(Long.parseLong(s) * 1000);
+	private static Instant parseDateTime(String s, int from, int to) {
+		if (from == to) throw new NumberFormatException("Empty commit time");
+		boolean isNegative = s.charAt(from) == '-';
+		long seconds = 0;
+		for (int i = isNegative ? from + 1 : from; i < to; i++) {
+			int digit = s.charAt(i) - '0';
+			if (digit < 0 || digit > 9) throw new NumberFormatException("Invalid commit time: " + s.substring(from, to));
+			seconds = seconds * 10 + digit;
+		}
+		return Instant.ofEpochSecond(isNegative ? -seconds : seconds);
 	}
 
 	public static String logFormat() {
+		return logFormat(LogQuery.Message.full, true);
+	}
+
+	/**
+	 * Fields which are not logged are empty in the output (the layout is the same), so they are parsed as empty strings.
+	 */
+	public static String logFormat(LogQuery.Message message, boolean withAuthor) {
 		// see "PRETTY FORMATS" at https://www.kernel.org/pub/software/scm/git/docs/git-log.html
 		String commitHash = "%H";
 		String parentHashes = "%P";
 		String authorDate = "%at";
-		String authorName = "%an"; // see http://stackoverflow.com/questions/18750808/difference-between-author-and-committer-in-git
+		String authorName = withAuthor ? "%an" : ""; // see http://stackoverflow.com/questions/18750808/difference-between-author-and-committer-in-git
 		String rawBody = "%s%n%n%-b"; // based on git4idea.checkin.GitCheckinEnvironment.GitCheckinOptions.getLastCommitMessage()
+		if (message == LogQuery.Message.subject) rawBody = "%s";
+		else if (message == LogQuery.Message.none) rawBody = "";
 
 		return "--pretty=format:" +
 				commitStartSeparatorFormat +
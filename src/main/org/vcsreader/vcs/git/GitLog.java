@@ -1,9 +1,11 @@
 package org.vcsreader.vcs.git;
 
+import org.vcsreader.LogQuery;
 import org.vcsreader.LogResult;
 import org.vcsreader.VcsChange;
 import org.vcsreader.VcsCommit;
 import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.StringPool;
 import org.vcsreader.lang.TimeRange;
 import org.vcsreader.vcs.Change;
 import org.vcsreader.vcs.Commit;
@@ -12,12 +14,16 @@ import org.vcsreader.vcs.VcsError;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static org.vcsreader.VcsChange.Type.Added;
 import static org.vcsreader.VcsChange.Type.Deleted;
+import static org.vcsreader.lang.StringUtil.split;
 import static org.vcsreader.vcs.git.GitUtil.containsGitRepo;
 import static org.vcsreader.vcs.git.GitUtil.isSuccessful;
 import static org.vcsreader.vcs.git.GitCommitParser.*;
@@ -36,10 +42,46 @@ class GitLog implements VcsCommand<LogResult> {
 
 
 	public GitLog(String gitPath, String repoFolder, TimeRange timeRange) {
+		this(gitPath, repoFolder, timeRange, true);
+	}
+
+	/**
+	 * @param withChanges if false, only commit metadata is logged (i.e. without "--name-status") and commits have no changes
+	 */
+	public GitLog(String gitPath, String repoFolder, TimeRange timeRange, boolean withChanges) {
+		this(gitPath, repoFolder, LogQuery.of(timeRange), withChanges);
+	}
+
+	/**
+	 * Logs commits selected by {@code query}. Author and message conditions are matched by git as substrings,
+	 * so the result should be filtered with {@link LogQuery#filter(LogResult)} to match them exactly.
+	 */
+	public GitLog(String gitPath, String repoFolder, LogQuery query, boolean withChanges) {
+		this(gitPath, repoFolder, query.timeRange(), gitLog(
+				gitPath, repoFolder, queryArguments(query), pathspec(query),
+				withChanges && query.logsChanges(), logFormat(query.message(), query.logsAuthor())
+		));
+	}
+
+	/**
+	 * Logs only commits with {@code revisions} (i.e. "git log --no-walk rev1 rev2 ...").
+	 */
+	public GitLog(String gitPath, String repoFolder, List<String> revisions) {
+		this(gitPath, repoFolder, TimeRange.all, gitLog(gitPath, repoFolder, noWalk(revisions), emptyList(), true, logFormat()));
+	}
+
+	/**
+	 * @param revisionRange e.g. "abc123..HEAD" (see https://git-scm.com/docs/gitrevisions)
+	 */
+	public GitLog(String gitPath, String repoFolder, String revisionRange) {
+		this(gitPath, repoFolder, TimeRange.all, gitLog(gitPath, repoFolder, revisionRange));
+	}
+
+	private GitLog(String gitPath, String repoFolder, TimeRange timeRange, CommandLine commandLine) {
 		this.gitPath = gitPath;
 		this.repoFolder = repoFolder;
 		this.timeRange = timeRange;
-		this.commandLine = gitLog(gitPath, repoFolder, timeRange);
+		this.commandLine = commandLine;
 	}
 
 	@Override public LogResult execute() {
@@ -50,10 +92,15 @@ class GitLog implements VcsCommand<LogResult> {
 		commandLine.execute();
 
 		if (isSuccessful(commandLine)) {
-			List<VcsCommit> commits = parseListOfCommits(commandLine.stdout());
-			commits = handleFileRenamesIn(commits);
+			StringPool stringPool = new StringPool();
+			List<VcsCommit> commits = parseListOfCommits(commandLine.stdout(), stringPool);
+			String stderr = commandLine.stderr();
+			if (renameDetectionWasSkipped(stderr)) {
+				commits = handleFileRenamesIn(commits, stringPool);
+				stderr = withoutRenameLimitWarnings(stderr);
+			}
 
-			List<Exception> errors = (commandLine.stderr().trim().isEmpty() ? new ArrayList<>() : asList(new VcsError(commandLine.stderr())));
+			List<Exception> errors = (stderr.trim().isEmpty() ? new ArrayList<>() : asList(new VcsError(stderr)));
 			return new LogResult(commits, errors);
 		} else {
 			return new LogResult(new VcsError(commandLine.stderr()));
@@ -61,48 +108,211 @@ class GitLog implements VcsCommand<LogResult> {
 	}
 
 	static CommandLine gitLog(String gitPath, String repoFolder, TimeRange timeRange) {
-		String showFileStatus = "--name-status"; // see --diff-filter at https://www.kernel.org/pub/software/scm/git/docs/git-log.html
-		String forceUTF8ForCommitMessages = "--encoding=" + UTF_8.name();
+		return gitLog(gitPath, repoFolder, timeRange, false);
+	}
 
-		List<String> arguments = new ArrayList<>(asList(gitPath, "log"));
+	static CommandLine gitLog(String gitPath, String repoFolder, TimeRange timeRange, boolean oldestFirst) {
+		return gitLog(gitPath, repoFolder, timeRangeArguments(timeRange, oldestFirst), emptyList(), true, logFormat());
+	}
+
+	private static List<String> queryArguments(LogQuery query) {
+		List<String> selectionArguments = timeRangeArguments(query.timeRange(), false);
+		if (query.hasMaxCount()) {
+			selectionArguments.add("--max-count=" + query.maxCount());
+		}
+		// merge commits are not parsed (see GitCommitParser), so they must not be counted by "--max-count"
+		if (query.skipMerges() || query.hasMaxCount()) {
+			selectionArguments.add("--no-merges");
+		}
+		if (query.authors().isEmpty()) {
+			if (query.messageText() != null) {
+				selectionArguments.addAll(asList("--grep=" + query.messageText(), "--regexp-ignore-case", "--fixed-strings"));
+			}
+		} else {
+			// git matches "--author" against "name <email>", so name is anchored to match it exactly
+			// (unless "--regexp-ignore-case" is used for message, see matchesAuthorsExactly())
+			selectionArguments.add("--extended-regexp");
+			for (String author : query.authors()) {
+				selectionArguments.add("--author=^" + escapeRegex(author) + " <");
+			}
+			if (query.messageText() != null) {
+				selectionArguments.addAll(asList("--grep=" + escapeRegex(query.messageText()), "--regexp-ignore-case"));
+			}
+		}
+		if (query.hasPaths()) {
+			// log all changes of selected commits, otherwise git only shows changes under the paths
+			selectionArguments.add("--full-diff");
+		}
+		return selectionArguments;
+	}
+
+	/**
+	 * @return true if commits logged for the query are only by {@link LogQuery#authors()},
+	 * otherwise authors have to be checked after parsing
+	 */
+	static boolean matchesAuthorsExactly(LogQuery query) {
+		return query.messageText() == null;
+	}
+
+	private static String escapeRegex(String s) {
+		StringBuilder result = new StringBuilder(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if ("\\^$.|?*+()[]{}".indexOf(c) != -1) result.append('\\');
+			result.append(c);
+		}
+		return result.toString();
+	}
+
+	/**
+	 * See "pathspec" at https://git-scm.com/docs/gitglossary
+	 */
+	private static List<String> pathspec(LogQuery query) {
+		if (!query.hasPaths()) return emptyList();
+		List<String> result = new ArrayList<>();
+		result.add("--");
+		for (String path : query.paths()) {
+			result.add(path.isEmpty() ? ":(top)" : ":(top,literal)" + path);
+		}
+		if (query.paths().isEmpty()) {
+			result.add(":(top)"); // exclude-only pathspec is not supported by older versions of git
+		}
+		for (String path : query.excludedPaths()) {
+			result.add(":(top,literal,exclude)" + path);
+		}
+		return result;
+	}
+
+	private static List<String> timeRangeArguments(TimeRange timeRange, boolean oldestFirst) {
+		List<String> selectionArguments = new ArrayList<>();
 		// MIN timestamp is not handled correctly by git and must be excluded from command line.
 		if (timeRange.from() != Instant.MIN) {
-			arguments.add("--after=" + Long.toString(timeRange.from().getEpochSecond()));
+			selectionArguments.add("--after=" + Long.toString(timeRange.from().getEpochSecond()));
 		}
 		if (timeRange.to() != Instant.MAX) {
-			arguments.add("--before=" + Long.toString(timeRange.to().getEpochSecond() - 1));
+			selectionArguments.add("--before=" + Long.toString(timeRange.to().getEpochSecond() - 1));
 		}
-		arguments.addAll(asList(
-				showFileStatus,
-				forceUTF8ForCommitMessages,
-				logFormat()
-		));
+		if (oldestFirst) {
+			selectionArguments.add("--reverse");
+		}
+		return selectionArguments;
+	}
+
+	private static List<String> noWalk(List<String> revisions) {
+		List<String> selectionArguments = new ArrayList<>();
+		selectionArguments.add("--no-walk");
+		selectionArguments.addAll(revisions);
+		return selectionArguments;
+	}
+
+	static CommandLine gitLog(String gitPath, String repoFolder, String revisionRange) {
+		return gitLog(gitPath, repoFolder, asList(revisionRange), emptyList(), true, logFormat());
+	}
+
+	private static CommandLine gitLog(String gitPath, String repoFolder, List<String> selectionArguments,
+	                                  List<String> pathspec, boolean withChanges, String logFormat) {
+		String showFileStatus = "--name-status"; // see --diff-filter at https://www.kernel.org/pub/software/scm/git/docs/git-log.html
+		String detectRenames = "-M";
+		String forceUTF8ForCommitMessages = "--encoding=" + UTF_8.name();
+		String nulSeparatedFilePaths = "-z"; // file paths are not quoted, see "core.quotePath" at https://git-scm.com/docs/git-config
+
+		List<String> arguments = new ArrayList<>(asList(gitPath, "log"));
+		arguments.addAll(selectionArguments);
+		if (withChanges) {
+			arguments.addAll(asList(showFileStatus, detectRenames, nulSeparatedFilePaths));
+		}
+		arguments.addAll(asList(forceUTF8ForCommitMessages, logFormat));
+		arguments.addAll(pathspec);
 		return new CommandLine(arguments).workingDir(repoFolder).outputCharset(UTF_8);
 	}
 
-	static CommandLine gitLogRenames(String gitPath, String folder, String revision) {
-		// based on git4idea.history.GitHistoryUtils#getFirstCommitRenamePath
-		return new CommandLine(gitPath, "show", "-M", "--pretty=format:", "--name-status", revision).workingDir(folder);
+	static CommandLine gitLogRenames(String gitPath, String folder, List<String> revisions) {
+		String noRenameLimit = "-l0";
+		return new CommandLine(gitPath, "diff-tree", "--stdin", "-z", "-r", "-M", noRenameLimit, "--name-status")
+				.workingDir(folder).outputCharset(UTF_8)
+				.input(String.join("\n", revisions) + "\n");
+	}
+
+	/**
+	 * Renames are detected by "git log -M" unless number of files in commit exceeds "diff.renameLimit".
+	 * In this case git prints warning and commits which might have renames are checked again by single
+	 * "git diff-tree --stdin" process without the limit.
+	 */
+	private static boolean renameDetectionWasSkipped(String stderr) {
+		return stderr.contains("rename detection was skipped");
+	}
+
+	private static String withoutRenameLimitWarnings(String stderr) {
+		StringBuilder result = new StringBuilder();
+		for (String line : split(stderr, "\n")) {
+			if (line.contains("rename detection was skipped") || line.contains("diff.renameLimit")) continue;
+			result.append(line).append('\n');
+		}
+		return result.toString();
 	}
 
-	private List<VcsCommit> handleFileRenamesIn(List<VcsCommit> commits) {
+	private List<VcsCommit> handleFileRenamesIn(List<VcsCommit> commits, StringPool stringPool) {
+		List<String> revisions = new ArrayList<>();
+		for (VcsCommit commit : commits) {
+			if (hasPotentialRenames(commit)) revisions.add(commit.getRevision());
+		}
+		if (revisions.isEmpty()) return commits;
+
+		CommandLine commandLine = gitLogRenames(gitPath, repoFolder, revisions);
+		externalSubCommands.add(commandLine);
+		commandLine.execute();
+		if (!isSuccessful(commandLine)) return commits;
+
+		Map<String, String> changesByRevision = splitByRevision(commandLine.stdout());
 		List<VcsCommit> result = new ArrayList<>();
 		for (VcsCommit commit : commits) {
-			if (hasPotentialRenames(commit)) {
-				CommandLine commandLine = gitLogRenames(gitPath, repoFolder, commit.getRevision());
-				externalSubCommands.add(commandLine);
-				commandLine.execute();
-
-				if (isSuccessful(commandLine)) {
-					List<Change> updatedChanges = parseListOfChanges(commandLine.stdout(), commit.getRevision(), commit.getRevisionBefore());
-					commit = new Commit(commit.getRevision(), commit.getRevisionBefore(), commit.getDateTime(), commit.getAuthor(), commit.getMessage(), updatedChanges);
-				}
+			String changes = changesByRevision.get(commit.getRevision());
+			if (changes != null) {
+				List<Change> updatedChanges = parseListOfChanges(changes, commit.getRevision(), commit.getRevisionBefore(), stringPool);
+				commit = new Commit(commit.getRevision(), commit.getRevisionBefore(), commit.getDateTime(), commit.getAuthor(), commit.getMessage(), updatedChanges);
 			}
 			result.add(commit);
 		}
 		return result;
 	}
 
+	/**
+	 * @param stdout output of "git diff-tree --stdin -z" where NUL-separated changes of each commit
+	 *               are preceded by commit hash, e.g. "hash1\0M\0file.txt\0hash2\0R100\0old.txt\0new.txt\0"
+	 */
+	private static Map<String, String> splitByRevision(String stdout) {
+		Map<String, String> result = new HashMap<>();
+		String revision = null;
+		StringBuilder changes = new StringBuilder();
+		List<String> tokens = split(stdout, "\0");
+		for (int i = 0; i < tokens.size(); i++) {
+			String token = tokens.get(i);
+			if (token.isEmpty()) continue;
+
+			if (isCommitHash(token)) {
+				if (revision != null) result.put(revision, changes.toString());
+				revision = token;
+				changes.setLength(0);
+			} else {
+				changes.append(token).append('\0');
+				int pathCount = hasTwoPaths(token.charAt(0)) ? 2 : 1;
+				for (int j = 0; j < pathCount && i + 1 < tokens.size(); j++) {
+					changes.append(tokens.get(++i)).append('\0');
+				}
+			}
+		}
+		if (revision != null) result.put(revision, changes.toString());
+		return result;
+	}
+
+	private static boolean isCommitHash(String s) {
+		if (s.length() < 40) return false;
+		for (int i = 0; i < s.length(); i++) {
+			if (Character.digit(s.charAt(i), 16) == -1) return false;
+		}
+		return true;
+	}
+
 	private static boolean hasPotentialRenames(VcsCommit commit) {
 		boolean hasDeletions = false;
 		boolean hasAdditions = false;
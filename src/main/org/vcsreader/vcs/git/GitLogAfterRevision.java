@@ -0,0 +1,81 @@
+package org.vcsreader.vcs.git;
+
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogResult;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import static org.vcsreader.vcs.git.GitUtil.containsGitRepo;
+import static org.vcsreader.vcs.git.GitUtil.isSuccessful;
+
+/**
+ * Logs commits reachable from HEAD but not from {@code revision} ("git log revision..HEAD").
+ * HEAD is resolved before running "git log" so that {@link LogResult#lastRevision()}
+ * is the newest commit in the log even if new commits are pulled while the log is running.
+ */
+class GitLogAfterRevision implements VcsCommand<LogResult> {
+	private final String gitPath;
+	private final String repoFolder;
+	@Nullable private final String revision;
+	private final CommandLine revParseHead;
+	private volatile GitLog gitLog;
+	private volatile boolean isCancelled;
+
+
+	public GitLogAfterRevision(String gitPath, String repoFolder, @Nullable String revision) {
+		this.gitPath = gitPath;
+		this.repoFolder = repoFolder;
+		this.revision = revision;
+		this.revParseHead = gitRevParseHead(gitPath, repoFolder);
+	}
+
+	@Override public LogResult execute() {
+		if (!containsGitRepo(repoFolder)) {
+			throw new VcsError("Folder doesn't contain git repository: '" + repoFolder + "'.");
+		}
+
+		revParseHead.execute();
+		if (!isSuccessful(revParseHead)) {
+			return new LogResult(new VcsError(revParseHead.stderr()));
+		}
+		String head = revParseHead.stdout().trim();
+		if (head.equals(revision)) {
+			return new LogResult().withLastRevision(head);
+		}
+
+		gitLog = new GitLog(gitPath, repoFolder, revision == null ? head : revision + ".." + head);
+		if (isCancelled) gitLog.cancel();
+		LogResult logResult = gitLog.execute();
+
+		boolean wasLogged = logResult.isSuccessful() || !logResult.commits().isEmpty();
+		return logResult.withLastRevision(wasLogged ? head : revision);
+	}
+
+	static CommandLine gitRevParseHead(String gitPath, String repoFolder) {
+		return new CommandLine(gitPath, "rev-parse", "HEAD").workingDir(repoFolder);
+	}
+
+	@Override public String describe() {
+		GitLog gitLog = this.gitLog;
+		return revParseHead.describe() + (gitLog == null ? "" : "\n" + gitLog.describe());
+	}
+
+	@Override public boolean cancel() {
+		isCancelled = true;
+		boolean notRunning = revParseHead.kill();
+		GitLog gitLog = this.gitLog;
+		if (gitLog != null) {
+			notRunning &= gitLog.cancel();
+		}
+		return notRunning;
+	}
+
+	@Override public String toString() {
+		return "GitLogAfterRevision{" +
+				"gitPath='" + gitPath + '\'' +
+				", repoFolder='" + repoFolder + '\'' +
+				", revision='" + revision + '\'' +
+				'}';
+	}
+}
@@ -0,0 +1,95 @@
+package org.vcsreader.vcs.git;
+
+import org.vcsreader.LogStream;
+import org.vcsreader.VcsCommit;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.CommandLine.RecordConsumer;
+import org.vcsreader.lang.StringPool;
+import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.QueuedLogStream;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.vcsreader.vcs.git.GitCommitParser.commitStartSeparator;
+import static org.vcsreader.vcs.git.GitCommitParser.parseCommit;
+import static org.vcsreader.vcs.git.GitLog.gitLog;
+import static org.vcsreader.vcs.git.GitUtil.containsGitRepo;
+import static org.vcsreader.vcs.git.GitUtil.isSuccessful;
+
+/**
+ * Same as {@link GitLog} except that commits are parsed while "git log" is running
+ * and are returned from oldest to newest.
+ * Renames are only detected by "git log -M", i.e. there is no fallback for commits exceeding "diff.renameLimit"
+ * because git reports it after commits were already passed to the stream.
+ */
+@SuppressWarnings("Duplicates") // because it's similar to HgLogStream
+class GitLogStream implements VcsCommand<LogStream>, QueuedLogStream.Source {
+	private final String gitPath;
+	private final String repoFolder;
+	private final TimeRange timeRange;
+	private final boolean failFast;
+
+	private final CommandLine commandLine;
+
+
+	public GitLogStream(String gitPath, String repoFolder, TimeRange timeRange, boolean failFast) {
+		this.gitPath = gitPath;
+		this.repoFolder = repoFolder;
+		this.timeRange = timeRange;
+		this.failFast = failFast;
+		this.commandLine = gitLog(gitPath, repoFolder, timeRange, true);
+	}
+
+	@Override public LogStream execute() {
+		if (!containsGitRepo(repoFolder)) {
+			throw new VcsError("Folder doesn't contain git repository: '" + repoFolder + "'.");
+		}
+
+		QueuedLogStream logStream = new QueuedLogStream(this, failFast);
+		StringPool stringPool = new StringPool();
+		commandLine.start(commitStartSeparator.getBytes(UTF_8), new RecordConsumer() {
+			@Override public void consume(String record) {
+				VcsCommit commit = parseCommit(record, stringPool);
+				if (commit != null) {
+					logStream.add(commit);
+				}
+			}
+
+			@Override public void endOfRecords() {
+				logStream.endOfCommits();
+			}
+		});
+		return logStream;
+	}
+
+	@Override public List<Exception> waitFor() {
+		commandLine.waitFor();
+		if (isSuccessful(commandLine)) {
+			return commandLine.stderr().trim().isEmpty() ? new ArrayList<>() : asList(new VcsError(commandLine.stderr()));
+		} else {
+			return asList(new VcsError(commandLine.stderr()));
+		}
+	}
+
+	@Override public String describe() {
+		return commandLine.describe();
+	}
+
+	@Override public boolean cancel() {
+		return commandLine.kill();
+	}
+
+	@Override public String toString() {
+		return "GitLogStream{" +
+				"gitPath='" + gitPath + '\'' +
+				", repoFolder='" + repoFolder + '\'' +
+				", timeRange=" + timeRange +
+				", commandLine=" + commandLine +
+				'}';
+	}
+}
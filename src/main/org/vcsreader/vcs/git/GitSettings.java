@@ -10,6 +10,7 @@ public class GitSettings {
 	private final String gitPath;
 	private final Charset defaultFileCharset;
 	private final boolean failFast;
+	private final boolean lazyChanges;
 
 	/**
 	 * @param gitPath            path to git executable
@@ -19,25 +20,38 @@ public class GitSettings {
 	 *                           otherwise will aggregate all exceptions/errors into result object
 	 */
 	public GitSettings(@NotNull String gitPath, @NotNull Charset defaultFileCharset, boolean failFast) {
+		this(gitPath, defaultFileCharset, failFast, false);
+	}
+
+	/**
+	 * @param lazyChanges if true, log only reads commit metadata and changes are loaded on first access
+	 *                    to {@link org.vcsreader.VcsCommit#getChanges()} (see {@link org.vcsreader.vcs.LazyChanges})
+	 */
+	public GitSettings(@NotNull String gitPath, @NotNull Charset defaultFileCharset, boolean failFast, boolean lazyChanges) {
 		this.gitPath = gitPath;
 		this.defaultFileCharset = defaultFileCharset;
 		this.failFast = failFast;
+		this.lazyChanges = lazyChanges;
 	}
 
 	public static GitSettings defaults() {
-		return new GitSettings("git", UTF_8, true);
+		return new GitSettings("git", UTF_8, true, false);
 	}
 
 	public GitSettings withGitPath(String value) {
-		return new GitSettings(value, defaultFileCharset, failFast);
+		return new GitSettings(value, defaultFileCharset, failFast, lazyChanges);
 	}
 
 	public GitSettings withDefaultFileCharset(Charset value) {
-		return new GitSettings(gitPath, value, failFast);
+		return new GitSettings(gitPath, value, failFast, lazyChanges);
 	}
 
 	public GitSettings withFailFast(boolean value) {
-		return new GitSettings(gitPath, defaultFileCharset, value);
+		return new GitSettings(gitPath, defaultFileCharset, value, lazyChanges);
+	}
+
+	public GitSettings withLazyChanges(boolean value) {
+		return new GitSettings(gitPath, defaultFileCharset, failFast, value);
 	}
 
 	@NotNull public String gitPath() {
@@ -52,6 +66,10 @@ public class GitSettings {
 		return failFast;
 	}
 
+	public boolean lazyChanges() {
+		return lazyChanges;
+	}
+
 	@Override public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
@@ -59,6 +77,7 @@ public class GitSettings {
 		GitSettings that = (GitSettings) o;
 
 		return failFast == that.failFast &&
+				lazyChanges == that.lazyChanges &&
 				gitPath.equals(that.gitPath) &&
 				defaultFileCharset.equals(that.defaultFileCharset);
 	}
@@ -67,6 +86,7 @@ public class GitSettings {
 		int result = gitPath.hashCode();
 		result = 31 * result + defaultFileCharset.hashCode();
 		result = 31 * result + (failFast ? 1 : 0);
+		result = 31 * result + (lazyChanges ? 1 : 0);
 		return result;
 	}
 
@@ -75,6 +95,7 @@ public class GitSettings {
 				"gitPath='" + gitPath + '\'' +
 				", defaultFileCharset=" + defaultFileCharset +
 				", failFast=" + failFast +
+				", lazyChanges=" + lazyChanges +
 				'}';
 	}
 }
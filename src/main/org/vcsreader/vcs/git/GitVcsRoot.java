@@ -4,14 +4,23 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.vcsreader.*;
 import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.FilteredLog;
+import org.vcsreader.vcs.LazyChangesLog;
+import org.vcsreader.vcs.QueuedLogStream;
 import org.vcsreader.vcs.VcsCommand;
 import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static java.util.Collections.emptyList;
+
 public class GitVcsRoot implements VcsRoot, VcsCommand.Observer {
 	@NotNull private final String repoFolder;
 	@Nullable private final String repoUrl;
 	@NotNull private final GitSettings settings;
 	private final VcsCommand.Listener listener;
+	private final GitCatFileBatch catFileBatch;
 	private volatile VcsCommand lastCommand;
 
 
@@ -35,34 +44,116 @@ public class GitVcsRoot implements VcsRoot, VcsCommand.Observer {
 
 	private GitVcsRoot(@NotNull String repoFolder, @Nullable String repoUrl,
 	                   @NotNull GitSettings settings, VcsCommand.Listener listener) {
+		this(repoFolder, repoUrl, settings, listener, new GitCatFileBatch(settings.gitPath(), repoFolder));
+	}
+
+	private GitVcsRoot(@NotNull String repoFolder, @Nullable String repoUrl, @NotNull GitSettings settings,
+	                   VcsCommand.Listener listener, GitCatFileBatch catFileBatch) {
 		this.repoFolder = repoFolder;
 		this.repoUrl = repoUrl;
 		this.settings = settings;
 		this.listener = listener;
+		this.catFileBatch = catFileBatch;
 	}
 
 	@Override public GitVcsRoot withListener(VcsCommand.Listener listener) {
-		return new GitVcsRoot(repoFolder, repoUrl, settings, listener);
+		return new GitVcsRoot(repoFolder, repoUrl, settings, listener, catFileBatch);
 	}
 
 	@Override public CloneResult cloneIt() {
+		return execute(gitClone(), CloneResult.adapter);
+	}
+
+	@Override public CompletableFuture<CloneResult> cloneAsync(Executor executor) {
+		return executeAsync(gitClone(), CloneResult.adapter, executor);
+	}
+
+	private GitClone gitClone() {
 		if (repoUrl == null && settings.failFast()) {
 			throw new IllegalStateException("Cannot clone repository because remote URL is not specified for root: " + this);
 		}
-		return execute(new GitClone(settings.gitPath(), repoUrl, repoFolder), CloneResult.adapter);
+		return new GitClone(settings.gitPath(), repoUrl, repoFolder);
 	}
 
 	@Override public UpdateResult update() {
 		return execute(new GitUpdate(settings.gitPath(), repoFolder), UpdateResult.adapter);
 	}
 
+	@Override public CompletableFuture<UpdateResult> updateAsync(Executor executor) {
+		return executeAsync(new GitUpdate(settings.gitPath(), repoFolder), UpdateResult.adapter, executor);
+	}
+
 	@Override public LogResult log(TimeRange timeRange) {
-		return execute(new GitLog(settings.gitPath(), repoFolder, timeRange), LogResult.adapter);
+		return log(LogQuery.of(timeRange));
+	}
+
+	/**
+	 * Uses "git log" with arguments for all query conditions (e.g. "--author", "--max-count", "-- path")
+	 * and format with the requested fields. Authors are matched by git exactly, except when query also has message text
+	 * (git then matches authors ignoring case), in which case they are checked again after parsing.
+	 */
+	@Override public LogResult log(LogQuery query) {
+		return execute(gitLog(query), LogResult.adapter);
+	}
+
+	@Override public CompletableFuture<LogResult> logAsync(TimeRange timeRange, Executor executor) {
+		return executeAsync(gitLog(LogQuery.of(timeRange)), LogResult.adapter, executor);
+	}
+
+	private VcsCommand<LogResult> gitLog(LogQuery query) {
+		// message is matched by git exactly and can be logged partially (see LogQuery#message())
+		LogQuery filter = query.withoutPaths().withMessageText(null);
+		if (GitLog.matchesAuthorsExactly(query)) filter = filter.withAuthors(emptyList());
+		LogQuery gitQuery = filter.hasCommitFilters() ? query.withMaxCount(LogQuery.noMaxCount) : query;
+
+		VcsCommand<LogResult> gitLog;
+		if (settings.lazyChanges() && query.logsChanges()) {
+			gitLog = new LazyChangesLog(
+					new GitLog(settings.gitPath(), repoFolder, gitQuery, false),
+					revisions -> new GitLog(settings.gitPath(), repoFolder, revisions),
+					listener
+			);
+		} else {
+			gitLog = new GitLog(settings.gitPath(), repoFolder, gitQuery, true);
+		}
+		return filter.hasFilters() ? new FilteredLog(gitLog, filter) : gitLog;
+	}
+
+	@Override public LogResult logAfter(@Nullable String revision) {
+		return execute(new GitLogAfterRevision(settings.gitPath(), repoFolder, revision), LogResult.adapter);
+	}
+
+	@Override public LogStream logStream(TimeRange timeRange) {
+		return execute(new GitLogStream(settings.gitPath(), repoFolder, timeRange, settings.failFast()), QueuedLogStream.adapter);
 	}
 
+	/**
+	 * Reads file content using long-running "git cat-file --batch" process
+	 * which is started on the first call and reused by subsequent calls (including calls from other threads).
+	 * Use {@link #close()} to stop the process.
+	 */
 	@Override public LogFileContentResult logFileContent(String filePath, String revision) {
-		GitLogFileContent logFileContent = new GitLogFileContent(settings.gitPath(), repoFolder, filePath, revision, settings.defaultFileCharset());
-		return execute(logFileContent, LogFileContentResult.adapter);
+		return execute(gitCatFileContent(filePath, revision), LogFileContentResult.adapter);
+	}
+
+	/**
+	 * Note that cancelling returned future kills "git cat-file --batch" process shared with other file content requests,
+	 * so requests which are in progress fail and the process is restarted on the next request.
+	 */
+	@Override public CompletableFuture<LogFileContentResult> logFileContentAsync(String filePath, String revision, Executor executor) {
+		return executeAsync(gitCatFileContent(filePath, revision), LogFileContentResult.adapter, executor);
+	}
+
+	private GitCatFileContent gitCatFileContent(String filePath, String revision) {
+		return new GitCatFileContent(catFileBatch, filePath, revision, settings.defaultFileCharset());
+	}
+
+	/**
+	 * Stops git process used by {@link #logFileContent(String, String)}.
+	 * It's ok to use this root after it was closed, the process will be started again if needed.
+	 */
+	@Override public void close() {
+		catFileBatch.close();
 	}
 
 	private <T> T execute(VcsCommand<T> vcsCommand, ExceptionWrapper<T> exceptionWrapper) {
@@ -74,6 +165,10 @@ public class GitVcsRoot implements VcsRoot, VcsCommand.Observer {
 		}
 	}
 
+	private <T> CompletableFuture<T> executeAsync(VcsCommand<T> vcsCommand, ExceptionWrapper<T> exceptionWrapper, Executor executor) {
+		return VcsCommand.executeAsync(vcsCommand, exceptionWrapper, listener, settings.failFast(), executor);
+	}
+
 	@Override @NotNull public String repoFolder() {
 		return repoFolder;
 	}
@@ -0,0 +1,136 @@
+package org.vcsreader.vcs.hg;
+
+import org.vcsreader.vcs.RestartableProcess;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Long-running "hg serve --cmdserver pipe" process which executes hg commands
+ * without paying for python interpreter startup on each command.
+ * See https://www.mercurial-scm.org/wiki/CommandServer
+ * <p/>
+ * Commands from different threads are sent to the same process one at a time.
+ * If the process fails or is killed, it is restarted on the next command.
+ */
+class HgCommandServer {
+	private final RestartableProcess process;
+
+
+	HgCommandServer(String hgPath, String repoFolder) {
+		Map<String, String> environment = new HashMap<>();
+		environment.put("HGPLAIN", "1");
+		environment.put("HGENCODING", UTF_8.name());
+		this.process = new RestartableProcess(
+				Arrays.asList(hgPath, "serve", "--cmdserver", "pipe", "--config", "ui.interactive=False"),
+				repoFolder, environment, HgCommandServer::readHelloMessage
+		);
+	}
+
+	/**
+	 * @param args hg command with arguments, e.g. "log", "-r", "tip"
+	 */
+	Output runCommand(List<String> args) {
+		return process.request((stdin, stdout) -> request(args, stdin, stdout));
+	}
+
+	private static Output request(List<String> args, DataOutputStream stdin, DataInputStream stdout) throws IOException {
+		byte[] argsBytes = String.join("\0", args).getBytes(UTF_8);
+		stdin.write("runcommand\n".getBytes(UTF_8));
+		stdin.writeInt(argsBytes.length);
+		stdin.write(argsBytes);
+		stdin.flush();
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ByteArrayOutputStream error = new ByteArrayOutputStream();
+		while (true) {
+			char channel = (char) stdout.readUnsignedByte();
+			int length = stdout.readInt();
+			switch (channel) {
+				case 'o':
+					copy(stdout, output, length);
+					break;
+				case 'e':
+					copy(stdout, error, length);
+					break;
+				case 'r':
+					int exitCode = stdout.readInt();
+					return new Output(output.toByteArray(), new String(error.toByteArray(), UTF_8), exitCode);
+				case 'I':
+				case 'L':
+					// commands executed by vcsreader are not interactive, so reply with empty input
+					stdin.writeInt(0);
+					stdin.flush();
+					break;
+				default:
+					if (Character.isUpperCase(channel)) {
+						throw new IOException("Unsupported hg command server channel: '" + channel + "'");
+					}
+					copy(stdout, new ByteArrayOutputStream(), length);
+			}
+		}
+	}
+
+	private static void copy(DataInputStream inputStream, ByteArrayOutputStream outputStream, int length) throws IOException {
+		byte[] bytes = new byte[length];
+		inputStream.readFully(bytes);
+		outputStream.write(bytes);
+	}
+
+	private static Void readHelloMessage(DataOutputStream stdin, DataInputStream stdout) throws IOException {
+		char channel = (char) stdout.readUnsignedByte();
+		int length = stdout.readInt();
+		byte[] bytes = new byte[length];
+		stdout.readFully(bytes);
+		String message = new String(bytes, UTF_8);
+		if (channel != 'o' || !message.contains("runcommand")) {
+			throw new IOException("Unexpected hg command server hello message: '" + message + "'");
+		}
+		return null;
+	}
+
+	/**
+	 * Kills hg process. Command which is currently in progress fails, the next command will start new process.
+	 */
+	boolean cancel() {
+		return process.cancel();
+	}
+
+	/**
+	 * Stops hg process after command in progress (if any) is finished.
+	 */
+	void close() {
+		process.close();
+	}
+
+	String describe(List<String> args) {
+		return process.describe() + " <- " + String.join(" ", args);
+	}
+
+	@Override public String toString() {
+		return "HgCommandServer{" + process + '}';
+	}
+
+
+	static class Output {
+		final byte[] stdout;
+		final String stderr;
+		final int exitCode;
+
+		Output(byte[] stdout, String stderr, int exitCode) {
+			this.stdout = stdout;
+			this.stderr = stderr;
+			this.exitCode = exitCode;
+		}
+
+		boolean isSuccessful() {
+			// don't check stderr because hg can use it for non-error information
+			return exitCode == 0;
+		}
+	}
+}
@@ -1,20 +1,23 @@
 package org.vcsreader.vcs.hg;
 
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogQuery;
 import org.vcsreader.VcsCommit;
 import org.vcsreader.lang.DateTimeUtil;
+import org.vcsreader.lang.StringPool;
 import org.vcsreader.vcs.Change;
 import org.vcsreader.vcs.Commit;
 
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 import static java.time.ZoneOffset.UTC;
 import static org.vcsreader.VcsChange.Type.*;
 import static org.vcsreader.lang.DateTimeUtil.dateTimeFormatter;
-import static org.vcsreader.lang.StringUtil.split;
 import static org.vcsreader.vcs.Change.noFilePath;
 import static org.vcsreader.vcs.Change.noRevision;
 
@@ -22,55 +25,82 @@ class HgCommitParser {
 	private static final String commitStartSeparatorFormat = "\\x15\\x16\\x17\\x18\\x19";
 	private static final String commitFieldSeparatorFormat = "\\x19\\x18\\x17\\x16\\x15";
 	private static final String fileSeparatorFormat = "\\x17\\x16\\x15\\x19\\x18";
-	private static final String commitStartSeparator = "\u0015\u0016\u0017\u0018\u0019";
+	static final String commitStartSeparator = "\u0015\u0016\u0017\u0018\u0019";
 	private static final String commitFieldsSeparator = "\u0019\u0018\u0017\u0016\u0015";
 	private static final String fileSeparator = "\u0017\u0016\u0015\u0019\u0018";
 	private static final String hgNoRevision = "0000000000000000000000000000000000000000";
+	private static final int fieldCount = 9;
 	private static final DateTimeFormatter dateTimeFormatter = dateTimeFormatter("yyyy-MM-dd HH:mm:ss Z", UTC);
 
+	/**
+	 * Parses output by scanning it with indexes, so that substrings are only created for the values
+	 * which end up in commits (i.e. there are no intermediate strings for each commit, field or file path list).
+	 */
 	public static List<VcsCommit> parseListOfCommits(String stdout) {
+		StringPool stringPool = new StringPool();
 		ArrayList<VcsCommit> commits = new ArrayList<>();
-		List<String> commitsAsString = split(stdout, commitStartSeparator);
-
-		for (String s : commitsAsString) {
-			commits.add(parseCommit(s, commitFieldsSeparator));
+		int from = stdout.startsWith(commitStartSeparator) ? commitStartSeparator.length() : 0;
+		while (from < stdout.length()) {
+			int next = stdout.indexOf(commitStartSeparator, from);
+			int to = (next == -1 ? stdout.length() : next);
+			if (from < to) {
+				commits.add(parseCommit(stdout, from, to, stringPool));
+			}
+			if (next == -1) break;
+			from = next + commitStartSeparator.length();
 		}
 		return commits;
 	}
 
-	private static VcsCommit parseCommit(String s, String fieldsSeparator) {
-		List<String> values = split(s, fieldsSeparator);
+	/**
+	 * @param s commit as logged by VCS without commit start separator (see {@link #commitStartSeparator})
+	 */
+	static VcsCommit parseCommit(String s, StringPool stringPool) {
+		return parseCommit(s, 0, s.length(), stringPool);
+	}
+
+	/**
+	 * @param from start of commit in {@code s} (after commit start separator)
+	 * @param to   end of commit in {@code s}, characters after it are never read
+	 */
+	static VcsCommit parseCommit(CharSequence s, int from, int to, StringPool stringPool) {
+		int[] fieldStarts = new int[fieldCount];
+		int[] fieldEnds = new int[fieldCount];
+		int fieldStart = from;
+		for (int i = 0; i < fieldCount; i++) {
+			int fieldEnd = indexOf(s, commitFieldsSeparator, fieldStart, to);
+			fieldStarts[i] = fieldStart;
+			fieldEnds[i] = fieldEnd;
+			fieldStart = (fieldEnd == to ? to : fieldEnd + commitFieldsSeparator.length());
+		}
 
-		String revision = values.get(0);
-		String revisionBefore = values.get(1);
+		String revision = stringPool.intern(s, fieldStarts[0], fieldEnds[0]);
+		String revisionBefore = stringPool.intern(s, fieldStarts[1], fieldEnds[1]);
 		if (revisionBefore.equals(hgNoRevision)) {
 			revisionBefore = noRevision;
 		}
-		Instant dateTime = dateTimeFormatter.parse(values.get(2), DateTimeUtil::asInstant);
-		String author = values.get(3);
-		String comment = values.get(4);
+		Instant dateTime = dateTimeFormatter.parse(s.subSequence(fieldStarts[2], fieldEnds[2]), DateTimeUtil::asInstant);
+		String author = stringPool.intern(s, fieldStarts[3], fieldEnds[3]);
+		String comment = s.subSequence(fieldStarts[4], fieldEnds[4]).toString();
 
 		List<Change> filesAdded = new ArrayList<>();
-		for (String filePath : values.get(5).split(fileSeparator)) {
-			if (filePath.isEmpty()) continue;
+		for (String filePath : filePaths(s, fieldStarts[5], fieldEnds[5], stringPool)) {
 			filesAdded.add(new Change(Added, filePath, revision));
 		}
 		List<Change> filesDeleted = new ArrayList<>();
-		for (String filePath : values.get(6).split(fileSeparator)) {
-			if (filePath.isEmpty()) continue;
+		for (String filePath : filePaths(s, fieldStarts[6], fieldEnds[6], stringPool)) {
 			filesDeleted.add(new Change(Deleted, noFilePath, filePath, revision, revisionBefore));
 		}
 		List<Change> filesMoved = new ArrayList<>();
-		for (String newAndOldFilePath : values.get(7).split(fileSeparator)) {
-			if (newAndOldFilePath.isEmpty()) continue;
-			String[] parts = newAndOldFilePath.split("\\s+\\(");
+		for (String newAndOldFilePath : filePaths(s, fieldStarts[7], fieldEnds[7], null)) {
 			String filePath;
 			String filePathBefore;
-			if (parts.length == 2) {
-				filePath = parts[0];
-				filePathBefore = parts[1].substring(0, parts[1].length() - 1);
+			int separator = oldFilePathSeparator(newAndOldFilePath);
+			if (separator != -1) {
+				filePath = stringPool.intern(newAndOldFilePath, 0, separator);
+				filePathBefore = stringPool.intern(newAndOldFilePath, newAndOldFilePath.indexOf('(', separator) + 1, newAndOldFilePath.length() - 1);
 			} else {
-				filePath = newAndOldFilePath;
+				filePath = stringPool.intern(newAndOldFilePath);
 				filePathBefore = noFilePath;
 			}
 			filesMoved.add(new Change(Moved, filePath, filePathBefore, revision, revisionBefore));
@@ -93,12 +123,11 @@ class HgCommitParser {
 			}
 		}
 		List<Change> filesModified = new ArrayList<>();
-		for (String filePath : values.get(8).split(fileSeparator)) {
-			if (filePath.isEmpty()) continue;
+		for (String filePath : filePaths(s, fieldStarts[8], fieldEnds[8], stringPool)) {
 			filesModified.add(new Change(Modified, filePath, filePath, revision, revisionBefore));
 		}
 
-		List<Change> changes = new ArrayList<>();
+		List<Change> changes = new ArrayList<>(filesAdded.size() + filesDeleted.size() + filesMoved.size() + filesModified.size());
 		changes.addAll(filesAdded);
 		changes.addAll(filesDeleted);
 		changes.addAll(filesMoved);
@@ -107,17 +136,84 @@ class HgCommitParser {
 		return new Commit(revision, revisionBefore, dateTime, author, comment, changes);
 	}
 
+	/**
+	 * @param stringPool pool for file paths or null if paths need further parsing (e.g. "new.txt (old.txt)")
+	 */
+	private static List<String> filePaths(CharSequence s, int from, int to, @Nullable StringPool stringPool) {
+		if (from == to) return Collections.emptyList();
+		List<String> result = new ArrayList<>();
+		while (from < to) {
+			int end = indexOf(s, fileSeparator, from, to);
+			if (from < end) result.add(stringPool == null ? s.subSequence(from, end).toString() : stringPool.intern(s, from, end));
+			from = end + fileSeparator.length();
+		}
+		return result;
+	}
+
+	/**
+	 * @return index of {@code separator} within [from, to) or {@code to} if there is no separator.
+	 * Unlike {@link String#indexOf(String, int)} the search doesn't continue after {@code to}
+	 * (e.g. the last file of a commit isn't followed by file separator).
+	 */
+	private static int indexOf(CharSequence s, String separator, int from, int to) {
+		char first = separator.charAt(0);
+		int last = to - separator.length();
+		for (int i = from; i <= last; i++) {
+			if (s.charAt(i) == first && regionMatches(s, i, separator)) return i;
+		}
+		return to;
+	}
+
+	private static boolean regionMatches(CharSequence s, int from, String separator) {
+		for (int i = 1; i < separator.length(); i++) {
+			if (s.charAt(from + i) != separator.charAt(i)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return index of whitespace before "(" in file copy, e.g. "new.txt (old.txt)";
+	 * -1 if there is no such separator or there is more than one (which is the same as splitting with "\s+\(" regex)
+	 */
+	private static int oldFilePathSeparator(String newAndOldFilePath) {
+		int result = -1;
+		int i = newAndOldFilePath.indexOf('(');
+		while (i != -1) {
+			int whitespaceStart = i;
+			while (whitespaceStart > 0 && Character.isWhitespace(newAndOldFilePath.charAt(whitespaceStart - 1))) {
+				whitespaceStart--;
+			}
+			if (whitespaceStart < i) {
+				if (result != -1) return -1;
+				result = whitespaceStart;
+			}
+			i = newAndOldFilePath.indexOf('(', i + 1);
+		}
+		boolean hasOldFilePath = result != -1 && newAndOldFilePath.indexOf('(', result) < newAndOldFilePath.length() - 1;
+		return hasOldFilePath ? result : -1;
+	}
+
 	public static String logTemplate() {
+		return logTemplate(LogQuery.Message.full, true, true);
+	}
+
+	/**
+	 * Fields which are not logged are empty in the output (the layout is the same),
+	 * e.g. if {@code withChanges} is false, commits are parsed without changes.
+	 */
+	public static String logTemplate(LogQuery.Message message, boolean withAuthor, boolean withChanges) {
 		// see https://www.selenic.com/mercurial/hg.1.html#templates
 		String commitNode = "{node}";
 		String commitParentNode = "{p1node}";
 		String commitDate = "{date|isodatesec}";
-		String author = "{person(author)}"; // use person() because author can also include email
+		String author = withAuthor ? "{person(author)}" : ""; // use person() because author can also include email
 		String description = "{desc}";
-		String filesAdded = "{join(file_adds,'" + fileSeparatorFormat + "')}";
-		String filesDeleted = "{join(file_dels,'" + fileSeparatorFormat + "')}";
-		String filesCopied = "{join(file_copies,'" + fileSeparatorFormat + "')}";
-		String filesModified = "{join(file_mods,'" + fileSeparatorFormat + "')}";
+		if (message == LogQuery.Message.subject) description = "{desc|firstline}";
+		else if (message == LogQuery.Message.none) description = "";
+		String filesAdded = withChanges ? "{join(file_adds,'" + fileSeparatorFormat + "')}" : "";
+		String filesDeleted = withChanges ? "{join(file_dels,'" + fileSeparatorFormat + "')}" : "";
+		String filesCopied = withChanges ? "{join(file_copies,'" + fileSeparatorFormat + "')}" : "";
+		String filesModified = withChanges ? "{join(file_mods,'" + fileSeparatorFormat + "')}" : "";
 
 		return "" + commitStartSeparatorFormat +
 				commitNode + commitFieldSeparatorFormat +
@@ -1,5 +1,6 @@
 package org.vcsreader.vcs.hg;
 
+import org.vcsreader.LogQuery;
 import org.vcsreader.LogResult;
 import org.vcsreader.VcsCommit;
 import org.vcsreader.lang.CommandLine;
@@ -28,10 +29,36 @@ class HgLog implements VcsCommand<LogResult> {
 
 
 	public HgLog(String hgPath, String repoFolder, TimeRange timeRange) {
+		this(hgPath, repoFolder, timeRange, true);
+	}
+
+	/**
+	 * @param withChanges if false, only commit metadata is logged and commits have no changes
+	 */
+	public HgLog(String hgPath, String repoFolder, TimeRange timeRange, boolean withChanges) {
+		this(hgPath, repoFolder, LogQuery.of(timeRange), withChanges);
+	}
+
+	/**
+	 * Logs commits selected by {@code query}. Author and message conditions are matched by hg as substrings,
+	 * so the result should be filtered with {@link LogQuery#filter(LogResult)} to match them exactly.
+	 */
+	public HgLog(String hgPath, String repoFolder, LogQuery query, boolean withChanges) {
+		this(hgPath, repoFolder, query.timeRange(), hgLog(hgPath, repoFolder, hgLogArgs(query, withChanges)));
+	}
+
+	/**
+	 * @param revset e.g. "abc123:tip" (see 'hg help revsets')
+	 */
+	public HgLog(String hgPath, String repoFolder, String revset) {
+		this(hgPath, repoFolder, TimeRange.all, hgLog(hgPath, repoFolder, hgLogArgs(revset)));
+	}
+
+	private HgLog(String hgPath, String repoFolder, TimeRange timeRange, CommandLine commandLine) {
 		this.hgPath = hgPath;
 		this.repoFolder = repoFolder;
 		this.timeRange = timeRange;
-		this.commandLine = hgLog(hgPath, repoFolder, timeRange);
+		this.commandLine = commandLine;
 	}
 
 	@Override public LogResult execute() {
@@ -59,13 +86,84 @@ class HgLog implements VcsCommand<LogResult> {
 	}
 
 	static CommandLine hgLog(String hgPath, String repoFolder, TimeRange timeRange) {
-		CommandLine commandLine = new CommandLine(
-				hgPath, "log",
+		return hgLog(hgPath, repoFolder, hgLogArgs(timeRange, true));
+	}
+
+	private static CommandLine hgLog(String hgPath, String repoFolder, List<String> args) {
+		List<String> commandAndArgs = new ArrayList<>();
+		commandAndArgs.add(hgPath);
+		commandAndArgs.addAll(args);
+		CommandLine commandLine = new CommandLine(commandAndArgs);
+		return commandLine.workingDir(repoFolder).outputCharset(UTF_8);
+	}
+
+	static List<String> hgLogArgs(TimeRange timeRange, boolean withChanges) {
+		return hgLogArgs(LogQuery.of(timeRange), withChanges);
+	}
+
+	static List<String> hgLogArgs(LogQuery query, boolean withChanges) {
+		TimeRange timeRange = query.timeRange();
+		String revset = "date(\"" + asHgInstant(timeRange.from()) + " to " + asHgInstant(timeRange.to()) + "\")";
+		if (query.skipMerges()) {
+			revset += " and not merge()";
+		}
+		if (!query.authors().isEmpty()) {
+			List<String> users = new ArrayList<>();
+			for (String author : query.authors()) {
+				users.add("user(" + quoted(author) + ")");
+			}
+			revset += " and (" + String.join(" or ", users) + ")";
+		}
+		if (query.messageText() != null) {
+			revset += " and desc(" + quoted(query.messageText()) + ")";
+		}
+		if (query.hasMaxCount()) {
+			revset = "reverse(" + revset + ")"; // so that "--limit" keeps the most recent commits
+		}
+
+		String template = HgCommitParser.logTemplate(query.message(), query.logsAuthor(), withChanges && query.logsChanges());
+		List<String> args = new ArrayList<>(hgLogArgs(revset, template));
+		if (query.hasMaxCount()) {
+			args.addAll(asList("--limit", Integer.toString(query.maxCount())));
+		}
+		// see 'hg help patterns'
+		for (String path : query.excludedPaths()) {
+			args.addAll(asList("--exclude", "path:" + path));
+		}
+		for (String path : query.paths()) {
+			args.add("path:" + (path.isEmpty() ? "." : path));
+		}
+		if (query.paths().isEmpty() && !query.excludedPaths().isEmpty()) {
+			args.add("path:.");
+		}
+		return args;
+	}
+
+	/**
+	 * See "strings" in 'hg help revsets'.
+	 */
+	private static String quoted(String s) {
+		return "'" + s.replace("\\", "\\\\").replace("'", "\\'") + "'";
+	}
+
+	static List<String> hgLogArgs(String revset) {
+		return hgLogArgs(revset, HgCommitParser.logTemplate());
+	}
+
+	private static List<String> hgLogArgs(String revset, String template) {
+		return asList(
+				"log",
 				"--encoding", UTF_8.name(),
-				"-r", "date(\"" + asHgInstant(timeRange.from()) + " to " + asHgInstant(timeRange.to()) + "\")",
-				"--template", HgCommitParser.logTemplate()
+				"-r", revset,
+				"--template", template
 		);
-		return commandLine.workingDir(repoFolder).outputCharset(UTF_8);
+	}
+
+	/**
+	 * @return revset which selects all {@code revisions}, e.g. "abc123+def456"
+	 */
+	static String revset(List<String> revisions) {
+		return String.join("+", revisions);
 	}
 
 	private static String asHgInstant(Instant instant) {
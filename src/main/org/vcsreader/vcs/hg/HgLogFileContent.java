@@ -5,7 +5,10 @@ import org.vcsreader.lang.CommandLine;
 import org.vcsreader.vcs.VcsCommand;
 
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 
+import static java.util.Arrays.asList;
 import static org.vcsreader.lang.StringUtil.trimLastNewLine;
 import static org.vcsreader.vcs.hg.HgUtil.isSuccessful;
 
@@ -49,10 +52,17 @@ class HgLogFileContent implements VcsCommand<LogFileContentResult> {
 	}
 
 	static CommandLine hgLogFileContent(String pathToHg, String repoFolder, String filePath, String revision, Charset charset) {
-		CommandLine commandLine = new CommandLine(pathToHg, "cat", "-r " + revision, filePath);
+		List<String> commandAndArgs = new ArrayList<>();
+		commandAndArgs.add(pathToHg);
+		commandAndArgs.addAll(hgLogFileContentArgs(filePath, revision));
+		CommandLine commandLine = new CommandLine(commandAndArgs);
 		return commandLine.workingDir(repoFolder).outputCharset(charset).charsetAutoDetect(true);
 	}
 
+	static List<String> hgLogFileContentArgs(String filePath, String revision) {
+		return asList("cat", "-r", revision, filePath);
+	}
+
 	@SuppressWarnings("SimplifiableIfStatement")
 	@Override public boolean equals(Object o) {
 		if (this == o) return true;
@@ -0,0 +1,87 @@
+package org.vcsreader.vcs.hg;
+
+import org.vcsreader.LogStream;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.CommandLine.RecordConsumer;
+import org.vcsreader.lang.StringPool;
+import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.QueuedLogStream;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.vcsreader.vcs.hg.HgCommitParser.commitStartSeparator;
+import static org.vcsreader.vcs.hg.HgCommitParser.parseCommit;
+import static org.vcsreader.vcs.hg.HgLog.hgLog;
+import static org.vcsreader.vcs.hg.HgUtil.containsHgRepo;
+import static org.vcsreader.vcs.hg.HgUtil.isSuccessful;
+
+/**
+ * Same as {@link HgLog} except that commits are parsed while "hg log" is running.
+ */
+@SuppressWarnings("Duplicates") // because it's similar to GitLogStream
+class HgLogStream implements VcsCommand<LogStream>, QueuedLogStream.Source {
+	private final String hgPath;
+	private final String repoFolder;
+	private final TimeRange timeRange;
+	private final boolean failFast;
+	private final CommandLine commandLine;
+
+
+	public HgLogStream(String hgPath, String repoFolder, TimeRange timeRange, boolean failFast) {
+		this.hgPath = hgPath;
+		this.repoFolder = repoFolder;
+		this.timeRange = timeRange;
+		this.failFast = failFast;
+		this.commandLine = hgLog(hgPath, repoFolder, timeRange);
+	}
+
+	@Override public LogStream execute() {
+		if (!containsHgRepo(repoFolder)) {
+			throw new VcsError("Folder doesn't contain hg repository: '" + repoFolder + "'.");
+		}
+
+		QueuedLogStream logStream = new QueuedLogStream(this, failFast);
+		StringPool stringPool = new StringPool();
+		commandLine.start(commitStartSeparator.getBytes(UTF_8), new RecordConsumer() {
+			@Override public void consume(String record) {
+				logStream.add(parseCommit(record, stringPool));
+			}
+
+			@Override public void endOfRecords() {
+				logStream.endOfCommits();
+			}
+		});
+		return logStream;
+	}
+
+	@Override public List<Exception> waitFor() {
+		commandLine.waitFor();
+		if (isSuccessful(commandLine)) {
+			return commandLine.stderr().trim().isEmpty() ? new ArrayList<>() : asList(new VcsError(commandLine.stderr()));
+		} else {
+			return asList(new VcsError(commandLine.stderr()));
+		}
+	}
+
+	@Override public String describe() {
+		return commandLine.describe();
+	}
+
+	@Override public boolean cancel() {
+		return commandLine.kill();
+	}
+
+	@Override public String toString() {
+		return "HgLogStream{" +
+				"hgPath='" + hgPath + '\'' +
+				", repoFolder='" + repoFolder + '\'' +
+				", timeRange=" + timeRange +
+				", commandLine=" + commandLine +
+				'}';
+	}
+}
@@ -0,0 +1,83 @@
+package org.vcsreader.vcs.hg;
+
+import org.vcsreader.LogQuery;
+import org.vcsreader.LogResult;
+import org.vcsreader.VcsCommit;
+import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.vcsreader.vcs.hg.HgLog.hgLogArgs;
+import static org.vcsreader.vcs.hg.HgUtil.containsHgRepo;
+
+/**
+ * Same as {@link HgLog} except that "hg log" is executed by long-running {@link HgCommandServer}.
+ */
+@SuppressWarnings("Duplicates") // because it's similar to HgLog
+class HgServerLog implements VcsCommand<LogResult> {
+	private final HgCommandServer commandServer;
+	private final String repoFolder;
+	private final TimeRange timeRange;
+	private final List<String> args;
+
+
+	public HgServerLog(HgCommandServer commandServer, String repoFolder, TimeRange timeRange) {
+		this(commandServer, repoFolder, timeRange, true);
+	}
+
+	public HgServerLog(HgCommandServer commandServer, String repoFolder, TimeRange timeRange, boolean withChanges) {
+		this(commandServer, repoFolder, LogQuery.of(timeRange), withChanges);
+	}
+
+	public HgServerLog(HgCommandServer commandServer, String repoFolder, LogQuery query, boolean withChanges) {
+		this(commandServer, repoFolder, query.timeRange(), hgLogArgs(query, withChanges));
+	}
+
+	public HgServerLog(HgCommandServer commandServer, String repoFolder, String revset) {
+		this(commandServer, repoFolder, TimeRange.all, hgLogArgs(revset));
+	}
+
+	private HgServerLog(HgCommandServer commandServer, String repoFolder, TimeRange timeRange, List<String> args) {
+		this.commandServer = commandServer;
+		this.repoFolder = repoFolder;
+		this.timeRange = timeRange;
+		this.args = args;
+	}
+
+	@Override public LogResult execute() {
+		if (!containsHgRepo(repoFolder)) {
+			throw new VcsError("Folder doesn't contain hg repository: '" + repoFolder + "'.");
+		}
+
+		HgCommandServer.Output output = commandServer.runCommand(args);
+
+		if (output.isSuccessful()) {
+			List<VcsCommit> commits = HgCommitParser.parseListOfCommits(new String(output.stdout, UTF_8));
+			List<Exception> errors = (output.stderr.trim().isEmpty() ? new ArrayList<>() : asList(new VcsError(output.stderr)));
+			return new LogResult(commits, errors);
+		} else {
+			return new LogResult(new VcsError(output.stderr));
+		}
+	}
+
+	@Override public String describe() {
+		return commandServer.describe(args);
+	}
+
+	@Override public boolean cancel() {
+		return commandServer.cancel();
+	}
+
+	@Override public String toString() {
+		return "HgServerLog{" +
+				"commandServer=" + commandServer +
+				", repoFolder='" + repoFolder + '\'' +
+				", timeRange=" + timeRange +
+				'}';
+	}
+}
@@ -0,0 +1,61 @@
+package org.vcsreader.vcs.hg;
+
+import org.vcsreader.LogFileContentResult;
+import org.vcsreader.vcs.VcsCommand;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.vcsreader.lang.CommandLine.detectCharset;
+import static org.vcsreader.lang.StringUtil.trimLastNewLine;
+import static org.vcsreader.vcs.hg.HgLogFileContent.hgLogFileContentArgs;
+
+/**
+ * Same as {@link HgLogFileContent} except that "hg cat" is executed by long-running {@link HgCommandServer}.
+ */
+@SuppressWarnings("Duplicates") // because it's similar to HgLogFileContent
+class HgServerLogFileContent implements VcsCommand<LogFileContentResult> {
+	private static final int maxBufferForCharsetDetection = 8192;
+
+	private final HgCommandServer commandServer;
+	private final String filePath;
+	private final String revision;
+	private final Charset charset;
+	private final List<String> args;
+
+
+	public HgServerLogFileContent(HgCommandServer commandServer, String filePath, String revision, Charset charset) {
+		this.commandServer = commandServer;
+		this.filePath = filePath;
+		this.revision = revision;
+		this.charset = charset;
+		this.args = hgLogFileContentArgs(filePath, revision);
+	}
+
+	@Override public LogFileContentResult execute() {
+		HgCommandServer.Output output = commandServer.runCommand(args);
+		if (output.isSuccessful()) {
+			Charset detectedCharset = detectCharset(output.stdout, maxBufferForCharsetDetection);
+			return new LogFileContentResult(trimLastNewLine(new String(output.stdout, detectedCharset == null ? charset : detectedCharset)));
+		} else {
+			return new LogFileContentResult(output.stderr, output.exitCode);
+		}
+	}
+
+	@Override public String describe() {
+		return commandServer.describe(args);
+	}
+
+	@Override public boolean cancel() {
+		return commandServer.cancel();
+	}
+
+	@Override public String toString() {
+		return "HgServerLogFileContent{" +
+				"commandServer=" + commandServer +
+				", filePath='" + filePath + '\'' +
+				", revision='" + revision + '\'' +
+				", charset=" + charset +
+				'}';
+	}
+}
@@ -10,6 +10,8 @@ public class HgSettings {
 	private final String hgPath;
 	private final Charset defaultFileCharset;
 	private final boolean failFast;
+	private final boolean useCommandServer;
+	private final boolean lazyChanges;
 
 
 	/**
@@ -20,25 +22,52 @@ public class HgSettings {
 	 *                           otherwise will aggregate all exceptions/errors into result object
 	 */
 	public HgSettings(@NotNull String hgPath, @NotNull Charset defaultFileCharset, boolean failFast) {
+		this(hgPath, defaultFileCharset, failFast, false);
+	}
+
+	/**
+	 * @param useCommandServer if true, log and file content commands will be executed by long-running
+	 *                         "hg serve --cmdserver pipe" process instead of starting hg process for each command
+	 */
+	public HgSettings(@NotNull String hgPath, @NotNull Charset defaultFileCharset, boolean failFast, boolean useCommandServer) {
+		this(hgPath, defaultFileCharset, failFast, useCommandServer, false);
+	}
+
+	/**
+	 * @param lazyChanges if true, log only reads commit metadata and changes are loaded on first access
+	 *                    to {@link org.vcsreader.VcsCommit#getChanges()} (see {@link org.vcsreader.vcs.LazyChanges})
+	 */
+	public HgSettings(@NotNull String hgPath, @NotNull Charset defaultFileCharset, boolean failFast,
+	                  boolean useCommandServer, boolean lazyChanges) {
 		this.hgPath = hgPath;
 		this.defaultFileCharset = defaultFileCharset;
 		this.failFast = failFast;
+		this.useCommandServer = useCommandServer;
+		this.lazyChanges = lazyChanges;
 	}
 
 	public static HgSettings defaults() {
-		return new HgSettings("hg", UTF_8, true);
+		return new HgSettings("hg", UTF_8, true, false, false);
 	}
 
 	public HgSettings withHgPath(String value) {
-		return new HgSettings(value, defaultFileCharset, failFast);
+		return new HgSettings(value, defaultFileCharset, failFast, useCommandServer, lazyChanges);
 	}
 
 	public HgSettings withDefaultFileCharset(Charset value) {
-		return new HgSettings(hgPath, value, failFast);
+		return new HgSettings(hgPath, value, failFast, useCommandServer, lazyChanges);
 	}
 
 	public HgSettings withFailFast(boolean value) {
-		return new HgSettings(hgPath, defaultFileCharset, value);
+		return new HgSettings(hgPath, defaultFileCharset, value, useCommandServer, lazyChanges);
+	}
+
+	public HgSettings withCommandServer(boolean value) {
+		return new HgSettings(hgPath, defaultFileCharset, failFast, value, lazyChanges);
+	}
+
+	public HgSettings withLazyChanges(boolean value) {
+		return new HgSettings(hgPath, defaultFileCharset, failFast, useCommandServer, value);
 	}
 
 	@NotNull public String hgPath() {
@@ -53,6 +82,14 @@ public class HgSettings {
 		return failFast;
 	}
 
+	public boolean useCommandServer() {
+		return useCommandServer;
+	}
+
+	public boolean lazyChanges() {
+		return lazyChanges;
+	}
+
 	@Override public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
@@ -60,6 +97,8 @@ public class HgSettings {
 		HgSettings that = (HgSettings) o;
 
 		return failFast == that.failFast &&
+				useCommandServer == that.useCommandServer &&
+				lazyChanges == that.lazyChanges &&
 				hgPath.equals(that.hgPath) &&
 				defaultFileCharset.equals(that.defaultFileCharset);
 	}
@@ -68,6 +107,8 @@ public class HgSettings {
 		int result = hgPath.hashCode();
 		result = 31 * result + defaultFileCharset.hashCode();
 		result = 31 * result + (failFast ? 1 : 0);
+		result = 31 * result + (useCommandServer ? 1 : 0);
+		result = 31 * result + (lazyChanges ? 1 : 0);
 		return result;
 	}
 
@@ -76,6 +117,8 @@ public class HgSettings {
 				"hgPath='" + hgPath + '\'' +
 				", defaultFileCharset=" + defaultFileCharset +
 				", failFast=" + failFast +
+				", useCommandServer=" + useCommandServer +
+				", lazyChanges=" + lazyChanges +
 				'}';
 	}
 }
@@ -4,18 +4,28 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.vcsreader.CloneResult;
 import org.vcsreader.LogFileContentResult;
+import org.vcsreader.LogQuery;
 import org.vcsreader.LogResult;
+import org.vcsreader.LogStream;
 import org.vcsreader.UpdateResult;
 import org.vcsreader.VcsRoot;
 import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.FilteredLog;
+import org.vcsreader.vcs.LazyChangesLog;
+import org.vcsreader.vcs.LogAfterRevision;
+import org.vcsreader.vcs.QueuedLogStream;
 import org.vcsreader.vcs.VcsCommand;
 import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 public class HgVcsRoot implements VcsRoot, VcsCommand.Observer {
 	@NotNull private final String repoFolder;
 	@Nullable private final String repoUrl;
 	@NotNull private final HgSettings settings;
 	private final VcsCommand.Listener listener;
+	@Nullable private final HgCommandServer commandServer;
 	private volatile VcsCommand lastCommand;
 
 
@@ -39,31 +49,123 @@ public class HgVcsRoot implements VcsRoot, VcsCommand.Observer {
 
 	private HgVcsRoot(@NotNull String repoFolder, @Nullable String repoUrl,
 	                  @NotNull HgSettings settings, VcsCommand.Listener listener) {
+		this(repoFolder, repoUrl, settings, listener,
+				settings.useCommandServer() ? new HgCommandServer(settings.hgPath(), repoFolder) : null);
+	}
+
+	private HgVcsRoot(@NotNull String repoFolder, @Nullable String repoUrl, @NotNull HgSettings settings,
+	                  VcsCommand.Listener listener, @Nullable HgCommandServer commandServer) {
 		this.repoFolder = repoFolder;
 		this.repoUrl = repoUrl;
 		this.settings = settings;
 		this.listener = listener;
+		this.commandServer = commandServer;
 	}
 
 	@Override public HgVcsRoot withListener(VcsCommand.Listener listener) {
-		return new HgVcsRoot(repoFolder, repoUrl, settings, listener);
+		return new HgVcsRoot(repoFolder, repoUrl, settings, listener, commandServer);
 	}
 
 	@Override public CloneResult cloneIt() {
 		return execute(new HgClone(settings.hgPath(), repoUrl, repoFolder), CloneResult.adapter);
 	}
 
+	@Override public CompletableFuture<CloneResult> cloneAsync(Executor executor) {
+		return executeAsync(new HgClone(settings.hgPath(), repoUrl, repoFolder), CloneResult.adapter, executor);
+	}
+
 	@Override public UpdateResult update() {
 		return execute(new HgUpdate(settings.hgPath(), repoFolder), UpdateResult.adapter);
 	}
 
+	@Override public CompletableFuture<UpdateResult> updateAsync(Executor executor) {
+		return executeAsync(new HgUpdate(settings.hgPath(), repoFolder), UpdateResult.adapter, executor);
+	}
+
 	@Override public LogResult log(TimeRange timeRange) {
-		return execute(new HgLog(settings.hgPath(), repoFolder, timeRange), LogResult.adapter);
+		return log(LogQuery.of(timeRange));
+	}
+
+	/**
+	 * Uses "hg log" with revset for time range, authors and message (e.g. "date(...) and user('name')"),
+	 * file patterns for paths and template with the requested fields.
+	 * Authors are also checked after parsing because hg matches them as substrings.
+	 */
+	@Override public LogResult log(LogQuery query) {
+		return execute(hgLog(query), LogResult.adapter);
+	}
+
+	@Override public CompletableFuture<LogResult> logAsync(TimeRange timeRange, Executor executor) {
+		return executeAsync(hgLog(LogQuery.of(timeRange)), LogResult.adapter, executor);
+	}
+
+	private VcsCommand<LogResult> hgLog(LogQuery query) {
+		// message is matched by hg exactly and can be logged partially (see LogQuery#message()),
+		// authors are matched by hg as substrings so they're checked again after parsing
+		LogQuery filter = query.withoutPaths().withMessageText(null);
+		LogQuery hgQuery = filter.hasCommitFilters() ? query.withMaxCount(LogQuery.noMaxCount) : query;
+
+		VcsCommand<LogResult> hgLog;
+		if (settings.lazyChanges() && query.logsChanges()) {
+			hgLog = new LazyChangesLog(
+					hgLog(hgQuery, false),
+					revisions -> hgLog(HgLog.revset(revisions)),
+					listener
+			);
+		} else {
+			hgLog = hgLog(hgQuery, true);
+		}
+		return filter.hasFilters() ? new FilteredLog(hgLog, filter) : hgLog;
+	}
+
+	private VcsCommand<LogResult> hgLog(LogQuery query, boolean withChanges) {
+		if (commandServer != null) {
+			return new HgServerLog(commandServer, repoFolder, query, withChanges);
+		}
+		return new HgLog(settings.hgPath(), repoFolder, query, withChanges);
+	}
+
+	private VcsCommand<LogResult> hgLog(String revset) {
+		if (commandServer != null) {
+			return new HgServerLog(commandServer, repoFolder, revset);
+		}
+		return new HgLog(settings.hgPath(), repoFolder, revset);
+	}
+
+	/**
+	 * Uses "hg log -r revision:tip", i.e. logs commits with local revision numbers greater than {@code revision}
+	 * (including commits from other branches).
+	 */
+	@Override public LogResult logAfter(@Nullable String revision) {
+		String revset = (revision == null ? "all()" : revision + ":tip");
+		return execute(new LogAfterRevision(hgLog(revset), revision), LogResult.adapter);
+	}
+
+	@Override public LogStream logStream(TimeRange timeRange) {
+		return execute(new HgLogStream(settings.hgPath(), repoFolder, timeRange, settings.failFast()), QueuedLogStream.adapter);
 	}
 
 	@Override public LogFileContentResult logFileContent(String filePath, String revision) {
-		HgLogFileContent logFileContent = new HgLogFileContent(settings.hgPath(), repoFolder, filePath, revision, settings.defaultFileCharset());
-		return execute(logFileContent, LogFileContentResult.adapter);
+		return execute(hgLogFileContent(filePath, revision), LogFileContentResult.adapter);
+	}
+
+	@Override public CompletableFuture<LogFileContentResult> logFileContentAsync(String filePath, String revision, Executor executor) {
+		return executeAsync(hgLogFileContent(filePath, revision), LogFileContentResult.adapter, executor);
+	}
+
+	private VcsCommand<LogFileContentResult> hgLogFileContent(String filePath, String revision) {
+		if (commandServer != null) {
+			return new HgServerLogFileContent(commandServer, filePath, revision, settings.defaultFileCharset());
+		}
+		return new HgLogFileContent(settings.hgPath(), repoFolder, filePath, revision, settings.defaultFileCharset());
+	}
+
+	/**
+	 * Stops hg command server process (see {@link HgSettings#useCommandServer()}).
+	 * It's ok to use this root after it was closed, the process will be started again if needed.
+	 */
+	@Override public void close() {
+		if (commandServer != null) commandServer.close();
 	}
 
 	private <T> T execute(VcsCommand<T> vcsCommand, ExceptionWrapper<T> exceptionWrapper) {
@@ -75,6 +177,10 @@ public class HgVcsRoot implements VcsRoot, VcsCommand.Observer {
 		}
 	}
 
+	private <T> CompletableFuture<T> executeAsync(VcsCommand<T> vcsCommand, ExceptionWrapper<T> exceptionWrapper, Executor executor) {
+		return VcsCommand.executeAsync(vcsCommand, exceptionWrapper, listener, settings.failFast(), executor);
+	}
+
 	@Override @NotNull public String repoFolder() {
 		return repoFolder;
 	}
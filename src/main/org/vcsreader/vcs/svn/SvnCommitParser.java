@@ -1,8 +1,9 @@
 package org.vcsreader.vcs.svn;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.vcsreader.VcsCommit;
-import org.vcsreader.lang.DateTimeUtil;
+import org.vcsreader.lang.StringPool;
 import org.vcsreader.vcs.Change;
 import org.vcsreader.vcs.Commit;
 import org.xml.sax.Attributes;
@@ -14,27 +15,42 @@ import org.xml.sax.helpers.DefaultHandler;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.io.StringReader;
 import java.time.Instant;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static java.lang.Boolean.parseBoolean;
+import static org.vcsreader.lang.DateTimeUtil.parseIsoDateTime;
 import static org.vcsreader.VcsChange.Type.*;
 import static org.vcsreader.VcsChange.noFilePath;
 import static org.vcsreader.VcsChange.noRevision;
 
 class SvnCommitParser {
+	private static final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+
 	static List<VcsCommit> parseCommits(String xml) {
-		try {
-			CommitReadingHandler commitReadingHandler = new CommitReadingHandler();
+		return parseCommits(xml, new StringPool());
+	}
 
-			SAXParserFactory parserFactory = SAXParserFactory.newInstance();
-			XMLReader xmlReader = parserFactory.newSAXParser().getXMLReader();
-			xmlReader.setContentHandler(commitReadingHandler);
-			xmlReader.parse(new InputSource(new StringReader(xml)));
+	/**
+	 * @param stringPool pool for revisions, authors and file paths which are repeated across commits
+	 */
+	static List<VcsCommit> parseCommits(String xml, StringPool stringPool) {
+		return parseCommits(xml, "", stringPool);
+	}
 
-			return commitReadingHandler.commits;
+	/**
+	 * @param subPath path of logged folder relative to repository root with trailing "/" (or empty string for the root),
+	 *                changes outside of the folder are skipped and file paths are relative to the folder
+	 */
+	static List<VcsCommit> parseCommits(String xml, String subPath, StringPool stringPool) {
+		List<VcsCommit> commits = new ArrayList<>();
+		try {
+			parse(new InputSource(new StringReader(xml)), subPath, stringPool, commits::add);
+			return commits;
 		} catch (SAXException e) {
 			throw new RuntimeException("Failed to parse xml: " + xml, e);
 		} catch (ParserConfigurationException | IOException e) {
@@ -42,60 +58,92 @@ class SvnCommitParser {
 		}
 	}
 
+	/**
+	 * Parses commits from xml as soon as "logentry" element is read from the input stream.
+	 * Empty input is ignored (e.g. svn doesn't output anything if it failed to run the command).
+	 *
+	 * @param subPath see {@link #parseCommits(String, String, StringPool)}
+	 */
+	static void parseCommits(InputStream xml, String subPath, StringPool stringPool, Consumer<VcsCommit> consumer) {
+		try {
+			PushbackInputStream inputStream = new PushbackInputStream(xml);
+			int firstByte = inputStream.read();
+			if (firstByte == -1) return;
+			inputStream.unread(firstByte);
+
+			parse(new InputSource(inputStream), subPath, stringPool, consumer);
+		} catch (SAXException | ParserConfigurationException | IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void parse(InputSource inputSource, String subPath, StringPool stringPool, Consumer<VcsCommit> consumer)
+			throws ParserConfigurationException, SAXException, IOException {
+		XMLReader xmlReader;
+		synchronized (parserFactory) { // factory is not guaranteed to be thread-safe
+			xmlReader = parserFactory.newSAXParser().getXMLReader();
+		}
+		xmlReader.setContentHandler(new CommitReadingHandler(subPath, stringPool, consumer));
+		xmlReader.parse(inputSource);
+	}
+
+	/**
+	 * Changes outside of {@code subPath} are skipped while parsing so that they're never allocated.
+	 * If file was moved across the boundary of {@code subPath}, the change is logged as added or deleted file.
+	 */
 	private static class CommitReadingHandler extends DefaultHandler {
-		private final List<VcsCommit> commits = new ArrayList<>();
+		private final String subPath;
+		private final StringPool stringPool;
+		private final Consumer<VcsCommit> consumer;
 
 		private String revision;
 		private String revisionBefore;
 		private String author;
 		private Instant dateTime;
-		private String commitDateString;
 		private String comment;
 		private List<Change> changes = new ArrayList<>();
 
-		private String filePath;
 		private SvnChangeType changeType;
 
-		private boolean expectAuthor;
-		private boolean expectDate;
-		private boolean expectComment;
-		private boolean expectFileName;
+		/**
+		 * Text of the current element (SAX can pass it in several chunks), reused to avoid allocations.
+		 */
+		private final StringBuilder text = new StringBuilder();
+		private boolean expectText;
 		private boolean isFileChange;
 		private boolean isTextModification;
 		private boolean isCopy;
 		private String copyFromFilePath;
 		private String copyFromRevision;
 		private final Set<String> movedPaths = new HashSet<>();
-
-		private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+		private final Set<Change> deletes = Collections.newSetFromMap(new IdentityHashMap<>());
 
 
-		private CommitReadingHandler() {
+		private CommitReadingHandler(String subPath, StringPool stringPool, Consumer<VcsCommit> consumer) {
+			this.subPath = subPath;
+			this.stringPool = stringPool;
+			this.consumer = consumer;
 		}
 
 		@Override public void startElement(@NotNull String uri, @NotNull String localName,
 		                                   @NotNull String name, @NotNull Attributes attributes) throws SAXException {
 			if (name.equals("logentry")) {
-				revision = attributes.getValue("revision");
-				revisionBefore = previous(revision);
-			} else if (name.equals("author")) {
-				expectAuthor = true;
+				revision = stringPool.intern(attributes.getValue("revision"));
+				revisionBefore = stringPool.intern(previous(revision));
 				author = "";
-			} else if (name.equals("date")) {
-				expectDate = true;
-				commitDateString = "";
-			} else if (name.equals("msg")) {
-				expectComment = true;
-				comment = "";
+				comment = ""; // there is no "msg" element in "svn log --quiet" output
+			} else if (name.equals("author") || name.equals("date") || name.equals("msg")) {
+				expectText = true;
+				text.setLength(0);
 			} else if (name.equals("path")) {
 				changeType = asChangeType(attributes.getValue("action"));
 				String kind = attributes.getValue("kind");
 				isFileChange = (kind == null || kind.isEmpty() || "file".equals(kind));
 				isCopy = attributes.getValue("copyfrom-path") != null;
-				copyFromFilePath = trimPath(attributes.getValue("copyfrom-path"));
-				copyFromRevision = attributes.getValue("copyfrom-rev");
-				filePath = "";
-				expectFileName = true;
+				copyFromFilePath = isCopy ? subPathRelative(attributes.getValue("copyfrom-path")) : null;
+				copyFromRevision = stringPool.intern(attributes.getValue("copyfrom-rev"));
+				expectText = true;
+				text.setLength(0);
 
 				boolean isPropertiesModification = parseBoolean(attributes.getValue("prop-mods"));
 				isTextModification =
@@ -105,46 +153,58 @@ class SvnCommitParser {
 		}
 
 		@Override public void characters(char[] ch, int start, int length) throws SAXException {
-			if (expectAuthor) {
-				author += String.valueOf(ch, start, length);
-			} else if (expectDate) {
-				commitDateString += String.valueOf(ch, start, length);
-			} else if (expectComment) {
-				comment += String.valueOf(ch, start, length);
-			} else if (expectFileName) {
-				filePath += trimPath(String.valueOf(ch, start, length));
+			if (expectText) {
+				text.append(ch, start, length);
 			}
 		}
 
-		private static String trimPath(String path) {
-			if (path == null || path.length() < 1) return null;
-			return path.charAt(0) == '/' ? path.substring(1) : null;
+		/**
+		 * @param path file path from repository root (with or without leading "/")
+		 * @return file path relative to {@link #subPath} or null if file is outside of it
+		 */
+		@Nullable private String subPathRelative(CharSequence path) {
+			int start = (path.length() > 0 && path.charAt(0) == '/') ? 1 : 0;
+			if (path.length() - start < subPath.length()) return null;
+			for (int i = 0; i < subPath.length(); i++) {
+				if (path.charAt(start + i) != subPath.charAt(i)) return null;
+			}
+			return stringPool.intern(path, start + subPath.length(), path.length());
 		}
 
 		@Override
 		public void endElement(String uri, @NotNull String localName, @NotNull String name) throws SAXException {
 			if (name.equals("logentry")) {
-				changes.removeIf(it -> it.getType() == Deleted && movedPaths.contains(it.getFilePathBefore()));
+				if (!movedPaths.isEmpty()) {
+					changes.removeIf(it -> deletes.contains(it) && movedPaths.contains(it.getFilePathBefore()));
+				}
 
-				commits.add(new Commit(revision, revisionBefore, dateTime, author, comment, new ArrayList<>(changes)));
+				consumer.accept(new Commit(revision, revisionBefore, dateTime, author, comment, new ArrayList<>(changes)));
 				changes.clear();
 				movedPaths.clear();
+				deletes.clear();
 
 			} else if (name.equals("path")) {
-				expectFileName = false;
-				if (isFileChange) {
-					if (isCopy) {
+				expectText = false;
+				String filePath = isFileChange ? subPathRelative(text) : null;
+				if (isCopy && isFileChange) {
+					if (filePath != null && copyFromFilePath != null) {
 						changes.add(new Change(Moved, filePath, copyFromFilePath, revision, copyFromRevision));
 						movedPaths.add(copyFromFilePath);
-
-					} else if (changeType == SvnChangeType.Added) {
+					} else if (filePath != null) {
+						changes.add(new Change(Added, filePath, noFilePath, revision, copyFromRevision));
+					} else if (copyFromFilePath != null) {
+						changes.add(new Change(Deleted, noFilePath, copyFromFilePath, revision, copyFromRevision));
+						movedPaths.add(copyFromFilePath);
+					}
+				} else if (filePath != null) {
+					if (changeType == SvnChangeType.Added) {
 						changes.add(new Change(Added, filePath, revision));
 
 					} else if (changeType == SvnChangeType.Delete) {
-						changes.add(new Change(Deleted, noFilePath, filePath, revision, revisionBefore));
+						addDelete(filePath);
 
 					} else if (changeType == SvnChangeType.Replaced) {
-						changes.add(new Change(Deleted, noFilePath, filePath, revision, revisionBefore));
+						addDelete(filePath);
 						changes.add(new Change(Added, filePath, revision));
 
 					} else {
@@ -154,18 +214,27 @@ class SvnCommitParser {
 						}
 					}
 				}
-			} else if (name.equals("path")) {
-				expectFileName = false;
 			} else if (name.equals("author")) {
-				expectAuthor = false;
+				expectText = false;
+				author = stringPool.intern(text, 0, text.length());
 			} else if (name.equals("msg")) {
-				expectComment = false;
+				expectText = false;
+				comment = text.toString();
 			} else if (name.equals("date")) {
-				expectDate = false;
-				dateTime = dateTimeFormatter.parse(commitDateString, DateTimeUtil::asInstant);
+				expectText = false;
+				dateTime = parseIsoDateTime(text);
 			}
 		}
 
+		/**
+		 * Deletes of moved files are removed at the end of commit because "path" elements can be in any order.
+		 */
+		private void addDelete(String filePath) {
+			Change change = new Change(Deleted, noFilePath, filePath, revision, revisionBefore);
+			changes.add(change);
+			deletes.add(change);
+		}
+
 		private static SvnChangeType asChangeType(String action) {
 			if (action.equals("A")) return SvnChangeType.Added;
 			else if (action.equals("D")) return SvnChangeType.Delete;
@@ -13,36 +13,57 @@ class SvnInfo implements VcsCommand<SvnInfo.Result> {
 	public static ExceptionWrapper<Result> adapter = Result::new;
 	private final String svnPath;
 	private final String repoUrl;
+	private final String revision;
 	private final CommandLine commandLine;
 
 	public SvnInfo(String svnPath, String repoUrl) {
+		this(svnPath, repoUrl, null);
+	}
+
+	/**
+	 * @param revision revision of {@code repoUrl} in any format supported by svn (e.g. "{2014-08-10T00:00:00Z}"
+	 *                 to find the most recent revision as of the date), or null for HEAD revision
+	 */
+	public SvnInfo(String svnPath, String repoUrl, @Nullable String revision) {
 		this.svnPath = svnPath;
 		this.repoUrl = repoUrl;
-		this.commandLine = svnInfo(svnPath, repoUrl);
+		this.revision = revision;
+		this.commandLine = svnInfo(svnPath, repoUrl, revision);
 	}
 
 	@Override public SvnInfo.Result execute() {
 		commandLine.execute();
 
-		if (!isSuccessful(commandLine)) return new Result(new VcsError(commandLine.stdout()));
+		if (!isSuccessful(commandLine)) return new Result(new VcsError(commandLine.stderr()));
 
-		String repoRoot = parse(commandLine.stdout());
+		String repoRoot = parse(commandLine.stdout(), "Repository Root:");
+		String revision = parse(commandLine.stdout(), "Revision:");
 		if (repoRoot == null) {
 			return new Result(new VcsError("Didn't find svn root in output for " + repoUrl));
+		} else if (revision == null) {
+			return new Result(new VcsError("Didn't find svn revision in output for " + repoUrl));
 		} else {
-			return new Result(repoRoot);
+			return new Result(repoRoot, revision);
 		}
 	}
 
 	static CommandLine svnInfo(String svnPath, String repoUrl) {
-		return newExternalCommand(svnPath, "info", repoUrl);
+		return svnInfo(svnPath, repoUrl, null);
+	}
+
+	private static CommandLine svnInfo(String svnPath, String repoUrl, @Nullable String revision) {
+		if (revision == null) {
+			return newExternalCommand(svnPath, "info", repoUrl);
+		} else {
+			return newExternalCommand(svnPath, "info", "-r", revision, repoUrl);
+		}
 	}
 
-	@Nullable private static String parse(String stdout) {
+	@Nullable private static String parse(String stdout, String field) {
 		String[] lines = stdout.split("\n");
 		for (String line : lines) {
-			if (line.contains("Repository Root:")) {
-				return line.replace("Repository Root:", "").trim();
+			if (line.startsWith(field)) {
+				return line.replace(field, "").trim();
 			}
 		}
 		return null;
@@ -65,6 +86,7 @@ class SvnInfo implements VcsCommand<SvnInfo.Result> {
 
 		if (repoUrl != null ? !repoUrl.equals(svnInfo.repoUrl) : svnInfo.repoUrl != null) return false;
 		if (svnPath != null ? !svnPath.equals(svnInfo.svnPath) : svnInfo.svnPath != null) return false;
+		if (revision != null ? !revision.equals(svnInfo.revision) : svnInfo.revision != null) return false;
 
 		return true;
 	}
@@ -72,6 +94,7 @@ class SvnInfo implements VcsCommand<SvnInfo.Result> {
 	@Override public int hashCode() {
 		int result = svnPath != null ? svnPath.hashCode() : 0;
 		result = 31 * result + (repoUrl != null ? repoUrl.hashCode() : 0);
+		result = 31 * result + (revision != null ? revision.hashCode() : 0);
 		return result;
 	}
 
@@ -79,27 +102,31 @@ class SvnInfo implements VcsCommand<SvnInfo.Result> {
 		return "SvnInfo{" +
 				"svnPath='" + svnPath + '\'' +
 				", repoUrl='" + repoUrl + '\'' +
+				", revision='" + revision + '\'' +
 				'}';
 	}
 
 
 	public static class Result {
 		public static final String unknownRoot = "";
+		public static final String unknownRevision = "";
 
 		public final String repoRoot;
+		public final String revision;
 		public final Exception exception;
 
 
-		public Result(String repoRoot) {
-			this(repoRoot, null);
+		public Result(String repoRoot, String revision) {
+			this(repoRoot, revision, null);
 		}
 
 		public Result(Exception exception) {
-			this(unknownRoot, exception);
+			this(unknownRoot, unknownRevision, exception);
 		}
 
-		private Result(String repoRoot, Exception exception) {
+		private Result(String repoRoot, String revision, Exception exception) {
 			this.repoRoot = repoRoot;
+			this.revision = revision;
 			this.exception = exception;
 		}
 
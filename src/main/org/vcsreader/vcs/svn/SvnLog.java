@@ -1,11 +1,12 @@
 package org.vcsreader.vcs.svn;
 
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogQuery;
 import org.vcsreader.LogResult;
-import org.vcsreader.VcsChange;
 import org.vcsreader.VcsCommit;
 import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.StringPool;
 import org.vcsreader.lang.TimeRange;
-import org.vcsreader.vcs.Change;
 import org.vcsreader.vcs.VcsCommand;
 import org.vcsreader.vcs.VcsError;
 
@@ -14,9 +15,12 @@ import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.time.ZoneOffset.UTC;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.vcsreader.vcs.svn.SvnUtil.isSuccessful;
 import static org.vcsreader.vcs.svn.SvnUtil.newExternalCommand;
 
@@ -26,41 +30,136 @@ import static org.vcsreader.vcs.svn.SvnUtil.newExternalCommand;
 class SvnLog implements VcsCommand<LogResult> {
 	private static final String minSvnDate = "1970-01-01";
 	private static final String maxSvnDate = "2999-01-01";
+	// Svn supports any ISO 8601 date format (https://en.wikipedia.org/wiki/ISO_8601).
+	private static final DateTimeFormatter svnDateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZone(UTC);
 
 	private final String pathToSvn;
 	private final String repoUrl;
 	private final String repoRoot;
 	private final TimeRange timeRange;
 	private final boolean useMergeHistory;
-	private final boolean quoteDateRange;
+	private final boolean allowMissingPath;
 	private final CommandLine commandLine;
 
 
-	public SvnLog(String pathToSvn, String repoUrl, String repoRoot, TimeRange timeRange,
-	              boolean useMergeHistory, boolean quoteDateRange) {
+	/**
+	 * Logs commits within time range of {@code query} using its paths as targets (i.e. "svn log URL path1 path2")
+	 * and max count as "--limit". Other query conditions are not supported by "svn log"
+	 * and should be checked with {@link LogQuery#filter(LogResult)}
+	 * (message text is passed to "--search" to skip commits which can't match it).
+	 * Of the logged fields, only changes ("--verbose") and message ("--quiet") can be omitted,
+	 * though changes are always logged if query has excluded paths and message if query has message text.
+	 * <p>
+	 * Commits are logged by revision range, i.e. "svn log -r N:M", where revisions are the most recent ones
+	 * as of time range dates so the range can include one commit before and one commit at the end of time range
+	 * (these are skipped, see {@link #isWithin}). For this reason limit is one more than max count.
+	 *
+	 * @param fromRevision     the most recent revision as of the start of time range
+	 * @param toRevision       the most recent revision as of the end of time range
+	 * @param withChanges      if false, "svn log" is executed without "--verbose" and commits have no changes
+	 * @param allowMissingPath if true, no commits are logged when {@code repoUrl} doesn't exist in {@code toRevision}
+	 *                         (e.g. for revision window before the path was created), otherwise it's an error
+	 */
+	public SvnLog(String pathToSvn, String repoUrl, String repoRoot, LogQuery query, String fromRevision, String toRevision,
+	              boolean useMergeHistory, boolean withChanges, boolean allowMissingPath) {
+		this.pathToSvn = pathToSvn;
+		this.repoUrl = repoUrl;
+		this.repoRoot = repoRoot;
+		this.timeRange = query.timeRange();
+		this.useMergeHistory = useMergeHistory;
+		this.allowMissingPath = allowMissingPath;
+		this.commandLine = svnLog(
+				pathToSvn, targets(repoUrl, query.paths()),
+				"-r", query.hasMaxCount() ? toRevision + ":" + fromRevision : fromRevision + ":" + toRevision,
+				useMergeHistory,
+				withChanges && (query.logsChanges() || !query.excludedPaths().isEmpty()),
+				query.message() != LogQuery.Message.none || query.messageText() != null,
+				query.hasMaxCount() ? query.maxCount() + 1 : LogQuery.noMaxCount,
+				query.messageText()
+		);
+	}
+
+	/**
+	 * Logs commits from {@code fromRevision} (inclusive) to HEAD, i.e. "svn log -r N:HEAD".
+	 */
+	public SvnLog(String pathToSvn, String repoUrl, String repoRoot, String fromRevision, boolean useMergeHistory) {
+		this.pathToSvn = pathToSvn;
+		this.repoUrl = repoUrl;
+		this.repoRoot = repoRoot;
+		this.timeRange = TimeRange.all;
+		this.useMergeHistory = useMergeHistory;
+		this.allowMissingPath = false;
+		this.commandLine = svnLog(pathToSvn, singletonList(repoUrl), "-r", fromRevision + ":HEAD", useMergeHistory, true, true, LogQuery.noMaxCount, null);
+	}
+
+	/**
+	 * Logs commits with changes for each of {@code revisions}, i.e. "svn log -c N,M".
+	 */
+	public SvnLog(String pathToSvn, String repoUrl, String repoRoot, List<String> revisions, boolean useMergeHistory) {
 		this.pathToSvn = pathToSvn;
 		this.repoUrl = repoUrl;
 		this.repoRoot = repoRoot;
-		this.timeRange = timeRange;
+		this.timeRange = TimeRange.all;
 		this.useMergeHistory = useMergeHistory;
-		this.quoteDateRange = quoteDateRange;
-		this.commandLine = svnLog(pathToSvn, repoUrl, timeRange, useMergeHistory, quoteDateRange);
+		this.allowMissingPath = false;
+		this.commandLine = svnLog(pathToSvn, singletonList(repoUrl), "-c", String.join(",", revisions), useMergeHistory, true, true, LogQuery.noMaxCount, null);
 	}
 
+	/**
+	 * Parses commits from "svn log" stdout while the process is running,
+	 * so that xml output is never loaded into memory as a whole.
+	 */
 	@Override public LogResult execute() {
-		commandLine.execute();
+		String subPath = subPathOf(repoUrl, repoRoot);
+		StringPool stringPool = new StringPool();
+		List<VcsCommit> commits = new ArrayList<>();
+		AtomicReference<RuntimeException> parseError = new AtomicReference<>();
+		commandLine.start(stdout -> {
+			try {
+				SvnCommitParser.parseCommits(stdout, subPath, stringPool, commit -> {
+					if (isWithin(timeRange, commit)) {
+						commits.add(commit);
+					}
+				});
+			} catch (RuntimeException e) {
+				// output of failed command can be incomplete xml, so the error is reported after checking stderr
+				parseError.set(e);
+			}
+		});
+		commandLine.waitFor();
 
 		if (isSuccessful(commandLine)) {
-			List<VcsCommit> allCommits = SvnCommitParser.parseCommits(commandLine.stdout());
-			List<VcsCommit> commits = transformToSubPathCommits(deleteCommitsBefore(timeRange.from(), allCommits));
+			if (parseError.get() != null) throw parseError.get();
 			return new LogResult(commits);
+		} else if (allowMissingPath && isMissingPathError(commandLine.stderr())) {
+			return new LogResult();
 		} else {
 			return new LogResult(new VcsError(commandLine.stderr()));
 		}
 	}
 
+	/**
+	 * E160013 is "path not found" and E195012 is "unable to find repository location"
+	 * (see https://subversion.apache.org/docs/api/latest/svn__error__codes_8h.html).
+	 */
+	private static boolean isMissingPathError(String stderr) {
+		return stderr.contains("E160013") || stderr.contains("E195012");
+	}
+
 	static CommandLine svnLog(String pathToSvn, String repoUrl, TimeRange timeRange,
 	                          boolean useMergeHistory, boolean quoteDateRange) {
+		return svnLog(pathToSvn, singletonList(repoUrl), "-r", svnDateRange(timeRange, quoteDateRange),
+				useMergeHistory, true, true, LogQuery.noMaxCount, null);
+	}
+
+	/**
+	 * @param targets repository URL optionally followed by paths relative to it
+	 * @param search  text which is passed to "--search" so that svn skips commits which can't match it;
+	 *                svn also matches it against author, date and paths, so commits must be checked after parsing
+	 */
+	private static CommandLine svnLog(String pathToSvn, List<String> targets, String revisionOption, String revisions,
+	                                  boolean useMergeHistory, boolean withChanges, boolean withMessage, int limit,
+	                                  @Nullable String search) {
 		// see http://svnbook.red-bean.com/en/1.8/svn.branchmerge.advanced.html
 		// see http://stackoverflow.com/questions/987337/preserving-history-when-merging-subversion-branches
 		String mergeHistory = (useMergeHistory ? "--use-merge-history" : "");
@@ -69,21 +168,50 @@ class SvnLog implements VcsCommand<LogResult> {
 		@SuppressWarnings("UnnecessaryLocalVariable")
 		Charset svnXmlCharset = UTF_8;
 
-		return newExternalCommand(
-				pathToSvn, "log",
-				repoUrl,
-				"-r", svnDateRange(timeRange, quoteDateRange),
-				mergeHistory,
-				"--verbose",
-				"--xml"
-		).outputCharset(svnXmlCharset);
+		List<String> args = new ArrayList<>();
+		args.add("log");
+		args.addAll(targets);
+		args.addAll(asList(revisionOption, revisions, mergeHistory, withChanges ? "--verbose" : ""));
+		if (!withMessage) {
+			args.add("--quiet");
+		}
+		if (limit != LogQuery.noMaxCount) {
+			args.addAll(asList("--limit", Integer.toString(limit)));
+		}
+		if (search != null) {
+			args.addAll(asList("--search", escapeGlob(search)));
+		}
+		args.add("--xml");
+
+		return newExternalCommand(pathToSvn, args.toArray(new String[args.size()])).outputCharset(svnXmlCharset);
+	}
+
+	/**
+	 * See "svn help log", "--search" pattern can have glob wildcards which are escaped with backslash.
+	 */
+	private static String escapeGlob(String s) {
+		StringBuilder result = new StringBuilder(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if ("\\*?[]".indexOf(c) != -1) result.append('\\');
+			result.append(c);
+		}
+		return result.toString();
+	}
+
+	private static List<String> targets(String repoUrl, List<String> paths) {
+		List<String> result = new ArrayList<>();
+		result.add(repoUrl);
+		for (String path : paths) {
+			if (path.isEmpty()) return singletonList(repoUrl);
+			result.add(path);
+		}
+		return result;
 	}
 
 	private static String svnDateRange(TimeRange timeRange, boolean quoteDateRange) {
-		// Svn supports any ISO 8601 date format (https://en.wikipedia.org/wiki/ISO_8601).
-		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZone(UTC);
-		String from = timeRange.from() == Instant.MIN ? minSvnDate : formatter.format(timeRange.from());
-		String to = timeRange.to() == Instant.MAX ? maxSvnDate : formatter.format(timeRange.to().minusSeconds(1)); // Minus one to make to-date exclusive.
+		String from = timeRange.from() == Instant.MIN ? minSvnDate : svnDateFormatter.format(timeRange.from());
+		String to = timeRange.to() == Instant.MAX ? maxSvnDate : svnDateFormatter.format(timeRange.to().minusSeconds(1)); // Minus one to make to-date exclusive.
 
 		String result = "{" + from + "}:{" + to + "}";
 		if (quoteDateRange) {
@@ -93,74 +221,41 @@ class SvnLog implements VcsCommand<LogResult> {
 	}
 
 	/**
-	 * Delete commits because "Subversion will find the most recent revision of the repository as of the date you give".
-	 * See http://svnbook.red-bean.com/en/1.8/svn.tour.revs.specifiers.html#svn.tour.revs.keywords
+	 * @return revision argument for the most recent revision as of {@code instant}, e.g. "{2014-08-10T00:00:00Z}"
 	 */
-	private static List<VcsCommit> deleteCommitsBefore(Instant instant, List<VcsCommit> commits) {
-		commits.removeIf(it -> instant != Instant.MIN && it.getDateTime().isBefore(instant));
-		return commits;
+	static String svnDate(Instant instant, boolean quoteDate) {
+		String result = "{" + svnDateFormatter.format(instant) + "}";
+		return quoteDate ? "'" + result + "'" : result;
 	}
 
-	private List<VcsCommit> transformToSubPathCommits(List<VcsCommit> commits) {
-		String subPath = subPathOf(repoUrl, repoRoot);
-		commits = removeChangesNotIn(subPath, commits);
-		commits = modifyChanges(subPath, commits);
-		return commits;
-	}
-
-	private static List<VcsCommit> modifyChanges(String subPath, List<VcsCommit> commits) {
-		List<VcsCommit> result = new ArrayList<>();
-		for (VcsCommit commit : commits) {
-			List<Change> modifiedChanges = new ArrayList<>();
-			for (VcsChange vcsChange : commit.getChanges()) {
-				Change change = (Change) vcsChange;
-				modifiedChanges.add(change.withTypeAndPaths(
-						changeTypeConsideringSubPath(subPath, change),
-						useSubPathAsRoot(subPath, change.getFilePath()),
-						useSubPathAsRoot(subPath, change.getFilePathBefore())
-				));
-			}
-			result.add(commit.withChanges(modifiedChanges));
-		}
-		return result;
+	/**
+	 * Commits before time range are skipped because "Subversion will find the most recent revision
+	 * of the repository as of the date you give".
+	 * See http://svnbook.red-bean.com/en/1.8/svn.tour.revs.specifiers.html#svn.tour.revs.keywords
+	 */
+	static boolean isBefore(Instant instant, VcsCommit commit) {
+		return instant != Instant.MIN && commit.getDateTime().isBefore(instant);
 	}
 
-	private static List<VcsCommit> removeChangesNotIn(String subPath, List<VcsCommit> commits) {
-		List<VcsCommit> result = new ArrayList<>();
-		for (VcsCommit commit : commits) {
-			List<VcsChange> filteredChanges = new ArrayList<>();
-			for (VcsChange change : commit.getChanges()) {
-
-				if (change.getFilePath().startsWith(subPath) || change.getFilePathBefore().startsWith(subPath)) {
-					filteredChanges.add(change);
-				}
-
-			}
-			result.add(commit.withChanges(filteredChanges));
-		}
-		return result;
+	/**
+	 * Commits at the end of time range are skipped because it's exclusive
+	 * but the most recent revision as of the date can be committed exactly at the date.
+	 */
+	private static boolean isWithin(TimeRange timeRange, VcsCommit commit) {
+		if (isBefore(timeRange.from(), commit)) return false;
+		return timeRange.to() == Instant.MAX || commit.getDateTime().isBefore(timeRange.to());
 	}
 
-	private static String subPathOf(String repoUrl, String repoRoot) {
-		String subPath = repoUrl.replace(repoRoot, "");
+	/**
+	 * @return path of {@code repoUrl} relative to {@code repoRoot} with trailing "/" or empty string if it's the root
+	 */
+	static String subPathOf(String repoUrl, String repoRoot) {
+		String subPath = repoUrl.startsWith(repoRoot) ? repoUrl.substring(repoRoot.length()) : repoUrl;
 		if (subPath.startsWith("/")) subPath = subPath.substring(1);
 		if (!subPath.isEmpty() && !subPath.endsWith("/")) subPath += "/";
 		return subPath;
 	}
 
-	private static VcsChange.Type changeTypeConsideringSubPath(String subPath, VcsChange change) {
-		if (change.getType() != VcsChange.Type.Moved) return change.getType();
-		else if (!change.getFilePath().startsWith(subPath)) return VcsChange.Type.Deleted;
-		else if (!change.getFilePathBefore().startsWith(subPath)) return VcsChange.Type.Added;
-		else return change.getType();
-	}
-
-	private static String useSubPathAsRoot(String subPath, String filePath) {
-		int i = filePath.indexOf(subPath);
-		if (i != 0) return VcsChange.noFilePath;
-		else return filePath.substring(subPath.length());
-	}
-
 	@Override public String describe() {
 		return commandLine.describe();
 	}
@@ -177,7 +272,7 @@ class SvnLog implements VcsCommand<LogResult> {
 		SvnLog svnLog = (SvnLog) o;
 
 		if (useMergeHistory != svnLog.useMergeHistory) return false;
-		if (quoteDateRange != svnLog.quoteDateRange) return false;
+		if (allowMissingPath != svnLog.allowMissingPath) return false;
 		if (pathToSvn != null ? !pathToSvn.equals(svnLog.pathToSvn) : svnLog.pathToSvn != null) return false;
 		if (repoUrl != null ? !repoUrl.equals(svnLog.repoUrl) : svnLog.repoUrl != null)
 			return false;
@@ -194,7 +289,7 @@ class SvnLog implements VcsCommand<LogResult> {
 		result = 31 * result + (repoRoot != null ? repoRoot.hashCode() : 0);
 		result = 31 * result + (timeRange != null ? timeRange.hashCode() : 0);
 		result = 31 * result + (useMergeHistory ? 1 : 0);
-		result = 31 * result + (quoteDateRange ? 1 : 0);
+		result = 31 * result + (allowMissingPath ? 1 : 0);
 		result = 31 * result + (commandLine != null ? commandLine.hashCode() : 0);
 		return result;
 	}
@@ -0,0 +1,80 @@
+package org.vcsreader.vcs.svn;
+
+import org.vcsreader.LogStream;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.StringPool;
+import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.QueuedLogStream;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.vcsreader.vcs.svn.SvnLog.*;
+import static org.vcsreader.vcs.svn.SvnUtil.isSuccessful;
+
+/**
+ * Same as {@link SvnLog} except that commits are parsed while "svn log" is running.
+ */
+class SvnLogStream implements VcsCommand<LogStream>, QueuedLogStream.Source {
+	private final String pathToSvn;
+	private final String repoUrl;
+	private final String repoRoot;
+	private final TimeRange timeRange;
+	private final boolean failFast;
+	private final CommandLine commandLine;
+
+
+	public SvnLogStream(String pathToSvn, String repoUrl, String repoRoot, TimeRange timeRange,
+	                    boolean useMergeHistory, boolean quoteDateRange, boolean failFast) {
+		this.pathToSvn = pathToSvn;
+		this.repoUrl = repoUrl;
+		this.repoRoot = repoRoot;
+		this.timeRange = timeRange;
+		this.failFast = failFast;
+		this.commandLine = svnLog(pathToSvn, repoUrl, timeRange, useMergeHistory, quoteDateRange);
+	}
+
+	@Override public LogStream execute() {
+		String subPath = subPathOf(repoUrl, repoRoot);
+		QueuedLogStream logStream = new QueuedLogStream(this, failFast);
+		StringPool stringPool = new StringPool();
+		commandLine.start(stdout -> {
+			try {
+				SvnCommitParser.parseCommits(stdout, subPath, stringPool, commit -> {
+					if (!isBefore(timeRange.from(), commit)) {
+						logStream.add(commit);
+					}
+				});
+			} finally {
+				logStream.endOfCommits();
+			}
+		});
+		return logStream;
+	}
+
+	@Override public List<Exception> waitFor() {
+		commandLine.waitFor();
+		return isSuccessful(commandLine) ? new ArrayList<>() : asList(new VcsError(commandLine.stderr()));
+	}
+
+	@Override public String describe() {
+		return commandLine.describe();
+	}
+
+	@Override public boolean cancel() {
+		return commandLine.kill();
+	}
+
+	@Override public String toString() {
+		return "SvnLogStream{" +
+				"pathToSvn='" + pathToSvn + '\'' +
+				", repoUrl='" + repoUrl + '\'' +
+				", repoRoot='" + repoRoot + '\'' +
+				", timeRange=" + timeRange +
+				", commandLine=" + commandLine +
+				'}';
+	}
+}
@@ -7,10 +7,15 @@ import java.nio.charset.Charset;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class SvnSettings {
+	public static final int defaultLogWindowSize = 5000;
+
 	@NotNull private final String svnPath;
 	@NotNull private final Charset defaultFileCharset;
 	private final boolean useMergeHistory;
 	private final boolean failFast;
+	private final boolean lazyChanges;
+	private final int logWindowSize;
+	private final int logConcurrency;
 
 	/**
 	 * @param svnPath            path to svn executable
@@ -22,30 +27,67 @@ public class SvnSettings {
 	 *                           otherwise will aggregate all exceptions/errors into result object
 	 */
 	public SvnSettings(@NotNull String svnPath, @NotNull Charset defaultFileCharset, boolean useMergeHistory, boolean failFast) {
+		this(svnPath, defaultFileCharset, useMergeHistory, failFast, false);
+	}
+
+	/**
+	 * @param lazyChanges if true, log only reads commit metadata and changes are loaded on first access
+	 *                    to {@link org.vcsreader.VcsCommit#getChanges()} (see {@link org.vcsreader.vcs.LazyChanges})
+	 */
+	public SvnSettings(@NotNull String svnPath, @NotNull Charset defaultFileCharset, boolean useMergeHistory,
+	                   boolean failFast, boolean lazyChanges) {
+		this(svnPath, defaultFileCharset, useMergeHistory, failFast, lazyChanges, defaultLogWindowSize, 1);
+	}
+
+	/**
+	 * @param logWindowSize  the number of revisions logged by one "svn log" command when log is split into windows
+	 * @param logConcurrency if more than one, revision range of log is split into windows of {@code logWindowSize}
+	 *                       revisions which are logged by up to {@code logConcurrency} "svn log" commands
+	 *                       at the same time (see {@link org.vcsreader.vcs.ParallelLog})
+	 */
+	public SvnSettings(@NotNull String svnPath, @NotNull Charset defaultFileCharset, boolean useMergeHistory,
+	                   boolean failFast, boolean lazyChanges, int logWindowSize, int logConcurrency) {
+		if (logWindowSize < 1) throw new IllegalArgumentException("Log window size must be positive: " + logWindowSize);
+		if (logConcurrency < 1) throw new IllegalArgumentException("Log concurrency must be positive: " + logConcurrency);
 		this.svnPath = svnPath;
 		this.defaultFileCharset = defaultFileCharset;
 		this.useMergeHistory = useMergeHistory;
 		this.failFast = failFast;
+		this.lazyChanges = lazyChanges;
+		this.logWindowSize = logWindowSize;
+		this.logConcurrency = logConcurrency;
 	}
 
 	public static SvnSettings defaults() {
-		return new SvnSettings("svn", UTF_8, true, true);
+		return new SvnSettings("svn", UTF_8, true, true, false, defaultLogWindowSize, 1);
 	}
 
 	public SvnSettings withSvnPath(String value) {
-		return new SvnSettings(value, defaultFileCharset, useMergeHistory, failFast);
+		return new SvnSettings(value, defaultFileCharset, useMergeHistory, failFast, lazyChanges, logWindowSize, logConcurrency);
 	}
 
 	public SvnSettings withDefaultFileCharset(Charset value) {
-		return new SvnSettings(svnPath, value, useMergeHistory, failFast);
+		return new SvnSettings(svnPath, value, useMergeHistory, failFast, lazyChanges, logWindowSize, logConcurrency);
 	}
 
 	public SvnSettings withMergeHistory(boolean value) {
-		return new SvnSettings(svnPath, defaultFileCharset, value, failFast);
+		return new SvnSettings(svnPath, defaultFileCharset, value, failFast, lazyChanges, logWindowSize, logConcurrency);
 	}
 
 	public SvnSettings withFailFast(boolean value) {
-		return new SvnSettings(svnPath, defaultFileCharset, useMergeHistory, value);
+		return new SvnSettings(svnPath, defaultFileCharset, useMergeHistory, value, lazyChanges, logWindowSize, logConcurrency);
+	}
+
+	public SvnSettings withLazyChanges(boolean value) {
+		return new SvnSettings(svnPath, defaultFileCharset, useMergeHistory, failFast, value, logWindowSize, logConcurrency);
+	}
+
+	public SvnSettings withLogWindowSize(int value) {
+		return new SvnSettings(svnPath, defaultFileCharset, useMergeHistory, failFast, lazyChanges, value, logConcurrency);
+	}
+
+	public SvnSettings withLogConcurrency(int value) {
+		return new SvnSettings(svnPath, defaultFileCharset, useMergeHistory, failFast, lazyChanges, logWindowSize, value);
 	}
 
 	@NotNull public String svnPath() {
@@ -64,6 +106,18 @@ public class SvnSettings {
 		return failFast;
 	}
 
+	public boolean lazyChanges() {
+		return lazyChanges;
+	}
+
+	public int logWindowSize() {
+		return logWindowSize;
+	}
+
+	public int logConcurrency() {
+		return logConcurrency;
+	}
+
 	@Override public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
@@ -72,6 +126,9 @@ public class SvnSettings {
 
 		return useMergeHistory == that.useMergeHistory &&
 				failFast == that.failFast &&
+				lazyChanges == that.lazyChanges &&
+				logWindowSize == that.logWindowSize &&
+				logConcurrency == that.logConcurrency &&
 				svnPath.equals(that.svnPath) &&
 				defaultFileCharset.equals(that.defaultFileCharset);
 	}
@@ -81,6 +138,9 @@ public class SvnSettings {
 		result = 31 * result + defaultFileCharset.hashCode();
 		result = 31 * result + (useMergeHistory ? 1 : 0);
 		result = 31 * result + (failFast ? 1 : 0);
+		result = 31 * result + (lazyChanges ? 1 : 0);
+		result = 31 * result + logWindowSize;
+		result = 31 * result + logConcurrency;
 		return result;
 	}
 
@@ -90,6 +150,9 @@ public class SvnSettings {
 				", defaultFileCharset=" + defaultFileCharset +
 				", useMergeHistory=" + useMergeHistory +
 				", failFast=" + failFast +
+				", lazyChanges=" + lazyChanges +
+				", logWindowSize=" + logWindowSize +
+				", logConcurrency=" + logConcurrency +
 				'}';
 	}
 }
@@ -1,17 +1,42 @@
 package org.vcsreader.vcs.svn;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.vcsreader.*;
 import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.FilteredLog;
+import org.vcsreader.vcs.LazyChangesLog;
+import org.vcsreader.vcs.LogAfterRevision;
+import org.vcsreader.vcs.ParallelLog;
+import org.vcsreader.vcs.QueuedLogStream;
 import org.vcsreader.vcs.VcsCommand;
 import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import static java.util.Collections.emptyList;
+
 public class SvnVcsRoot implements VcsRoot, VcsCommand.Observer {
+	/**
+	 * Revisions as of dates which are older than this are cached.
+	 * The delay is much longer than difference between local and svn server clocks can be,
+	 * so that no new commits can be made before the date.
+	 */
+	private static final Duration revisionCacheDelay = Duration.ofDays(1);
+
 	@NotNull private final String repoUrl;
 	@NotNull private final SvnSettings settings;
 	private final VcsCommand.Listener listener;
 	private String repoRoot;
 	private boolean quoteDateRange = false;
+	private final Map<Instant, String> revisionByDate = new ConcurrentHashMap<>();
 	private volatile VcsCommand lastCommand;
 
 
@@ -46,56 +71,197 @@ public class SvnVcsRoot implements VcsRoot, VcsCommand.Observer {
 	}
 
 	@Override public LogResult log(TimeRange timeRange) {
+		return log(LogQuery.of(timeRange));
+	}
+
+	/**
+	 * Uses "svn log" with query paths as targets and max count as "--limit",
+	 * other query conditions are checked after parsing (see {@link #svnQuery(LogQuery)}).
+	 * {@link LogQuery#skipMerges()} is ignored because svn commits don't have several parents.
+	 * <p>
+	 * Time range is converted into revision range with "svn info -r {date}" on repository root
+	 * (dates in the past are only resolved once per vcs root), so that "svn log" is executed with "-r N:M".
+	 * If {@link SvnSettings#logConcurrency()} is more than one and query has no max count,
+	 * revision range is split into windows which are logged concurrently (see {@link ParallelLog}).
+	 */
+	@Override public LogResult log(LogQuery query) {
+		Exception repoRootException = findRepoRoot();
+		if (repoRootException != null) return new LogResult(repoRootException);
+
+		SvnInfo.Result fromRevision = revisionAt(query.timeRange().from(), "0");
+		if (!fromRevision.isSuccessful()) return new LogResult(fromRevision.exception);
+		SvnInfo.Result toRevision = isLoggedInWindows(query) && query.timeRange().to() == Instant.MAX ?
+				execute(new SvnInfo(settings.svnPath(), repoRoot), SvnInfo.adapter) :
+				revisionAt(query.timeRange().to(), "HEAD");
+		if (!toRevision.isSuccessful()) return new LogResult(toRevision.exception);
+
+		return execute(svnLog(query, fromRevision.revision, toRevision.revision), LogResult.adapter);
+	}
+
+	/**
+	 * Uses "svn log -r N:HEAD" where N is {@code revision} or 0 if it's null.
+	 */
+	@Override public LogResult logAfter(@Nullable String revision) {
+		Exception repoRootException = findRepoRoot();
+		if (repoRootException != null) return new LogResult(repoRootException);
+
+		String fromRevision = (revision == null ? "0" : revision);
+		SvnLog svnLog = new SvnLog(settings.svnPath(), repoUrl, repoRoot, fromRevision, settings.useMergeHistory());
+		return execute(new LogAfterRevision(svnLog, fromRevision), LogResult.adapter);
+	}
+
+	/**
+	 * Note that unlike {@link #log(TimeRange)} this method uses date range and doesn't retry "svn log" with quoted dates
+	 * because error is only known after the stream was returned (see {@link #hasRevisionArgumentError(Exception)}).
+	 */
+	@Override public LogStream logStream(TimeRange timeRange) {
+		Exception repoRootException = findRepoRoot();
+		if (repoRootException != null) return new QueuedLogStream(repoRootException);
+
+		SvnLogStream svnLogStream = new SvnLogStream(
+				settings.svnPath(),
+				repoUrl,
+				repoRoot,
+				timeRange,
+				settings.useMergeHistory(),
+				quoteDateRange,
+				settings.failFast()
+		);
+		return execute(svnLogStream, QueuedLogStream.adapter);
+	}
+
+	@Override public LogFileContentResult logFileContent(String filePath, String revision) {
+		return execute(svnLogFileContent(filePath, revision), LogFileContentResult.adapter);
+	}
+
+	@Override public CompletableFuture<LogFileContentResult> logFileContentAsync(String filePath, String revision, Executor executor) {
+		return VcsCommand.executeAsync(svnLogFileContent(filePath, revision), LogFileContentResult.adapter,
+				listener, settings.failFast(), executor);
+	}
+
+	private SvnLogFileContent svnLogFileContent(String filePath, String revision) {
+		return new SvnLogFileContent(
+				settings.svnPath(),
+				repoUrl,
+				filePath,
+				revision,
+				settings.defaultFileCharset()
+		);
+	}
+
+	@Nullable private Exception findRepoRoot() {
 		if (repoRoot == null) {
 			SvnInfo.Result result = execute(new SvnInfo(settings.svnPath(), repoUrl), SvnInfo.adapter);
 			if (!result.isSuccessful()) {
-				return new LogResult(result.exception);
+				return result.exception;
 			}
 			repoRoot = result.repoRoot;
 		}
-		LogResult logResult = execute(svnLog(timeRange), LogResult.adapter);
-		if (hasRevisionArgumentError(logResult)) {
+		return null;
+	}
+
+	/**
+	 * @param defaultRevision revision for {@link Instant#MIN} and {@link Instant#MAX}
+	 */
+	private SvnInfo.Result revisionAt(Instant instant, String defaultRevision) {
+		if (instant == Instant.MIN || instant == Instant.MAX) return new SvnInfo.Result(repoRoot, defaultRevision);
+
+		String cachedRevision = revisionByDate.get(instant);
+		if (cachedRevision != null) return new SvnInfo.Result(repoRoot, cachedRevision);
+
+		boolean isCacheable = instant.isBefore(Instant.now().minus(revisionCacheDelay));
+		SvnInfo.Result result = execute(svnInfo(instant), SvnInfo.adapter);
+		if (!result.isSuccessful() && hasRevisionArgumentError(result.exception)) {
 			quoteDateRange = !quoteDateRange;
-			logResult = execute(svnLog(timeRange), LogResult.adapter);
+			result = execute(svnInfo(instant), SvnInfo.adapter);
 		}
-		return logResult;
+		if (result.isSuccessful() && isCacheable) {
+			revisionByDate.put(instant, result.revision);
+		}
+		return result;
 	}
 
-	@Override public LogFileContentResult logFileContent(String filePath, String revision) {
-		SvnLogFileContent logFileContent = new SvnLogFileContent(
-				settings.svnPath(),
-				repoUrl,
-				filePath,
-				revision,
-				settings.defaultFileCharset()
-		);
-		return execute(logFileContent, LogFileContentResult.adapter);
+	private SvnInfo svnInfo(Instant instant) {
+		return new SvnInfo(settings.svnPath(), repoRoot, SvnLog.svnDate(instant, quoteDateRange));
+	}
+
+	private VcsCommand<LogResult> svnLog(LogQuery query, String fromRevision, String toRevision) {
+		LogQuery filter = filterAfterParsing(query);
+		VcsCommand<LogResult> svnLog;
+		// excluded paths are checked after parsing using changes of each commit, so they can't be loaded lazily
+		if (settings.lazyChanges() && query.logsChanges() && !filter.hasPaths()) {
+			svnLog = new LazyChangesLog(
+					svnLog(svnQuery(query), fromRevision, toRevision, false),
+					revisions -> new SvnLog(settings.svnPath(), repoUrl, repoRoot, revisions, settings.useMergeHistory()),
+					listener
+			);
+		} else {
+			svnLog = svnLog(svnQuery(query), fromRevision, toRevision, true);
+		}
+		return filter.hasFilters() ? new FilteredLog(svnLog, filter) : svnLog;
 	}
 
-	private SvnLog svnLog(TimeRange timeRange) {
+	/**
+	 * Max count is only passed to "svn log" as "--limit" if all commits logged by svn match the query,
+	 * otherwise it's applied after parsing because svn could return fewer matching commits than requested.
+	 * (Authors and message text can't be matched by svn exactly, e.g. "--search" also matches paths and dates.)
+	 */
+	private static LogQuery svnQuery(LogQuery query) {
+		return filterAfterParsing(query).hasCommitFilters() ? query.withMaxCount(LogQuery.noMaxCount) : query;
+	}
+
+	/**
+	 * @return conditions which can't be passed to "svn log" (i.e. all except paths, time range and max count)
+	 */
+	private static LogQuery filterAfterParsing(LogQuery query) {
+		return query.withPaths(emptyList());
+	}
+
+	private boolean isLoggedInWindows(LogQuery query) {
+		return settings.logConcurrency() > 1 && !svnQuery(query).hasMaxCount();
+	}
+
+	private VcsCommand<LogResult> svnLog(LogQuery query, String fromRevision, String toRevision, boolean withChanges) {
+		if (!isLoggedInWindows(query)) {
+			return svnLog(query, fromRevision, toRevision, withChanges, false);
+		}
+		long from = Long.parseLong(fromRevision);
+		long to = Long.parseLong(toRevision);
+		if (to - from < settings.logWindowSize()) {
+			return svnLog(query, fromRevision, toRevision, withChanges, false);
+		}
+
+		List<VcsCommand<LogResult>> windows = new ArrayList<>();
+		for (long windowFrom = from; windowFrom <= to; windowFrom += settings.logWindowSize()) {
+			long windowTo = Math.min(windowFrom + settings.logWindowSize() - 1, to);
+			// only the last window must contain repository path, the path could be created after revisions of other windows
+			boolean isLastWindow = windowTo == to;
+			windows.add(svnLog(query, Long.toString(windowFrom), Long.toString(windowTo), withChanges, !isLastWindow));
+		}
+		return new ParallelLog(windows, settings.logConcurrency());
+	}
+
+	private SvnLog svnLog(LogQuery query, String fromRevision, String toRevision, boolean withChanges, boolean allowMissingPath) {
 		return new SvnLog(
 				settings.svnPath(),
 				repoUrl,
 				repoRoot,
-				timeRange,
+				query,
+				fromRevision,
+				toRevision,
 				settings.useMergeHistory(),
-				quoteDateRange
+				withChanges,
+				allowMissingPath
 		);
 	}
 
 	/**
-	 * This is workaround for error in cygwin when "{}" in date range argument
+	 * This is workaround for error in cygwin when "{}" in date argument
 	 * are interpreted by shell and, therefore, need quoting.
 	 * At the same time quoting isn't required and doesn't work when running from other shells.
 	 */
-	private static boolean hasRevisionArgumentError(LogResult logResult) {
-		if (logResult.isSuccessful()) return false;
-		for (Exception e : logResult.exceptions()) {
-			if (e.getMessage().contains("E205000: Syntax error in revision argument")) {
-				return true;
-			}
-		}
-		return false;
+	private static boolean hasRevisionArgumentError(Exception e) {
+		return e.getMessage().contains("E205000: Syntax error in revision argument");
 	}
 
 	private <T> T execute(VcsCommand<T> vcsCommand, ExceptionWrapper<T> exceptionWrapper) {
@@ -0,0 +1,63 @@
+package org.vcsreader
+
+import org.junit.Test
+import org.vcsreader.lang.TimeRange
+import org.vcsreader.vcs.Change
+import org.vcsreader.vcs.Commit
+
+import java.time.Instant
+
+import static org.vcsreader.VcsChange.Type.Added
+import static org.vcsreader.VcsChange.Type.Moved
+import static org.vcsreader.VcsChange.noRevision
+
+class LogQueryTest {
+	private final commit1 = commit("1", "Author1", "Initial commit", Instant.ofEpochSecond(1), new Change(Added, "src/Main.java", "1"))
+	private final commit2 = commit("2", "Author2", "Add docs", Instant.ofEpochSecond(2), new Change(Added, "docs/readme.md", "2"))
+	private final commit3 = commit("3", "Author1", "Move sources", Instant.ofEpochSecond(3), new Change(Moved, "source/Main.java", "src/Main.java", "3", "1"))
+	private final logResult = new LogResult([commit3, commit1, commit2])
+
+	@Test void "query without conditions doesn't filter commits"() {
+		assert LogQuery.of(TimeRange.all).filter(logResult).is(logResult)
+	}
+
+	@Test void "filter commits by paths"() {
+		assert filter(LogQuery.all.withPaths("src")) == [commit3, commit1]
+		assert filter(LogQuery.all.withPaths("src/")) == [commit3, commit1]
+		assert filter(LogQuery.all.withPaths("sr")) == []
+		assert filter(LogQuery.all.withPaths("docs", "source/Main.java")) == [commit3, commit2]
+		assert filter(LogQuery.all.withExcludedPaths("src", "docs")) == [commit3]
+		assert filter(LogQuery.all.withPaths("src").withExcludedPaths("src/Main.java")) == []
+	}
+
+	@Test void "filter commits by authors and message"() {
+		assert filter(LogQuery.all.withAuthors("Author1")) == [commit3, commit1]
+		assert filter(LogQuery.all.withAuthors("Author")) == []
+		assert filter(LogQuery.all.withMessageText("add")) == [commit2]
+		assert filter(LogQuery.all.withMessageText("commit").withAuthors("Author2")) == []
+	}
+
+	@Test void "keep the most recent commits"() {
+		assert filter(LogQuery.all.withMaxCount(2)) == [commit2, commit3]
+		assert filter(LogQuery.all.withAuthors("Author1").withMaxCount(1)) == [commit3]
+	}
+
+	@Test void "max count is not a commit filter"() {
+		assert !LogQuery.all.withMaxCount(1).hasCommitFilters()
+		assert LogQuery.all.withMaxCount(1).withAuthors("Author1").hasCommitFilters()
+		assert LogQuery.all.withMaxCount(1).withExcludedPaths("docs").hasCommitFilters()
+	}
+
+	@Test(expected = IllegalArgumentException)
+	void "max count must be positive"() {
+		LogQuery.all.withMaxCount(0)
+	}
+
+	private List<VcsCommit> filter(LogQuery query) {
+		query.filter(logResult).commits()
+	}
+
+	private static Commit commit(String revision, String author, String message, Instant dateTime, Change change) {
+		new Commit(revision, noRevision, dateTime, author, message, [change])
+	}
+}
@@ -0,0 +1,52 @@
+package org.vcsreader
+
+import org.jetbrains.annotations.NotNull
+import org.jetbrains.annotations.Nullable
+import org.junit.Test
+import org.vcsreader.lang.TimeRange
+import org.vcsreader.vcs.Commit
+
+import java.time.Instant
+
+import static org.vcsreader.VcsChange.noRevision
+
+class VcsRootTest {
+	private final commit1 = new Commit("1", noRevision, Instant.ofEpochSecond(1), "author", "message1", [])
+	private final commit2 = new Commit("2", "1", Instant.ofEpochSecond(2), "author", "message2", [])
+	private final commit3 = new Commit("3", "2", Instant.ofEpochSecond(3), "author", "message3", [])
+	private final vcsRoot = rootWithCommits([commit3, commit2, commit1])
+
+	@Test void "default log after revision logs all commits and drops commits up to revision"() {
+		def logResult = vcsRoot.logAfter(null)
+		assert logResult.commits() == [commit1, commit2, commit3]
+		assert logResult.lastRevision() == "3"
+
+		logResult = vcsRoot.logAfter("2")
+		assert logResult.commits() == [commit3]
+		assert logResult.lastRevision() == "3"
+
+		logResult = vcsRoot.logAfter("3")
+		assert logResult.commits().empty
+		assert logResult.lastRevision() == "3"
+	}
+
+	@Test void "default log stream returns commits from the oldest"() {
+		def logStream = vcsRoot.logStream(TimeRange.all)
+
+		assert logStream.collect() == [commit1, commit2, commit3]
+		assert logStream.successful
+		logStream.close()
+	}
+
+	private static VcsRoot rootWithCommits(List<VcsCommit> commits) {
+		new VcsRoot() {
+			@Override @NotNull String repoFolder() { "" }
+			@Override @Nullable String repoUrl() { null }
+			@Override CloneResult cloneIt() { new CloneResult() }
+			@Override UpdateResult update() { new UpdateResult() }
+			@Override LogResult log(TimeRange timeRange) { new LogResult(commits) }
+			@Override LogFileContentResult logFileContent(String filePath, String revision) { new LogFileContentResult("") }
+			@Override boolean cancelLastCommand() { true }
+		}
+	}
+}
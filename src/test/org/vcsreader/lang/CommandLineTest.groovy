@@ -3,10 +3,12 @@ package org.vcsreader.lang
 import org.junit.Test
 
 import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.CountDownLatch
 import java.util.concurrent.ExecutionException
 import java.util.concurrent.atomic.AtomicBoolean
 
+import static java.nio.charset.StandardCharsets.UTF_8
 import static java.util.concurrent.Executors.newSingleThreadExecutor
 import static java.util.concurrent.TimeUnit.SECONDS
 import static org.junit.Assert.fail
@@ -34,10 +36,24 @@ class CommandLineTest {
 		}
 	}
 
+	@Test void "command killed before it started is not executed"() {
+		def commandLine = new CommandLine("ls")
+		commandLine.kill()
+		try {
+			commandLine.execute()
+
+			fail("Expected exception")
+		} catch (CommandLine.Failure e) {
+			assert e.cause instanceof IllegalStateException
+			assert commandLine.stdout().empty
+			assert commandLine.exitCode() == exitCodeBeforeFinished
+		}
+	}
+
 	@Test void "command with failing task executor"() {
 		def failingExecutor = { Callable task, String taskName ->
-			def result = new FutureResult()
-			result.setException(new IllegalStateException())
+			def result = new CompletableFuture()
+			result.completeExceptionally(new IllegalStateException())
 			result
 		} as CommandLine.AsyncExecutor
 		def config = CommandLine.Config.defaults.asyncExecutor(failingExecutor)
@@ -55,6 +71,40 @@ class CommandLineTest {
 		}
 	}
 
+	@Test void "consume stdout while command is running"() {
+		def lines = []
+		def commandLine = new CommandLine("printf", "line1\\nline2").start { InputStream stdout ->
+			lines.addAll(stdout.readLines())
+		}.waitFor()
+
+		assert lines == ["line1", "line2"]
+		assert commandLine.stdout().empty
+		assert commandLine.exitCode() == 0
+	}
+
+	@Test void "split stdout into records while command is running"() {
+		def records = []
+		def isEndOfRecords = false
+		def consumer = new CommandLine.RecordConsumer() {
+			@Override void consume(String record) { records.add(record) }
+			@Override void endOfRecords() { isEndOfRecords = true }
+		}
+		new CommandLine("printf", "|a|bb||c\\nc").start("|".bytes, consumer).waitFor()
+
+		assert records == ["a", "bb", "c\nc"]
+		assert isEndOfRecords
+	}
+
+	@Test void "split records by multi-byte separator"() {
+		def records = []
+		def splitter = new RecordSplitter("<>".bytes, 2)
+		splitter.split(new ByteArrayInputStream("<>a<<>b><>>".bytes)) { byte[] bytes, int size ->
+			records.add(new String(bytes, 0, size))
+		}
+
+		assert records == ["a<", "b>", ">"]
+	}
+
 	@Test(timeout = 1000L)
 	void "kill hanging command"() {
 		def commandLine = new CommandLine("sleep", "10000")
@@ -73,6 +123,20 @@ class CommandLineTest {
 		assert isDead.get()
 	}
 
+	@Test void "write input to process stdin"() {
+		def commandLine = new CommandLine("cat").input("line1\nline2").outputCharset(UTF_8).workingDir("/").execute()
+
+		assert commandLine.stdout() == "line1\nline2"
+		assert commandLine.exitCode() == 0
+	}
+
+	@Test void "redirect stderr into temporary file"() {
+		def commandLine = new CommandLine("ls", "non-existent-file").redirectStderrToFile(true).execute()
+
+		assert commandLine.stderr().contains("non-existent-file")
+		assert commandLine.exitCode() != 0
+	}
+
 	@Test void "command description"() {
 		assert new CommandLine("ls", "-l").describe() == "ls -l"
 		assert new CommandLine("ls", "-l").workingDir("/").describe() == "ls -l (working directory '/')"
@@ -2,10 +2,13 @@ package org.vcsreader.lang
 
 import org.junit.Test
 
+import java.time.Instant
 import java.time.ZonedDateTime
+import java.time.format.DateTimeParseException
 
 import static java.time.ZoneOffset.UTC
 import static org.vcsreader.lang.DateTimeUtil.dateTime
+import static org.vcsreader.lang.DateTimeUtil.parseIsoDateTime
 
 class DateTimeUtilTest {
 	@Test void convertsStringWithTimeZoneToInstant() {
@@ -15,4 +18,27 @@ class DateTimeUtilTest {
 			assert it.second == 48
 		}
 	}
-}
\ No newline at end of file
+
+	@Test void parsesIsoDateTime() {
+		[
+			"2014-08-10T15:00:00.123456Z",
+			"2014-08-10T15:00:00Z",
+			"2014-08-10T15:00:00.1Z",
+			"2000-02-29T23:59:59.999999999Z",
+			"1969-12-31T23:59:59.5Z",
+			"1900-03-01T00:00:00Z",
+		].each {
+			assert parseIsoDateTime(it) == Instant.parse(it)
+		}
+		assert parseIsoDateTime(new StringBuilder("2014-08-10T15:00:00.000000Z")) == Instant.parse("2014-08-10T15:00:00Z")
+	}
+
+	@Test void parsesIsoDateTimeWithOffset() {
+		assert parseIsoDateTime("2014-08-10T16:00:00+01:00") == Instant.parse("2014-08-10T15:00:00Z")
+	}
+
+	@Test(expected = DateTimeParseException)
+	void failsToParseInvalidIsoDateTime() {
+		parseIsoDateTime("2014-02-30T15:00:00.000000Z")
+	}
+}
@@ -0,0 +1,35 @@
+package org.vcsreader.lang
+
+import org.junit.Test
+
+import static org.vcsreader.lang.MergedIterator.mergeSorted
+
+class MergedIteratorTest {
+	private static final Comparator<String> byFirstChar = Comparator.comparing { String s -> s.charAt(0) }
+
+	@Test void "merging sorted lists"() {
+		assert mergeSorted([], byFirstChar) == []
+		assert mergeSorted([[], []], byFirstChar) == []
+		assert mergeSorted([["a"], []], byFirstChar) == ["a"]
+		assert mergeSorted([["a", "c"], ["b", "d"]], byFirstChar) == ["a", "b", "c", "d"]
+		assert mergeSorted([["d"], ["a", "b"], ["c"]], byFirstChar) == ["a", "b", "c", "d"]
+	}
+
+	@Test void "equal elements keep order of lists"() {
+		assert mergeSorted([["a1", "b1"], ["a2", "b2"], ["a3"]], byFirstChar) == ["a1", "a2", "a3", "b1", "b2"]
+		assert mergeSorted([["a2", "a1"], ["a3"]], byFirstChar) == ["a2", "a1", "a3"]
+	}
+
+	@Test void "iterators are read lazily"() {
+		def readElements = []
+		def iterator = { List<String> list ->
+			def listIterator = list.iterator()
+			[hasNext: { listIterator.hasNext() }, next: { def s = listIterator.next(); readElements << s; s }] as Iterator<String>
+		}
+		def mergedIterator = new MergedIterator<String>([iterator(["a", "c", "e"]), iterator(["b", "d"])], byFirstChar)
+		assert readElements == []
+
+		assert mergedIterator.next() == "a"
+		assert readElements == ["a", "b", "c"]
+	}
+}
@@ -0,0 +1,41 @@
+package org.vcsreader.lang
+
+import org.junit.Test
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+
+import static java.util.concurrent.TimeUnit.SECONDS
+
+class ReaderThreadPoolTest {
+	@Test void "reuse pooled threads"() {
+		def threadPool = new ReaderThreadPool(2)
+		def threads = (1..10).collect {
+			threadPool.submit({ Thread.currentThread() } as Callable, "task").get()
+		}.unique()
+
+		assert threads.size() <= 2
+		assert threadPool.pooledThreads() <= 2
+		assert threadPool.completedReaders() == 10
+	}
+
+	@Test void "run task on overflow thread when all pooled threads are busy"() {
+		def threadPool = new ReaderThreadPool(1)
+		def latch = new CountDownLatch(1)
+		def busyTask = threadPool.submit({ latch.await(1, SECONDS) } as Callable, "busy task")
+
+		def overflowTask = threadPool.submit({ threadPool.overflowReaders() } as Callable, "overflow task")
+
+		assert overflowTask.get() == 1
+		assert threadPool.activeReaders() == 1
+		latch.countDown()
+		busyTask.get()
+	}
+
+	@Test void "use task name as thread name while task is running"() {
+		def threadPool = new ReaderThreadPool(1)
+		def threadName = threadPool.submit({ Thread.currentThread().name } as Callable, "some task").get()
+
+		assert threadName == "some task"
+	}
+}
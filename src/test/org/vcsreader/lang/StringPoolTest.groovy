@@ -0,0 +1,47 @@
+package org.vcsreader.lang
+
+import org.junit.Test
+
+class StringPoolTest {
+	@Test void "equal strings share the same instance"() {
+		def stringPool = new StringPool()
+		def s1 = stringPool.intern(new String("file.txt"))
+		def s2 = stringPool.intern(new String("file.txt"))
+
+		assert s1 == "file.txt"
+		assert s1.is(s2)
+		assert stringPool.size() == 1
+		assert stringPool.intern(null) == null
+	}
+
+	@Test void "intern region of a string"() {
+		def stringPool = new StringPool()
+		def s = "M\0file.txt\0A\0file.txt\0"
+
+		def s1 = stringPool.intern(s, 2, 10)
+		def s2 = stringPool.intern(s, 13, 21)
+
+		assert s1 == "file.txt"
+		assert s1.is(s2)
+		assert stringPool.intern(s, 0, 0) == ""
+		assert stringPool.intern("file.txt").is(s1)
+	}
+
+	@Test void "strings with the same hash code are not mixed up"() {
+		def stringPool = new StringPool()
+		assert "Aa".hashCode() == "BB".hashCode()
+
+		assert stringPool.intern("Aa") == "Aa"
+		assert stringPool.intern("BB") == "BB"
+		assert stringPool.size() == 2
+	}
+
+	@Test void "pool grows beyond initial capacity"() {
+		def stringPool = new StringPool()
+		def strings = (1..10000).collect { "path/file${it}.txt".toString() }
+		strings.each { stringPool.intern(it) }
+
+		assert stringPool.size() == 10000
+		strings.each { assert stringPool.intern(new String(it)).is(it) }
+	}
+}
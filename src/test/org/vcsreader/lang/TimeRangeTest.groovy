@@ -0,0 +1,40 @@
+package org.vcsreader.lang
+
+import org.junit.Test
+
+import java.time.Instant
+
+import static org.vcsreader.lang.DateTimeUtil.dateTime
+
+class TimeRangeTest {
+	@Test void "split time range into slices of the same length"() {
+		def timeRange = TimeRange.between(dateTime("00:00:00 01/08/2014"), dateTime("00:00:00 05/08/2014"))
+
+		assert timeRange.split(1) == [timeRange]
+		assert timeRange.split(2) == [
+				TimeRange.between(dateTime("00:00:00 01/08/2014"), dateTime("00:00:00 03/08/2014")),
+				TimeRange.between(dateTime("00:00:00 03/08/2014"), dateTime("00:00:00 05/08/2014"))
+		]
+		assert timeRange.split(3)*.to() == [
+				dateTime("08:00:00 02/08/2014"), dateTime("16:00:00 03/08/2014"), dateTime("00:00:00 05/08/2014")
+		]
+	}
+
+	@Test void "split time range shorter than slice count"() {
+		def from = Instant.ofEpochSecond(1000)
+		assert TimeRange.between(from, from.plusSeconds(1)).split(3) == [TimeRange.between(from, from.plusSeconds(1))]
+		assert TimeRange.between(from, from.plusSeconds(2)).split(3) == [
+				TimeRange.between(from, from.plusSeconds(1)),
+				TimeRange.between(from.plusSeconds(1), from.plusSeconds(2))
+		]
+	}
+
+	@Test void "split unbounded time range"() {
+		def slices = TimeRange.all.split(4)
+
+		assert slices.size() == 4
+		assert slices.first().from() == Instant.MIN
+		assert slices.last().to() == Instant.MAX
+		(1..<slices.size()).each { i -> assert slices[i - 1].to() == slices[i].from() }
+	}
+}
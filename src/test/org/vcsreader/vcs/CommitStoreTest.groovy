@@ -0,0 +1,83 @@
+package org.vcsreader.vcs
+
+import org.junit.Test
+import org.vcsreader.LogFileContentResult
+import org.vcsreader.VcsChange
+import org.vcsreader.VcsRoot
+
+import java.time.Instant
+
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.when
+import static org.vcsreader.VcsChange.Type.*
+import static org.vcsreader.VcsChange.noFilePath
+import static org.vcsreader.VcsChange.noRevision
+
+class CommitStoreTest {
+	private final commits = [
+		new Commit("1", noRevision, Instant.ofEpochSecond(1407628800), "author1", "initial commit", [
+			new Change(Added, "file1.txt", "1"),
+			new Change(Added, "file2.txt", "1")
+		]),
+		new Commit("2", "1", Instant.ofEpochSecond(1407628860, 123000), "author2", "no changes", []),
+		new Commit("3", "2", Instant.ofEpochSecond(1407628920), "author1", "modified, moved and deleted", [
+			new Change(Modified, "file1.txt", "file1.txt", "3", "1"),
+			new Change(Moved, "folder/file2.txt", "file2.txt", "3", "1"),
+			new Change(Deleted, noFilePath, "file3.txt", "3", "2")
+		])
+	]
+
+	@Test void "store has the same commits and changes as original list"() {
+		def store = CommitStore.of(commits)
+
+		assert store.size() == 3
+		assert store.changeCount() == 5
+		store.eachWithIndex { commit, i ->
+			def expected = commits[i]
+			assert commit.revision == expected.revision
+			assert commit.revisionBefore == expected.revisionBefore
+			assert commit.dateTime == expected.dateTime
+			assert commit.author == expected.author
+			assert commit.message == expected.message
+			assert commit.changes.collect{ asChange(it) } == expected.changes
+		}
+	}
+
+	@Test void "store with strings in several text chunks"() {
+		def manyCommits = (1..CommitStore.stringsPerChunk).collect {
+			new Commit("$it", noRevision, Instant.ofEpochSecond(it), "author", "message $it", [new Change(Added, "file${it}.txt", "$it")])
+		}
+
+		def store = CommitStore.of(manyCommits)
+
+		assert store.size() == manyCommits.size()
+		assert store*.revision == manyCommits*.revision
+		assert store*.message == manyCommits*.message
+		assert store.collect { it.changes.first().filePath } == manyCommits.collect { it.changes.first().filePath }
+	}
+
+	@Test void "store is equal to itself and commits can be copied with other changes"() {
+		def store = CommitStore.of(commits)
+
+		assert store == CommitStore.of(commits.iterator())
+		assert store[0].withChanges([]) == new Commit("1", noRevision, Instant.ofEpochSecond(1407628800), "author1", "initial commit", [])
+		assert store[1].changes.empty
+	}
+
+	@Test void "changes load file content using vcs root of original changes"() {
+		def vcsRoot = mock(VcsRoot)
+		when(vcsRoot.logFileContent("file1.txt", "3")).thenReturn(new LogFileContentResult("new content"))
+		when(vcsRoot.logFileContent("file1.txt", "1")).thenReturn(new LogFileContentResult("content"))
+		commits.each { it.setVcsRoot(vcsRoot) }
+
+		def change = CommitStore.of(commits)[2].changes[0]
+
+		assert change.fileContent().value == "new content"
+		assert change.fileContentBefore().value == "content"
+		assert CommitStore.of(commits)[2].changes[2].fileContent() == VcsChange.FileContent.none
+	}
+
+	private static Change asChange(VcsChange change) {
+		new Change(change.type, change.filePath, change.filePathBefore, change.revision, change.revisionBefore)
+	}
+}
@@ -0,0 +1,52 @@
+package org.vcsreader.vcs
+
+import org.junit.Test
+import org.vcsreader.LogFileContentResult
+import org.vcsreader.VcsRoot
+
+import java.time.Instant
+
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.when
+import static org.vcsreader.VcsChange.Type.Added
+import static org.vcsreader.VcsChange.noRevision
+
+class CommitTest {
+	private final vcsRoot = rootWithFile("file.txt", "1", "content")
+
+	@Test void "changes use vcs root of their commit"() {
+		def change = new Change(Added, "file.txt", "1")
+		def commit = new Commit("1", noRevision, Instant.EPOCH, "author", "message", [change])
+
+		commit.setVcsRoot(vcsRoot)
+
+		assert change.fileContent().value == "content"
+	}
+
+	@Test void "commit with updated changes keeps vcs root"() {
+		def commit = new Commit("1", noRevision, Instant.EPOCH, "author", "message", [])
+		commit.setVcsRoot(vcsRoot)
+
+		def change = new Change(Added, "file.txt", "1")
+		commit.withChanges([change])
+
+		assert change.fileContent().value == "content"
+	}
+
+	@Test void "vcs root of change takes precedence over vcs root of commit"() {
+		def change = new Change(Added, "file.txt", "1")
+		def commit = new Commit("1", noRevision, Instant.EPOCH, "author", "message", [change])
+		commit.setVcsRoot(rootWithFile("file.txt", "1", "other content"))
+
+		change.setVcsRoot(vcsRoot)
+
+		assert change.fileContent().value == "content"
+		assert new Change(change).fileContent().value == "content"
+	}
+
+	private static VcsRoot rootWithFile(String filePath, String revision, String content) {
+		def vcsRoot = mock(VcsRoot)
+		when(vcsRoot.logFileContent(filePath, revision)).thenReturn(new LogFileContentResult(content))
+		vcsRoot
+	}
+}
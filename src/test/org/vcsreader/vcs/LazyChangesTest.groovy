@@ -0,0 +1,45 @@
+package org.vcsreader.vcs
+
+import org.junit.Test
+import org.vcsreader.VcsCommit
+
+import java.time.Instant
+
+import static org.vcsreader.VcsChange.Type.Added
+import static org.vcsreader.VcsChange.noRevision
+
+class LazyChangesTest {
+	private final commits = (1..5).collect { new Commit("$it", noRevision, Instant.EPOCH, "author", "message", [new Change(Added, "${it}.txt", "$it")]) }
+
+	@Test void "load changes in batches on first access"() {
+		def loadedRevisions = []
+		def lazyCommits = LazyChanges.withLazyChanges(commits, loader(loadedRevisions), 2)
+
+		assert lazyCommits.collect { it.changes*.filePath } == [["1.txt"], ["2.txt"], ["3.txt"], ["4.txt"], ["5.txt"]]
+		assert loadedRevisions == [["1", "2"], ["3", "4"], ["5"]]
+	}
+
+	@Test void "load changes of preceding commits when iterating in reverse order"() {
+		def loadedRevisions = []
+		def lazyCommits = LazyChanges.withLazyChanges(commits, loader(loadedRevisions), 2)
+
+		assert lazyCommits.reverse().collect { it.changes*.filePath } == [["5.txt"], ["4.txt"], ["3.txt"], ["2.txt"], ["1.txt"]]
+		assert loadedRevisions == [["5", "4"], ["3", "2"], ["1"]]
+	}
+
+	@Test void "compare commits without loading changes"() {
+		def loadedRevisions = []
+		def lazyCommits = LazyChanges.withLazyChanges(commits, loader(loadedRevisions), 2)
+
+		assert lazyCommits == commits
+		assert lazyCommits*.hashCode() == commits*.hashCode()
+		assert loadedRevisions == []
+	}
+
+	private LazyChanges.Loader loader(List loadedRevisions) {
+		{ List<VcsCommit> batch ->
+			loadedRevisions.add(batch*.revision)
+			commits.findAll { it.revision in batch*.revision }.collectEntries { [it.revision, it.changes] }
+		} as LazyChanges.Loader
+	}
+}
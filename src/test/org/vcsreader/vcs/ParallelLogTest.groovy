@@ -0,0 +1,81 @@
+package org.vcsreader.vcs
+
+import org.junit.Test
+import org.vcsreader.LogResult
+import org.vcsreader.VcsCommit
+
+import java.time.Instant
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+
+import static java.util.concurrent.TimeUnit.SECONDS
+import static org.vcsreader.VcsChange.noRevision
+
+class ParallelLogTest {
+	@Test void "concatenate results in the order of logs"() {
+		def logs = (1..5).collect { i -> log { sleep(50 - i * 10); new LogResult([commit("$i")], []) } }
+
+		def logResult = new ParallelLog(logs, 3).execute()
+
+		assert logResult.commits()*.revision == ["1", "2", "3", "4", "5"]
+		assert logResult.isSuccessful()
+	}
+
+	@Test void "run up to max concurrency logs at the same time"() {
+		def running = new AtomicInteger()
+		def maxRunning = new AtomicInteger()
+		def logs = (1..6).collect { i ->
+			log {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math.&max)
+				sleep(20)
+				running.decrementAndGet()
+				new LogResult([commit("$i")], [])
+			}
+		}
+
+		new ParallelLog(logs, 2).execute()
+
+		assert maxRunning.get() == 2
+	}
+
+	@Test void "keep errors of all logs"() {
+		def logs = [
+			log { new LogResult([commit("1")], []) },
+			log { new LogResult(new VcsError("error")) },
+		]
+
+		def logResult = new ParallelLog(logs, 2).execute()
+
+		assert logResult.commits()*.revision == ["1"]
+		assert logResult.exceptions()*.message == ["error"]
+	}
+
+	@Test void "cancel other logs and rethrow the first exception"() {
+		def started = new CountDownLatch(1)
+		def cancelled = new CountDownLatch(1)
+		def logs = [
+			log({ started.countDown(); cancelled.await(5, SECONDS); new LogResult() }, { cancelled.countDown(); true }),
+			log { started.await(5, SECONDS); throw new IllegalStateException("failed") },
+		]
+
+		try {
+			new ParallelLog(logs, 2).execute()
+			assert false
+		} catch (IllegalStateException e) {
+			assert e.message == "failed"
+		}
+		assert cancelled.count == 0
+	}
+
+	private static VcsCommand<LogResult> log(Closure<LogResult> execute, Closure<Boolean> cancel = { true }) {
+		new VcsCommand<LogResult>() {
+			@Override String describe() { "log" }
+			@Override LogResult execute() { execute.call() }
+			@Override boolean cancel() { cancel.call() }
+		}
+	}
+
+	private static VcsCommit commit(String revision) {
+		new Commit(revision, noRevision, Instant.EPOCH, "author", "message", [])
+	}
+}
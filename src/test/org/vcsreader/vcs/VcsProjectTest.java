@@ -4,6 +4,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.vcsreader.CloneResult;
 import org.vcsreader.LogResult;
+import org.vcsreader.LogStream;
 import org.vcsreader.VcsCommit;
 import org.vcsreader.VcsProject;
 import org.vcsreader.lang.TimeRange;
@@ -12,13 +13,19 @@ import org.vcsreader.vcs.git.GitVcsRoot;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Arrays.asList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 import static org.vcsreader.lang.DateTimeUtil.timeRange;
 
 public class VcsProjectTest {
@@ -86,6 +93,220 @@ public class VcsProjectTest {
 		project.log(timeRange("01/07/2014", "08/07/2014"));
 	}
 
+	@Test public void aggregateCommitsOfProjectRootsSortedByTime() {
+		// given
+		VcsCommit commit1 = new Commit("1", "", Instant.ofEpochMilli(1000), "", "", new ArrayList<>());
+		VcsCommit commit2 = new Commit("2", "", Instant.ofEpochMilli(2000), "", "", new ArrayList<>());
+		VcsCommit commit3 = new Commit("3", "", Instant.ofEpochMilli(2000), "", "", new ArrayList<>());
+		VcsCommit commit4 = new Commit("4", "", Instant.ofEpochMilli(3000), "", "", new ArrayList<>());
+		when(root1.log(anyTimeRange())).thenReturn(new LogResult(asList(commit4, commit2)));
+		when(root2.log(anyTimeRange())).thenReturn(new LogResult(asList(commit1, commit3)));
+		VcsProject project = new VcsProject(asList(root1, root2));
+
+		// when
+		LogResult logResult = project.log(timeRange("01/07/2014", "08/07/2014"));
+
+		// then
+		assertThat(logResult.commits(), equalTo(asList(commit1, commit2, commit3, commit4)));
+	}
+
+	@Test public void aggregateCommitsSortedFromNewestToOldest() {
+		// given
+		VcsCommit commit1 = new Commit("1", "", Instant.ofEpochMilli(1000), "", "", new ArrayList<>());
+		VcsCommit commit2 = new Commit("2", "", Instant.ofEpochMilli(2000), "", "", new ArrayList<>());
+		VcsCommit commit3 = new Commit("3", "", Instant.ofEpochMilli(2000), "", "", new ArrayList<>());
+		VcsCommit commit4 = new Commit("4", "", Instant.ofEpochMilli(3000), "", "", new ArrayList<>());
+		VcsCommit commit5 = new Commit("5", "", Instant.ofEpochMilli(2500), "", "", new ArrayList<>());
+		LogResult result1 = new LogResult(asList(commit4, commit2, commit3, commit1));
+		LogResult result2 = new LogResult(asList(commit5, commit1));
+
+		// when
+		LogResult logResult = LogResult.aggregate(asList(result1, result2));
+
+		// then
+		assertThat(logResult.commits(), equalTo(asList(commit1, commit1, commit2, commit3, commit5, commit4)));
+	}
+
+	@Test public void mergeLogStreamsOfProjectRootsByTime() {
+		// given
+		VcsCommit commit1 = new Commit("1", "", Instant.ofEpochMilli(1000), "", "", new ArrayList<>());
+		VcsCommit commit2 = new Commit("2", "", Instant.ofEpochMilli(2000), "", "", new ArrayList<>());
+		VcsCommit commit3 = new Commit("3", "", Instant.ofEpochMilli(3000), "", "", new ArrayList<>());
+		when(root1.logStream(anyTimeRange())).thenReturn(logStreamOf(commit1, commit3));
+		when(root2.logStream(anyTimeRange())).thenReturn(logStreamOf(commit2));
+		VcsProject project = new VcsProject(asList(root1, root2));
+
+		// when
+		LogStream logStream = project.mergedLogStream(timeRange("01/07/2014", "08/07/2014"));
+		List<VcsCommit> commits = new ArrayList<>();
+		logStream.forEachRemaining(commits::add);
+
+		// then
+		assertThat(commits, equalTo(asList(commit1, commit2, commit3)));
+		assertThat(logStream.exceptions(), equalTo(asList(new VcsError("error"), new VcsError("error"))));
+	}
+
+	@Test public void logProjectHistoryInParallel() {
+		// given
+		CountDownLatch bothRootsStarted = new CountDownLatch(2);
+		VcsCommit commit1 = new Commit("1", "", Instant.ofEpochMilli(1000), "", "", new ArrayList<>());
+		VcsCommit commit2 = new Commit("2", "", Instant.ofEpochMilli(0), "", "", new ArrayList<>());
+		when(root1.log(anyTimeRange())).then(invocation -> {
+			bothRootsStarted.countDown();
+			return awaitOrFail(bothRootsStarted, new LogResult(asList(commit1), asList(new VcsError("error1"))));
+		});
+		when(root2.log(anyTimeRange())).then(invocation -> {
+			bothRootsStarted.countDown();
+			return awaitOrFail(bothRootsStarted, new LogResult(asList(commit2), asList(new VcsError("error2"))));
+		});
+		VcsProject project = new VcsProject(asList(root1, root2)).inParallel(2);
+
+		// when
+		LogResult logResult = project.log(timeRange("01/07/2014", "08/07/2014"));
+
+		// then
+		assertThat(logResult.commits(), equalTo(asList(commit2, commit1)));
+		assertThat(logResult.exceptions(), equalTo(asList(
+				new VcsError("error1"),
+				new VcsError("error2")
+		)));
+	}
+
+	@Test public void logProjectHistoryInTimeSlices() {
+		// given
+		TimeRange timeRange = timeRange("01/07/2014", "03/07/2014");
+		List<TimeRange> timeSlices = timeRange.split(2);
+		VcsCommit commit1 = new Commit("1", "", timeSlices.get(0).from(), "", "", new ArrayList<>());
+		VcsCommit commit2 = new Commit("2", "", timeSlices.get(1).from(), "", "", new ArrayList<>());
+		VcsCommit commit3 = new Commit("3", "", timeSlices.get(1).from().plusSeconds(1), "", "", new ArrayList<>());
+		when(root1.log(timeSlices.get(0))).thenReturn(new LogResult(asList(commit1, commit2), asList(new VcsError("error"))));
+		when(root1.log(timeSlices.get(1))).thenReturn(new LogResult(asList(commit2, commit3), asList(new VcsError("error"))));
+		VcsProject project = new VcsProject(asList(root1)).inParallel(2).inTimeSlices(2);
+
+		// when
+		LogResult logResult = project.log(timeRange);
+
+		// then
+		assertThat(logResult.commits(), equalTo(asList(commit1, commit2, commit3)));
+		assertThat(logResult.exceptions(), equalTo(asList(new VcsError("error"))));
+	}
+
+	@Test public void logInParallelAfterProjectWasClosed() {
+		// given
+		VcsCommit commit1 = new Commit("1", "", Instant.ofEpochMilli(1000), "", "", new ArrayList<>());
+		VcsCommit commit2 = new Commit("2", "", Instant.ofEpochMilli(2000), "", "", new ArrayList<>());
+		when(root1.log(anyTimeRange())).thenReturn(new LogResult(asList(commit1)));
+		when(root2.log(anyTimeRange())).thenReturn(new LogResult(asList(commit2)));
+		VcsProject project = new VcsProject(asList(root1, root2)).inParallel(2);
+		project.log(timeRange("01/07/2014", "08/07/2014"));
+
+		// when
+		project.close();
+		LogResult logResult = project.log(timeRange("01/07/2014", "08/07/2014"));
+		project.close();
+
+		// then
+		assertThat(logResult.commits(), equalTo(asList(commit1, commit2)));
+		verify(root1, times(2)).close();
+	}
+
+	@Test public void cancelCommandsOfAllRootsWhenOneOfParallelCommandsFails() {
+		// given
+		IllegalStateException exception = new IllegalStateException();
+		when(root1.cloneIt()).thenThrow(exception);
+		when(root2.cloneIt()).thenReturn(new CloneResult());
+		VcsProject project = new VcsProject(asList(root1, root2)).inParallel(2);
+
+		// when
+		try {
+			project.cloneIt();
+			fail();
+		} catch (IllegalStateException e) {
+			assertThat(e, sameInstance(exception));
+		}
+
+		// then
+		verify(root1, atLeastOnce()).cancelLastCommand();
+		verify(root2, atLeastOnce()).cancelLastCommand();
+	}
+
+	@Test public void logNewCommitsAfterLastLoggedRevisions() {
+		// given
+		VcsCommit commit1 = new Commit("1", "", Instant.ofEpochMilli(0), "", "", new ArrayList<>());
+		VcsCommit commit2 = new Commit("2", "", Instant.ofEpochMilli(1000), "", "", new ArrayList<>());
+		when(root1.logAfter(null)).thenReturn(new LogResult(asList(commit1), new ArrayList<>(), "1"));
+		when(root1.logAfter("1")).thenReturn(new LogResult(asList(commit2), new ArrayList<>(), "2"));
+		when(root2.logAfter(null)).thenReturn(new LogResult(new ArrayList<>(), asList(new VcsError("error"))));
+		VcsProject project = new VcsProject(asList(root1, root2));
+
+		// when
+		LogResult logResult1 = project.logNewCommits();
+		LogResult logResult2 = project.logNewCommits();
+
+		// then
+		assertThat(logResult1.commits(), equalTo(asList(commit1)));
+		assertThat(logResult2.commits(), equalTo(asList(commit2)));
+		assertThat(project.lastLoggedRevisions(), equalTo(Collections.singletonMap(root1, "2")));
+		verify(root2, times(2)).logAfter(null);
+	}
+
+	@Test public void logProjectHistoryAsync() throws Exception {
+		// given
+		VcsCommit commit1 = new Commit("1", "", Instant.ofEpochMilli(1000), "", "", new ArrayList<>());
+		VcsCommit commit2 = new Commit("2", "", Instant.ofEpochMilli(0), "", "", new ArrayList<>());
+		when(root1.logAsync(anyTimeRange(), any())).thenReturn(completedFuture(new LogResult(asList(commit1), asList(new VcsError("error1")))));
+		when(root2.logAsync(anyTimeRange(), any())).thenReturn(completedFuture(new LogResult(asList(commit2), asList(new VcsError("error2")))));
+		VcsProject project = new VcsProject(asList(root1, root2));
+
+		// when
+		LogResult logResult = project.logAsync(timeRange("01/07/2014", "08/07/2014"), Runnable::run).get();
+
+		// then
+		assertThat(logResult.commits(), equalTo(asList(commit2, commit1)));
+		assertThat(logResult.exceptions(), equalTo(asList(
+				new VcsError("error1"),
+				new VcsError("error2")
+		)));
+	}
+
+	@Test public void cancelRootCommandsWhenProjectFutureIsCancelled() {
+		// given
+		CompletableFuture<CloneResult> future1 = new CompletableFuture<>();
+		CompletableFuture<CloneResult> future2 = completedFuture(new CloneResult());
+		when(root1.cloneAsync(any())).thenReturn(future1);
+		when(root2.cloneAsync(any())).thenReturn(future2);
+		VcsProject project = new VcsProject(asList(root1, root2));
+
+		// when
+		project.cloneAsync(Runnable::run).cancel(true);
+
+		// then
+		assertThat(future1.isCancelled(), equalTo(true));
+		assertThat(future2.isCancelled(), equalTo(false));
+	}
+
+	private static LogStream logStreamOf(VcsCommit... commits) {
+		QueuedLogStream logStream = new QueuedLogStream(QueuedLogStream.Source.none, false);
+		Thread thread = new Thread(() -> {
+			for (VcsCommit commit : commits) logStream.add(commit);
+			logStream.endOfCommits();
+		});
+		thread.setDaemon(true);
+		thread.start();
+		return new LogStream() {
+			@Override public boolean hasNext() { return logStream.hasNext(); }
+			@Override public VcsCommit next() { return logStream.next(); }
+			@Override public List<Exception> exceptions() { return asList(new VcsError("error")); }
+			@Override public boolean isSuccessful() { return false; }
+			@Override public void close() { logStream.close(); }
+		};
+	}
+
+	private static <T> T awaitOrFail(CountDownLatch latch, T result) throws InterruptedException {
+		if (!latch.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("Commands were not executed in parallel");
+		return result;
+	}
+
 	private static TimeRange anyTimeRange() {
 		return any(TimeRange.class);
 	}
@@ -54,7 +54,7 @@ class CommandLine_GitIntegrationTest {
 	@Test void "log renames"() {
 		def repository = 'repo with moved and renamed file'()
 
-		def commandLine = gitLogRenames(pathToGit, repository.path, repository.revisions[1]).execute()
+		def commandLine = gitLogRenames(pathToGit, repository.path, [repository.revisions[1]]).execute()
 
 		assert commandLine.stderr() == ""
 		assert commandLine.stdout().contains("R100")
@@ -0,0 +1,59 @@
+package org.vcsreader.vcs.git
+
+import java.lang.management.ManagementFactory
+
+import static org.vcsreader.vcs.git.GitCommitParser.commitStartSeparator
+import static org.vcsreader.vcs.git.GitCommitParser.parseListOfCommits
+
+/**
+ * Measures throughput and allocations of {@link GitCommitParser} on synthetic "git log" output.
+ * Run with optional number of commits as the first argument (default is 1M which needs about 2G of heap).
+ */
+class GitCommitParserBenchmark {
+	private static final String fieldSeparator = "\u0019\u0018\u0017\u0016\u0015"
+
+	static void main(String[] args) {
+		int commitCount = args.length > 0 ? args[0].toInteger() : 1_000_000
+		def stdout = syntheticGitLog(commitCount)
+		println("Synthetic git log with ${commitCount} commits: ${stdout.length().intdiv(1024 * 1024)} MB")
+
+		3.times { measure(commitCount) { parseListOfCommits(stdout) } } // warm up
+		5.times { measure(commitCount) { parseListOfCommits(stdout) } }
+	}
+
+	static void measure(int commitCount, Closure closure) {
+		def threadBean = ManagementFactory.threadMXBean as com.sun.management.ThreadMXBean
+		long threadId = Thread.currentThread().id
+		long bytesBefore = threadBean.getThreadAllocatedBytes(threadId)
+		long start = System.nanoTime()
+
+		def commits = closure.call()
+
+		long nanos = System.nanoTime() - start
+		long bytes = threadBean.getThreadAllocatedBytes(threadId) - bytesBefore
+		assert commits.size() == commitCount
+		println(String.format("%,d commits/sec, %,d bytes/commit", (long) (commitCount * 1e9 / nanos), bytes.intdiv(commitCount)))
+	}
+
+	private static String syntheticGitLog(int commitCount) {
+		def random = new Random(123)
+		def hash = { String.format("%040x", new BigInteger(160, random)) }
+		def result = new StringBuilder()
+		def parent = ""
+		long time = 1407628800
+		commitCount.times { i ->
+			def revision = hash()
+			result << commitStartSeparator
+			result << revision << fieldSeparator
+			result << parent << fieldSeparator
+			result << (time + i * 60) << fieldSeparator
+			result << "Some Author" << fieldSeparator
+			result << "Commit ${i} summary\n\nLonger description of commit ${i}\n" << fieldSeparator
+			result << "\nM\0src/main/org/project/Module${i % 100}.java\0"
+			result << "A\0src/main/org/project/New${i}.java\0"
+			result << "R087\0src/old/File${i}.txt\0src/new/File${i}.txt\0\0"
+			parent = revision
+		}
+		result.toString()
+	}
+}
@@ -1,13 +1,20 @@
 package org.vcsreader.vcs.git
 
+import org.junit.After
 import org.junit.Test
+import org.vcsreader.LogQuery
 import org.vcsreader.VcsChange
 import org.vcsreader.VcsProject
+import org.vcsreader.lang.CommandLine
 import org.vcsreader.lang.TimeRange
 import org.vcsreader.vcs.Change
 import org.vcsreader.vcs.Commit
+import org.vcsreader.vcs.CommitStore
+import org.vcsreader.vcs.VcsCommand
 import org.vcsreader.vcs.VcsError
 
+import java.util.concurrent.Executors
+
 import static org.hamcrest.CoreMatchers.equalTo
 import static org.junit.Assert.assertThat
 import static org.vcsreader.VcsChange.Type.*
@@ -22,7 +29,12 @@ import static org.vcsreader.vcs.git.GitRepository.Scripts.*
 
 class GitIntegrationTest {
 	private static final gitSettings = GitSettings.defaults().withGitPath(pathToGit).withFailFast(false)
+	private static final List<VcsProject> projects = []
 
+	@After void closeProjects() {
+		projects*.close()
+		projects.clear()
+	}
 
 	@Test void "clone project"() {
 		def repository = new GitRepository().init()
@@ -157,6 +169,44 @@ class GitIntegrationTest {
 		}
 	}
 
+	@Test void "log commits as stream"() {
+		def repository = 'repo with two commits with three added files'()
+
+		def project = newProject(repository)
+		def logStream = project.logStream(TimeRange.all)
+		def commits = logStream.toList()
+		logStream.close()
+
+		assert commits*.message == ["initial commit", "added file2, file3"]
+		assert logStream.successful
+	}
+
+	@Test void "keep commits from log stream in compact store"() {
+		def repository = 'repo with two added and modified files'()
+
+		def project = newProject(repository)
+		def logStream = project.logStream(TimeRange.all)
+		def commitStore = CommitStore.of(logStream)
+		logStream.close()
+
+		assert commitStore*.message == project.log(TimeRange.all).commits()*.message
+		def change = commitStore.last().changes.first()
+		assert change.type == Modified
+		assert change.fileContent().value == "file1 new content"
+		assert change.fileContentBefore().value == "file1 content"
+	}
+
+	@Test void "close log stream before reading all commits"() {
+		def repository = 'repo with two commits with three added files'()
+
+		def project = newProject(repository)
+		def logStream = project.logStream(TimeRange.all)
+		assert logStream.next().message == "initial commit"
+		logStream.close()
+
+		assert !logStream.hasNext()
+	}
+
 	@Test void "log commit with modified files"() {
 		def repository = 'repo with two added and modified files'()
 		def revisions = repository.revisions
@@ -214,6 +264,30 @@ class GitIntegrationTest {
 		])
 	}
 
+	@Test void "log moved and modified files when git skips rename detection because of rename limit"() {
+		def repository = 'repo with moved and modified files'()
+		def revisions = repository.revisions
+
+		def project = newProject(repository)
+		def projectFolder = (project.vcsRoots().first() as GitVcsRoot).repoFolder()
+		new CommandLine(pathToGit, "config", "diff.renameLimit", "1").workingDir(projectFolder).execute()
+		def logResult = project.log(timeRange("18/08/2014", "19/08/2014"))
+
+		assertCommitsIn(logResult, [
+			new Commit(
+				revisions[1], revisions[0],
+				dateTime("14:00:00 18/08/2014"),
+				author,
+				"moved and modified files",
+				[
+						new Change(Moved, "folder/file1.txt", "file1.txt", revisions[1], revisions[0]),
+						new Change(Moved, "folder/file2.txt", "file2.txt", revisions[1], revisions[0]),
+						new Change(Moved, "folder/file3.txt", "file3.txt", revisions[1], revisions[0])
+				]
+			)
+		])
+	}
+
 	@Test void "log deleted file"() {
 		def repository = 'repo with deleted file'()
 		def revisions = repository.revisions
@@ -270,6 +344,27 @@ class GitIntegrationTest {
 		assert nonAsciiContent == "non-ascii содержимое"
 	}
 
+	@Test void "log files with tabs, quotes and non-ascii characters in their names"() {
+		def repository = new GitRepository().init()
+		repository.create("file\twith\ttabs.txt")
+		repository.create('file "with" quotes.txt')
+		repository.create("файл.txt", "non-ascii content")
+		repository.commit("added files", "Aug 18 14:00:00 2014 +0000")
+		repository.move("файл.txt", "переименованный\tфайл.txt")
+		repository.commit("renamed file", "Aug 19 14:00:00 2014 +0000")
+
+		def project = newProject(repository)
+		def commits = project.log(TimeRange.all).commits()
+
+		assert commits.first().changes*.filePath.sort() == ["file\twith\ttabs.txt", 'file "with" quotes.txt', "файл.txt"].sort()
+		commits.last().changes.first().with {
+			assert type == Moved
+			assert filePath == "переименованный\tфайл.txt"
+			assert filePathBefore == "файл.txt"
+			assert fileContent().value == "non-ascii content"
+		}
+	}
+
 	@Test void "log commit with empty message"() {
 		def repository = new GitRepository().init().with {
 			create("file.txt")
@@ -424,6 +519,199 @@ class GitIntegrationTest {
 		assert change.fileContentBefore().value == "file content"
 	}
 
+	@Test void "log file content after git process was stopped or cancelled"() {
+		def repository = 'repo with two added and modified files'()
+		def revisions = repository.revisions
+		def vcsRoot = new GitVcsRoot(newProjectPath(), repository.path, gitSettings)
+		vcsRoot.cloneIt()
+
+		assert vcsRoot.logFileContent("file1.txt", revisions[1]).text() == "file1 new content"
+		vcsRoot.close()
+		assert vcsRoot.logFileContent("file1.txt", revisions[0]).text() == "file1 content"
+		vcsRoot.catFileBatch.cancel()
+		assert vcsRoot.logFileContent("file2.txt", revisions[1]).text() == "file2 new content"
+		assert !vcsRoot.logFileContent("non-existent.txt", revisions[1]).isSuccessful()
+
+		vcsRoot.close()
+		assert !vcsRoot.catFileBatch.running
+	}
+
+	@Test void "closing project stops git process"() {
+		def repository = 'repo with two added and modified files'()
+		def project = newProject(repository)
+		def vcsRoot = project.vcsRoots().first()
+
+		assert vcsRoot.logFileContent("file1.txt", repository.revisions[1]).text() == "file1 new content"
+		assert vcsRoot.catFileBatch.running
+		project.close()
+		assert !vcsRoot.catFileBatch.running
+	}
+
+	@Test void "log commits in parallel time slices"() {
+		def repository = 'repo with two commits with three added files'()
+		def project = newProject(repository).inParallel(2).inTimeSlices(5)
+
+		assert project.log(TimeRange.all).commits()*.message == ["initial commit", "added file2, file3"]
+		assert project.log(timeRange("10/08/2014", "12/08/2014")).commits()*.message == ["initial commit", "added file2, file3"]
+	}
+
+	@Test void "log new commits incrementally"() {
+		def repository = 'repo with two commits with three added files'()
+		def project = newProject(repository)
+
+		def firstLogResult = project.logNewCommits()
+		assert firstLogResult.commits() == project.log(TimeRange.all).commits()
+		assert project.logNewCommits().commits().empty
+
+		repository.create("file4.txt")
+		repository.commit("added file4", "Aug 12 12:00:00 2014 +0000")
+		project.update()
+		def projectWithSavedRevisions = new VcsProject(project.vcsRoots()).useLastLoggedRevisions(project.lastLoggedRevisions())
+		def newLogResult = projectWithSavedRevisions.logNewCommits()
+
+		assert newLogResult.isSuccessful()
+		assert newLogResult.commits()*.message == ["added file4"]
+		assert firstLogResult.commits() + newLogResult.commits() == project.log(TimeRange.all).commits()
+	}
+
+	@Test void "log commits metadata and load changes on first access"() {
+		def repository = 'repo with two added and modified files'()
+		def project = newProject(repository)
+		def commands = []
+		def lazyRoot = new GitVcsRoot(project.vcsRoots().first().repoFolder(), null, gitSettings.withLazyChanges(true))
+		def lazyProject = new VcsProject(lazyRoot)
+		projects << lazyProject
+		lazyProject.addListener(new VcsCommand.Listener() {
+			@Override void beforeCommand(VcsCommand<?> command) {}
+			@Override void afterCommand(VcsCommand<?> command) { commands << command.describe() }
+		})
+
+		def logResult = lazyProject.log(TimeRange.all)
+		assert logResult.successful
+		assert commands.size() == 1 && !commands[0].contains("--name-status")
+
+		def commits = project.log(TimeRange.all).commits()
+		assert logResult.commits() == commits
+		assert commands.size() == 1
+
+		assert logResult.commits()*.changes == commits*.changes
+		assert commands.size() == 2 && commands[1].contains("--no-walk")
+		assert logResult.commits().last().changes.first().fileContent().value == "file1 new content"
+	}
+
+	@Test void "log commits matching query"() {
+		def repository = 'repo with two commits with three added files'()
+		def revisions = repository.revisions
+		def project = newProject(repository)
+
+		assert project.log(LogQuery.all.withPaths("file2.txt")).commits()*.revision == [revisions[1]]
+		assert project.log(LogQuery.all.withPaths("file2.txt")).commits().first().changes*.filePath == ["file2.txt", "file3.txt"]
+		assert project.log(LogQuery.all.withExcludedPaths("file2.txt", "file3.txt")).commits()*.revision == [revisions[0]]
+		assert project.log(LogQuery.all.withMessageText("INITIAL")).commits()*.revision == [revisions[0]]
+		assert project.log(LogQuery.all.withAuthors(author)).commits()*.revision == revisions
+		assert project.log(LogQuery.all.withAuthors("Some")).commits().empty
+		assert project.log(LogQuery.all.withMaxCount(1)).commits()*.revision == [revisions[1]]
+	}
+
+	@Test void "log max count of commits matching authors"() {
+		def repository = new GitRepository().init().with {
+			create("file1.txt")
+			commit("commit by author", "Aug 10 00:00:00 2014 +0000")
+			create("file2.txt")
+			commit("commit by another author", "Aug 11 00:00:00 2014 +0000", "Some Author Junior <junior@mail.com>")
+			it
+		}
+		def project = newProject(repository)
+		def commands = []
+		project.addListener(new VcsCommand.Listener() {
+			@Override void beforeCommand(VcsCommand<?> command) {}
+			@Override void afterCommand(VcsCommand<?> command) { commands << command.describe() }
+		})
+
+		def commits = project.log(LogQuery.all.withAuthors(author).withMaxCount(1)).commits()
+
+		assert commits*.revision == [repository.revisions[0]]
+		assert commands.size() == 1 && commands[0].contains("--max-count=1")
+	}
+
+	@Test void "log commits matching authors with regex characters exactly"() {
+		def repository = new GitRepository().init().with {
+			create("file1.txt")
+			commit("commit by author", "Aug 10 00:00:00 2014 +0000", "A.B (Author) <ab@mail.com>")
+			create("file2.txt")
+			commit("commit by another author", "Aug 11 00:00:00 2014 +0000", "AxB (Author) <axb@mail.com>")
+			create("file3.txt")
+			commit("another commit by author", "Aug 12 00:00:00 2014 +0000", "a.b (author) <ab@mail.com>")
+			it
+		}
+		def project = newProject(repository)
+		def revisions = repository.revisions
+
+		assert project.log(LogQuery.all.withAuthors("A.B (Author)")).commits()*.revision == [revisions[0]]
+		assert project.log(LogQuery.all.withAuthors("A.B (Author)").withMessageText("COMMIT BY")).commits()*.revision == [revisions[0]]
+		assert project.log(LogQuery.all.withAuthors("A.B (Author)", "a.b (author)").withMaxCount(1)).commits()*.revision == [revisions[2]]
+	}
+
+	@Test void "log max count of commits without counting merge commits"() {
+		def repository = new GitRepository().init().with {
+			create("dummy-file.txt")
+			commit("added dummy file", "Aug 20 18:10:00 2014 +0000")
+
+			createAndCheckoutBranch("a-branch")
+			create("file-branch.txt")
+			commit("added file-branch.txt", "Aug 21 19:00:00 2014 +0000")
+
+			checkoutBranch("master")
+			create("file-master.txt")
+			commit("added file-master.txt", "Aug 21 19:10:00 2014 +0000")
+			mergeBranch("a-branch", "merged branch into master", "Aug 21 19:20:00 2014 +0000")
+			it
+		}
+		def project = newProject(repository)
+
+		def commits = project.log(LogQuery.all.withMaxCount(2)).commits()
+
+		assert commits*.message == ["added file-branch.txt", "added file-master.txt"]
+	}
+
+	@Test void "log only requested commit fields"() {
+		def repository = new GitRepository().init().with {
+			create("file.txt")
+			commit("subject\n\nlong generated body", "Aug 10 00:00:00 2014 +0000")
+			it
+		}
+		def project = newProject(repository)
+
+		def subjectOnly = project.log(LogQuery.all.withMessage(LogQuery.Message.subject)).commits().first()
+		assert subjectOnly.message == "subject"
+		assert subjectOnly.author == author
+
+		def metadataOnly = project.log(LogQuery.all.withMessage(LogQuery.Message.none).withAuthor(false).withChanges(false)).commits().first()
+		assert metadataOnly.revision == repository.revisions.first()
+		assert metadataOnly.message == ""
+		assert metadataOnly.author == ""
+		assert metadataOnly.changes.empty
+
+		def filteredByAuthor = project.log(LogQuery.all.withAuthor(false).withAuthors(author)).commits().first()
+		assert filteredByAuthor.author == author
+	}
+
+	@Test void "log commits and file content asynchronously"() {
+		def repository = 'repo with two added and modified files'()
+		def revisions = repository.revisions
+		def executor = Executors.newFixedThreadPool(2)
+		def project = newProject(repository)
+		def vcsRoot = project.vcsRoots().first()
+
+		def logResult = project.logAsync(timeRange("12/08/2014", "13/08/2014"), executor).get()
+		def fileContent = vcsRoot.logFileContentAsync("file1.txt", revisions[0], executor).get()
+
+		assert logResult.commits()*.revision == [revisions[1]]
+		assert logResult.commits().first().changes.first().fileContent().value == "file1 new content"
+		assert fileContent.text() == "file1 content"
+		executor.shutdown()
+	}
+
 	@Test void "clone project can cancel"() {
 		def repository = new GitRepository().init()
 		def project = new VcsProject(new GitVcsRoot(newProjectPath(), repository.path, gitSettings))
@@ -438,6 +726,7 @@ class GitIntegrationTest {
 		def project = new VcsProject(new GitVcsRoot(newProjectPath(), repository.path, gitSettings))
 		project.addListener(printingListener)
 		project.cloneIt()
+		projects << project
 		project
 	}
 
@@ -0,0 +1,82 @@
+package org.vcsreader.vcs.git
+
+import org.vcsreader.lang.StringPool
+import org.vcsreader.vcs.CommitStore
+
+import java.lang.management.ManagementFactory
+
+import static org.vcsreader.vcs.git.GitCommitParser.commitStartSeparator
+import static org.vcsreader.vcs.git.GitCommitParser.parseListOfCommits
+
+/**
+ * Reports heap retained by commits parsed from synthetic "git log" output
+ * with and without deduplication of revisions, authors and file paths by {@link StringPool}
+ * and after converting commits to {@link CommitStore}.
+ * The log has realistic repetition: a few dozen authors, a few thousand files, each file is changed many times.
+ * Run with optional number of commits as the first argument (default is 100k).
+ */
+class GitLogMemoryReport {
+	private static final String fieldSeparator = "\u0019\u0018\u0017\u0016\u0015"
+
+	static void main(String[] args) {
+		int commitCount = args.length > 0 ? args[0].toInteger() : 100_000
+		def stdout = syntheticGitLog(commitCount, 50, 5000)
+
+		def withoutPool = retainedBytes { parseListOfCommits(stdout, new NonDeduplicatingPool()) }
+		def withPool = retainedBytes { parseListOfCommits(stdout, new StringPool()) }
+		def commitStore = retainedBytes { CommitStore.of(parseListOfCommits(stdout, new StringPool())) }
+
+		def perHundredK = { long bytes -> String.format("%,d KB", (bytes * 100_000).intdiv(commitCount).intdiv(1024)) }
+		println("Retained heap per 100k commits without string pool: ${perHundredK(withoutPool)}")
+		println("Retained heap per 100k commits with string pool: ${perHundredK(withPool)}")
+		println("Retained heap per 100k commits in CommitStore: ${perHundredK(commitStore)}")
+	}
+
+	private static long retainedBytes(Closure<List> closure) {
+		long before = usedHeap()
+		def commits = closure.call()
+		long after = usedHeap()
+		assert !commits.empty
+		after - before
+	}
+
+	private static long usedHeap() {
+		def memoryBean = ManagementFactory.memoryMXBean
+		3.times { System.gc() }
+		memoryBean.heapMemoryUsage.used
+	}
+
+	private static String syntheticGitLog(int commitCount, int authorCount, int fileCount) {
+		def random = new Random(123)
+		def hash = { String.format("%040x", new BigInteger(160, random)) }
+		def filePath = { "src/main/org/project/module${it % 20}/SomeClass${it}.java" }
+		def result = new StringBuilder()
+		def parent = ""
+		long time = 1407628800
+		commitCount.times { i ->
+			def revision = hash()
+			result << commitStartSeparator
+			result << revision << fieldSeparator
+			result << parent << fieldSeparator
+			result << (time + i * 60) << fieldSeparator
+			result << "Author ${random.nextInt(authorCount)}" << fieldSeparator
+			result << "Commit ${i}\n" << fieldSeparator
+			result << "\n"
+			(1 + random.nextInt(5)).times {
+				result << "M\0" << filePath(random.nextInt(fileCount)) << "\0"
+			}
+			result << "\0"
+			parent = revision
+		}
+		result.toString()
+	}
+
+	/**
+	 * Allocates new string for each value, i.e. the same as parsing without string pool.
+	 */
+	private static class NonDeduplicatingPool extends StringPool {
+		@Override String intern(CharSequence s, int from, int to) {
+			s.subSequence(from, to).toString()
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package org.vcsreader.vcs.git
+
+import org.vcsreader.VcsChange
+import org.vcsreader.lang.CommandLine
+import org.vcsreader.lang.TimeRange
+
+import static java.nio.charset.StandardCharsets.UTF_8
+import static org.vcsreader.vcs.git.GitCommitParser.logFormat
+import static org.vcsreader.vcs.git.GitCommitParser.parseListOfCommits
+import static org.vcsreader.vcs.git.GitIntegrationTestConfig.newReferenceRepoPath
+import static org.vcsreader.vcs.git.GitIntegrationTestConfig.pathToGit
+import static org.vcsreader.vcs.git.GitLog.gitLogRenames
+
+/**
+ * Compares reading history of repository where each commit renames and modifies a file:
+ * "git log" without rename detection followed by "git show -M" for each commit (the way renames were detected before)
+ * or by single "git diff-tree --stdin" process (fallback used by {@link GitLog}) vs "git log -M".
+ * Run with: -Dvcsreader.test.gitPath=/path/to/git and optional number of commits as the first argument.
+ */
+class GitLogRenamesBenchmark {
+	static void main(String[] args) {
+		int commitCount = args.length > 0 ? args[0].toInteger() : 2000
+		def repoPath = createRepoWithRenames(commitCount)
+		println("Repository with ${commitCount} commits: ${repoPath}")
+
+		measure("git log --no-renames + git show -M per commit") { logWithRenamesPerCommit(repoPath) }
+		measure("git log --no-renames + git diff-tree --stdin -M") { logWithRenamesInDiffTree(repoPath) }
+		measure("git log -M") { logWithRenamesInLog(repoPath) }
+	}
+
+	private static int logWithRenamesPerCommit(String repoPath) {
+		def revisions = logWithoutRenames(repoPath)
+		revisions.each { revision ->
+			new CommandLine(pathToGit, "show", "-M", "--pretty=format:", "--name-status", revision).workingDir(repoPath).execute()
+		}
+		1 + revisions.size()
+	}
+
+	private static int logWithRenamesInDiffTree(String repoPath) {
+		def revisions = logWithoutRenames(repoPath)
+		def commandLine = gitLogRenames(pathToGit, repoPath, revisions).execute()
+		assert commandLine.stdout().count("\0R") == revisions.size()
+		2
+	}
+
+	private static List<String> logWithoutRenames(String repoPath) {
+		def commandLine = new CommandLine(pathToGit, "log", "--no-renames", "--name-status", "--encoding=UTF-8", "-z", logFormat())
+				.workingDir(repoPath).outputCharset(UTF_8).execute()
+		parseListOfCommits(commandLine.stdout()).findAll { commit ->
+			def types = commit.changes*.type
+			types.contains(VcsChange.Type.Added) && types.contains(VcsChange.Type.Deleted)
+		}*.revision
+	}
+
+	private static int logWithRenamesInLog(String repoPath) {
+		def gitLog = new GitLog(pathToGit, repoPath, TimeRange.all)
+		def logResult = gitLog.execute()
+		assert logResult.successful
+		gitLog.describe().split("\n").length
+	}
+
+	private static void measure(String description, Closure<Integer> closure) {
+		closure.call() // warm up file system cache
+		long start = System.nanoTime()
+		int processCount = closure.call()
+		long millis = (System.nanoTime() - start).intdiv(1000000)
+		println("${description}: ${processCount} git processes, ${millis} ms")
+	}
+
+	private static String createRepoWithRenames(int commitCount) {
+		def repoPath = newReferenceRepoPath()
+		new CommandLine(pathToGit, "init", "-q").workingDir(repoPath).execute()
+
+		def fastImport = new StringBuilder()
+		def data = { String s -> "data ${s.getBytes(UTF_8).length}\n${s}\n" }
+		long time = 1407628800
+		(0..commitCount).each { i ->
+			def content = (1..20).collect { "line ${it}\n" }.join() + "change ${i}\n"
+			fastImport << "commit refs/heads/master\n"
+			fastImport << "mark :${i + 1}\n"
+			fastImport << "committer Some Author <some.author@mail.com> ${time + i * 60} +0000\n"
+			fastImport << data("commit ${i}")
+			if (i > 0) fastImport << "from :${i}\n" << "D file${i - 1}.txt\n"
+			fastImport << "M 644 inline file${i}.txt\n" << data(content)
+		}
+		def process = new ProcessBuilder(pathToGit, "fast-import", "--quiet").directory(new File(repoPath)).start()
+		process.outputStream.withStream { it.write(fastImport.toString().getBytes(UTF_8)) }
+		process.waitForProcessOutput(System.out, System.err)
+		assert process.exitValue() == 0
+		new CommandLine(pathToGit, "checkout", "-q", "master").workingDir(repoPath).execute()
+
+		repoPath
+	}
+}
@@ -77,7 +77,7 @@ class GitRepository {
 		git(env, "commit", "--amend", "-m", message)
 	}
 
-	def commit(String message, String commitTime) {
+	def commit(String message, String commitTime, String commitAuthor = authorWithEmail) {
 		def epochSeconds = String.valueOf(DateTimeUtil.dateTime(commitTime).epochSecond)
 
 		git("add", "--all",  ".")
@@ -86,7 +86,7 @@ class GitRepository {
 
 		// committer date has to be specified because when requesting git log it checks committer date not author date
 		def env = ["GIT_COMMITTER_DATE": epochSeconds]
-		git(env, "commit", "--allow-empty-message", "--allow-empty", "--amend", "--author=" + authorWithEmail, "--date=" + epochSeconds, "-m", message)
+		git(env, "commit", "--allow-empty-message", "--allow-empty", "--amend", "--author=" + commitAuthor, "--date=" + epochSeconds, "-m", message)
 	}
 
 	private def git(Map environment = [:], String... args) {
@@ -166,6 +166,21 @@ class GitRepository {
 			}
 		}
 
+		static 'repo with moved and modified files'() {
+			new GitRepository().init().with {
+				(1..3).each { create("file${it}.txt", (1..100).collect{ line -> "file${it} line ${line}\n" }.join()) }
+				commit("initial commit", "Aug 10 00:00:00 2014 +0000")
+
+				mkdir("folder")
+				(1..3).each {
+					move("file${it}.txt", "folder/file${it}.txt")
+					create("folder/file${it}.txt", new File(path, "folder/file${it}.txt").text + "new line\n")
+				}
+				commit("moved and modified files", "Aug 18 14:00:00 2014 +0000")
+				it
+			}
+		}
+
 		static 'repo with deleted file'() {
 			new GitRepository().init().with {
 				create("file.txt", "file content")
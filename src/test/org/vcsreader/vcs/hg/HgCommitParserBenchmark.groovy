@@ -0,0 +1,52 @@
+package org.vcsreader.vcs.hg
+
+import java.time.Instant
+import java.time.ZoneOffset
+import java.time.format.DateTimeFormatter
+
+import static org.vcsreader.vcs.git.GitCommitParserBenchmark.measure
+import static org.vcsreader.vcs.hg.HgCommitParser.commitStartSeparator
+import static org.vcsreader.vcs.hg.HgCommitParser.parseListOfCommits
+
+/**
+ * Measures throughput and allocations of {@link HgCommitParser} on synthetic "hg log" output.
+ * Run with optional number of commits as the first argument (default is 1M which needs about 2G of heap).
+ */
+class HgCommitParserBenchmark {
+	private static final String fieldSeparator = "\u0019\u0018\u0017\u0016\u0015"
+	private static final String fileSeparator = "\u0017\u0016\u0015\u0019\u0018"
+
+	static void main(String[] args) {
+		int commitCount = args.length > 0 ? args[0].toInteger() : 1_000_000
+		def stdout = syntheticHgLog(commitCount)
+		println("Synthetic hg log with ${commitCount} commits: ${stdout.length().intdiv(1024 * 1024)} MB")
+
+		3.times { measure(commitCount) { parseListOfCommits(stdout) } } // warm up
+		5.times { measure(commitCount) { parseListOfCommits(stdout) } }
+	}
+
+	private static String syntheticHgLog(int commitCount) {
+		def random = new Random(123)
+		def hash = { String.format("%040x", new BigInteger(160, random)) }
+		def result = new StringBuilder()
+		def parent = "0000000000000000000000000000000000000000"
+		def dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss Z").withZone(ZoneOffset.UTC)
+		long time = 1407628800
+		commitCount.times { i ->
+			def revision = hash()
+			def date = dateFormatter.format(Instant.ofEpochSecond(time + i * 60))
+			result << commitStartSeparator
+			result << revision << fieldSeparator
+			result << parent << fieldSeparator
+			result << date << fieldSeparator
+			result << "Some Author" << fieldSeparator
+			result << "Commit ${i} summary\n\nLonger description of commit ${i}" << fieldSeparator
+			result << "src/main/org/project/New${i}.java" << fileSeparator << "src/new/File${i}.txt" << fieldSeparator
+			result << "src/old/File${i}.txt" << fieldSeparator
+			result << "src/new/File${i}.txt (src/old/File${i}.txt)" << fieldSeparator
+			result << "src/main/org/project/Module${i % 100}.java" << fieldSeparator
+			parent = revision
+		}
+		result.toString()
+	}
+}
@@ -0,0 +1,74 @@
+package org.vcsreader.vcs.hg
+
+import org.junit.Test
+import org.vcsreader.lang.StringPool
+import org.vcsreader.vcs.Change
+import org.vcsreader.vcs.Commit
+
+import static org.vcsreader.VcsChange.Type.*
+import static org.vcsreader.VcsChange.noFilePath
+import static org.vcsreader.lang.DateTimeUtil.dateTime
+import static org.vcsreader.vcs.TestUtil.assertEqualCommits
+import static org.vcsreader.vcs.hg.HgCommitParser.commitStartSeparator
+import static org.vcsreader.vcs.hg.HgCommitParser.parseListOfCommits
+
+class HgCommitParserTest {
+	private static final String fieldSeparator = "\u0019\u0018\u0017\u0016\u0015"
+	private static final String fileSeparator = "\u0017\u0016\u0015\u0019\u0018"
+	private static final String revision1 = "a" * 40
+	private static final String revision2 = "b" * 40
+
+	@Test void "parse commits with files in each list of changes"() {
+		def stdout = commitStartSeparator + hgCommit(revision1, "0" * 40, 1) + commitStartSeparator + hgCommit(revision2, revision1, 2)
+
+		assertEqualCommits(parseListOfCommits(stdout), [expectedCommit(revision1, "noRevision", 1), expectedCommit(revision2, revision1, 2)])
+	}
+
+	@Test void "don't read output after the end of commit"() {
+		def stdout = hgCommit(revision1, "0" * 40, 1) + commitStartSeparator + hgCommit(revision2, revision1, 2)
+		int commitEnd = stdout.indexOf(commitStartSeparator)
+
+		def commit = HgCommitParser.parseCommit(readableUntil(stdout, commitEnd), 0, commitEnd, new StringPool())
+
+		assertEqualCommits([commit], [expectedCommit(revision1, "noRevision", 1)])
+	}
+
+	private static String hgCommit(String revision, String revisionBefore, int i) {
+		revision + fieldSeparator +
+			revisionBefore + fieldSeparator +
+			"2014-08-1${i} 15:00:00 +0000" + fieldSeparator +
+			"Some Author" + fieldSeparator +
+			"commit ${i}" + fieldSeparator +
+			"added${i}.txt" + fieldSeparator +
+			"deleted${i}.txt" + fieldSeparator +
+			"copied${i}.txt (original${i}.txt)" + fieldSeparator +
+			"modified${i}.txt" + fieldSeparator
+	}
+
+	private static Commit expectedCommit(String revision, String revisionBefore, int i) {
+		new Commit(revision, revisionBefore, dateTime("15:00:00 1${i}/08/2014"), "Some Author", "commit ${i}", [
+			new Change(Added, "added${i}.txt", revision),
+			new Change(Deleted, noFilePath, "deleted${i}.txt", revision, revisionBefore),
+			new Change(Moved, "copied${i}.txt", "original${i}.txt", revision, revisionBefore),
+			new Change(Modified, "modified${i}.txt", "modified${i}.txt", revision, revisionBefore),
+		])
+	}
+
+	/**
+	 * @return char sequence which fails if characters at {@code limit} or after it are read
+	 */
+	private static CharSequence readableUntil(String s, int limit) {
+		new CharSequence() {
+			@Override int length() { s.length() }
+			@Override char charAt(int index) {
+				if (index >= limit) throw new IndexOutOfBoundsException("Read after the end of commit at " + index)
+				s.charAt(index)
+			}
+			@Override CharSequence subSequence(int start, int end) {
+				if (end > limit) throw new IndexOutOfBoundsException("Read after the end of commit at " + end)
+				s.subSequence(start, end)
+			}
+			@Override String toString() { s }
+		}
+	}
+}
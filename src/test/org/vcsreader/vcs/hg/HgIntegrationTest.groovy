@@ -157,6 +157,29 @@ class HgIntegrationTest {
 		}
 	}
 
+	@Test void "log commits as stream"() {
+		def repository = 'repo with two commits with three added files'()
+
+		def project = newProject(repository)
+		def logStream = project.logStream(TimeRange.all)
+		def commits = logStream.toList()
+		logStream.close()
+
+		assert commits*.message == ["initial commit", "added file2, file3"]
+		assert logStream.successful
+	}
+
+	@Test void "close log stream before reading all commits"() {
+		def repository = 'repo with two commits with three added files'()
+
+		def project = newProject(repository)
+		def logStream = project.logStream(TimeRange.all)
+		assert logStream.next().message == "initial commit"
+		logStream.close()
+
+		assert !logStream.hasNext()
+	}
+
 	@Test void "log modification commit"() {
 		def repository = 'repo with two added and modified files'()
 		def revisions = repository.revisions
@@ -304,6 +327,43 @@ class HgIntegrationTest {
 		assert change.fileContentBefore().value == "file content"
 	}
 
+	@Test void "log new commits incrementally"() {
+		def repository = 'repo with two commits with three added files'()
+		def project = newProject(repository)
+
+		def firstLogResult = project.logNewCommits()
+		assert firstLogResult.commits() == project.log(TimeRange.all).commits()
+		assert project.logNewCommits().commits().empty
+
+		repository.create("file4.txt")
+		repository.commit("added file4", "Aug 12 12:00:00 2014 +0000")
+		project.update()
+		def newLogResult = project.logNewCommits()
+
+		assert newLogResult.isSuccessful()
+		assert newLogResult.commits()*.message == ["added file4"]
+		assert firstLogResult.commits() + newLogResult.commits() == project.log(TimeRange.all).commits()
+	}
+
+	@Test void "log commits and file content using command server"() {
+		def repository = 'repo with two added and modified files'()
+		def vcsRoot = new HgVcsRoot(newProjectPath(), repository.path, hgSettings.withCommandServer(true))
+		def project = new VcsProject(vcsRoot)
+		project.addListener(printingListener)
+		project.cloneIt()
+
+		def logResult = project.log(timeRange("12/08/2014", "13/08/2014"))
+		def change = logResult.commits().first().changes.first()
+		assert change.type == Modified
+		assert change.fileContent().value == "file1 new content"
+		assert change.fileContentBefore().value == "file1 content"
+		assert !vcsRoot.logFileContent("non-existent.txt", repository.revisions[1]).isSuccessful()
+
+		vcsRoot.close()
+		assert project.log(timeRange("11/08/2014", "12/08/2014")).commits().size() == 1
+		vcsRoot.close()
+	}
+
 	private static VcsProject newProject(HgRepository repository) {
 		def project = new VcsProject(new HgVcsRoot(newProjectPath(), repository.path, hgSettings))
 		project.addListener(printingListener)
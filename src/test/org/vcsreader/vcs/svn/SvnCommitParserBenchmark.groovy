@@ -0,0 +1,45 @@
+package org.vcsreader.vcs.svn
+
+import org.vcsreader.lang.StringPool
+
+import java.time.Instant
+
+import static org.vcsreader.vcs.git.GitCommitParserBenchmark.measure
+
+/**
+ * Measures throughput and allocations of {@link SvnCommitParser} on synthetic "svn log --xml" output.
+ * Run with optional number of commits as the first argument (default is 500K which needs about 2G of heap).
+ */
+class SvnCommitParserBenchmark {
+	static void main(String[] args) {
+		int commitCount = args.length > 0 ? args[0].toInteger() : 500_000
+		def stdout = syntheticSvnLog(commitCount)
+		println("Synthetic svn log with ${commitCount} commits: ${stdout.length().intdiv(1024 * 1024)} MB")
+
+		3.times { measure(commitCount) { SvnCommitParser.parseCommits(stdout, new StringPool()) } } // warm up
+		5.times { measure(commitCount) { SvnCommitParser.parseCommits(stdout, new StringPool()) } }
+	}
+
+	private static String syntheticSvnLog(int commitCount) {
+		def result = new StringBuilder()
+		result << '<?xml version="1.0" encoding="UTF-8"?>\n<log>\n'
+		long time = 1407628800
+		commitCount.times { i ->
+			def revision = i + 1
+			def date = Instant.ofEpochSecond(time + i * 60).toString().replace("Z", ".123456Z")
+			result << "<logentry revision=\"${revision}\">\n"
+			result << "<author>Some Author</author>\n"
+			result << "<date>${date}</date>\n"
+			result << "<paths>\n"
+			result << "<path action=\"A\" prop-mods=\"false\" text-mods=\"true\" kind=\"file\">/trunk/src/main/org/project/New${i}.java</path>\n"
+			result << "<path action=\"A\" copyfrom-path=\"/trunk/src/old/File${i}.txt\" copyfrom-rev=\"${i}\" prop-mods=\"false\" text-mods=\"false\" kind=\"file\">/trunk/src/new/File${i}.txt</path>\n"
+			result << "<path action=\"D\" prop-mods=\"false\" text-mods=\"false\" kind=\"file\">/trunk/src/old/File${i}.txt</path>\n"
+			result << "<path action=\"M\" prop-mods=\"false\" text-mods=\"true\" kind=\"file\">/trunk/src/main/org/project/Module${i % 100}.java</path>\n"
+			result << "</paths>\n"
+			result << "<msg>Commit ${i} summary\n\nLonger description of commit ${i}</msg>\n"
+			result << "</logentry>\n"
+		}
+		result << "</log>\n"
+		result.toString()
+	}
+}
@@ -1,6 +1,7 @@
 package org.vcsreader.vcs.svn
 
 import org.junit.Test
+import org.vcsreader.lang.StringPool
 import org.vcsreader.vcs.Change
 import org.vcsreader.vcs.Commit
 
@@ -148,4 +149,67 @@ class SvnCommitParserTest {
 				)
 		])
 	}
+
+	@Test void "skip changes outside of sub-path and use it as root of file paths"() {
+		def xml = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <log>
+                <logentry revision="2">
+                <author>Some Author</author>
+                <date>2014-08-10T15:00:00.000000Z</date>
+                <paths>
+                        <path text-mods="true" kind="file" action="M">/trunk/modified.txt</path>
+                        <path text-mods="true" kind="file" action="A">/branches/added.txt</path>
+                        <path copyfrom-path="/other/moved-in.txt" copyfrom-rev="1" kind="file" action="A">/trunk/moved-in.txt</path>
+                        <path kind="file" action="D">/trunk/moved-out.txt</path>
+                        <path copyfrom-path="/trunk/moved-out.txt" copyfrom-rev="1" kind="file" action="A">/other/moved-out.txt</path>
+                        <path kind="file" action="D">/trunk/moved-before.txt</path>
+                        <path copyfrom-path="/trunk/moved-before.txt" copyfrom-rev="1" kind="file" action="A">/trunk/moved-after.txt</path>
+                </paths>
+                <msg>commit message</msg>
+                </logentry>
+            </log>
+        """.trim()
+
+		assertEqualCommits(SvnCommitParser.parseCommits(xml, "trunk/", new StringPool()), [
+				new Commit(
+						"2", "1",
+						dateTime("15:00:00 10/08/2014"),
+						"Some Author",
+						"commit message",
+						[
+								new Change(Modified, "modified.txt", "modified.txt", "2", "1"),
+								new Change(Added, "moved-in.txt", "", "2", "1"),
+								new Change(Deleted, "", "moved-out.txt", "2", "1"),
+								new Change(Moved, "moved-after.txt", "moved-before.txt", "2", "1"),
+						]
+				)
+		])
+	}
+
+	@Test void "parse commits from input stream as soon as logentry is read"() {
+		def truncatedXml = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <log>
+                <logentry revision="1">
+                <author>Some Author</author>
+                <date>2014-08-10T15:00:00.000000Z</date>
+                </logentry>
+                <logentry revision="2">
+                <author>Some
+        """.trim()
+
+		def commits = []
+		def exception = null
+		try {
+			SvnCommitParser.parseCommits(new ByteArrayInputStream(truncatedXml.getBytes("UTF-8")), "", new StringPool(), { commits << it })
+		} catch (RuntimeException e) {
+			exception = e
+		}
+
+		assert exception != null
+		assertEqualCommits(commits, [
+				new Commit("1", noRevision, dateTime("15:00:00 10/08/2014"), "Some Author", "", [])
+		])
+	}
 }
@@ -6,6 +6,7 @@ import org.vcsreader.VcsProject
 import org.vcsreader.lang.TimeRange
 import org.vcsreader.vcs.Change
 import org.vcsreader.vcs.Commit
+import org.vcsreader.vcs.VcsCommand
 
 import static org.hamcrest.CoreMatchers.equalTo
 import static org.junit.Assert.assertThat
@@ -133,6 +134,56 @@ class SvnIntegrationTest {
 		}
 	}
 
+	@Test void "log commits as stream"() {
+		def repository = 'repo with two commits with three added files'()
+
+		def project = newProject(repository)
+		def logStream = project.logStream(TimeRange.all)
+		def commits = logStream.toList()
+		logStream.close()
+
+		assert commits*.message == ["initial commit", "added file2, file3"]
+		assert logStream.successful
+	}
+
+	@Test void "close log stream before reading all commits"() {
+		def repository = 'repo with two commits with three added files'()
+
+		def project = newProject(repository)
+		def logStream = project.logStream(TimeRange.all)
+		assert logStream.next().message == "initial commit"
+		logStream.close()
+
+		assert !logStream.hasNext()
+	}
+
+	@Test void "resolve time range into revisions once for dates in the past"() {
+		def repository = 'repo with two commits with three added files'()
+		def commands = []
+		def project = newProject(repository)
+		project.addListener(new VcsCommand.Listener() {
+			@Override void beforeCommand(VcsCommand<?> command) {}
+			@Override void afterCommand(VcsCommand<?> command) { commands.add(command.describe()) }
+		})
+
+		def logResults = (1..2).collect { project.log(timeRange("10/08/2014", "11/08/2014")) }
+
+		assert logResults*.commits()*.message == [["initial commit"], ["initial commit"]]
+		assert commands.count { it.contains("svn info -r") } == 2
+		assert commands.count { it.contains("svn log") && it.contains("-r ") && !it.contains("{") } == 2
+	}
+
+	@Test void "log commits in concurrent revision windows"() {
+		def repository = 'repo with two commits with three added files'()
+		def settings = svnSettings.withLogWindowSize(1).withLogConcurrency(2)
+		def project = new VcsProject(new SvnVcsRoot("file://" + repository.repoPath, settings))
+
+		def logResult = project.log(TimeRange.all)
+
+		assert logResult.commits()*.message == ["initial commit", "added file2, file3"]
+		assert logResult.isSuccessful()
+	}
+
 	@Test void "log commit with modified files"() {
 		def repository = 'repo with two added and modified files'()
 		def revisions = repository.revisions